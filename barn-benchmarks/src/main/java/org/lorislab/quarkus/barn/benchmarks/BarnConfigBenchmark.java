@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.benchmarks;
+
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BarnConfigBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private List<VersionedMigration> versioned;
+
+    private List<Resource> repeatable;
+
+    @Setup
+    public void setup() {
+        versioned = BenchmarkData.versionedMigrations(size);
+        repeatable = BenchmarkData.repeatableMigrations(size / 10);
+    }
+
+    @Benchmark
+    public BarnConfig sorted() {
+        // the fingerprint is set to measure only the sort
+        return BarnConfig.builder()
+                .versionedMigrations(versioned)
+                .repeatableMigrations(repeatable)
+                .fingerprint(0L)
+                .sorted()
+                .build();
+    }
+}
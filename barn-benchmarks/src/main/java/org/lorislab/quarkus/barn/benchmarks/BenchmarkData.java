@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.benchmarks;
+
+import org.lorislab.quarkus.barn.models.HistorySnapshot;
+import org.lorislab.quarkus.barn.models.Migration;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The generated migration sets for the benchmarks.
+ */
+public final class BenchmarkData {
+
+    public static final String SCRIPT = "db/benchmark/V1.0__Benchmark.sql";
+
+    private static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    public static String version(int index) {
+        return (index / 1000) + "." + (index / 10 % 100) + "." + (index % 10);
+    }
+
+    /**
+     * Creates the versioned migration script names.
+     *
+     * @param size the number of scripts
+     * @return the script names in the random order
+     */
+    public static List<String> versionedScripts(int size) {
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add("db/migration/V" + version(i) + "__Migration_" + i + ".sql");
+        }
+        Collections.shuffle(result, new Random(SEED));
+        return result;
+    }
+
+    public static List<String> repeatableScripts(int size) {
+        List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add("db/migration/R__Repeatable_" + i + ".sql");
+        }
+        Collections.shuffle(result, new Random(SEED));
+        return result;
+    }
+
+    public static List<VersionedMigration> versionedMigrations(int size) {
+        List<VersionedMigration> result = new ArrayList<>(size);
+        for (String script : versionedScripts(size)) {
+            result.add(new VersionedMigration(resource(script)));
+        }
+        return result;
+    }
+
+    public static List<Resource> repeatableMigrations(int size) {
+        List<Resource> result = new ArrayList<>(size);
+        for (String script : repeatableScripts(size)) {
+            result.add(resource(script));
+        }
+        return result;
+    }
+
+    /**
+     * Creates the history with the applied versioned migrations and the half of the repeatable migrations.
+     *
+     * @param versioned the sorted versioned migrations
+     * @param repeatable the repeatable migrations
+     * @param applied the number of applied versioned migrations
+     * @return the history snapshot
+     */
+    public static HistorySnapshot history(List<VersionedMigration> versioned, List<Resource> repeatable, int applied) {
+        HistorySnapshot history = new HistorySnapshot();
+        long id = 0;
+        for (int i = 0; i < applied; i++) {
+            history.add(migration(id++, versioned.get(i).resource));
+        }
+        for (int i = 0; i < repeatable.size(); i += 2) {
+            history.add(migration(id++, repeatable.get(i)));
+        }
+        return history;
+    }
+
+    private static Migration migration(long id, Resource resource) {
+        Migration m = new Migration();
+        m.exists = true;
+        m.id = id;
+        m.version = resource.version;
+        m.description = resource.description;
+        m.script = resource.script;
+        m.checksum = resource.checksum;
+        return m;
+    }
+
+    private static Resource resource(String script) {
+        Resource r = ResourceLoader.createFrom(script);
+        r.checksum = (long) script.hashCode() & 0xFFFFFFFFL;
+        return r;
+    }
+}
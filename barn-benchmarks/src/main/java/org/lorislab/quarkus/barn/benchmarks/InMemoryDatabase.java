@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.benchmarks;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.benchmarks.InMemoryPool.InMemoryRow;
+import org.lorislab.quarkus.barn.database.Database;
+import org.lorislab.quarkus.barn.database.SqlSplitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The in-memory dialect for the in-memory pool. The dialect keeps the history table in memory,
+ * all other statements are only recorded by the pool.
+ */
+public class InMemoryDatabase extends Database {
+
+    private static final List<String> COLUMNS = Arrays.asList("id", "version", "description", "type", "script",
+            "checksum", "execution_time", "success", "installed_by", "installed_on");
+
+    private static final List<String> HISTORY_COLUMNS = Arrays.asList("id", "version", "description", "script", "checksum", "type");
+
+    private static final List<String> VALUE = Collections.singletonList("value");
+
+    private static final String USER = "barn";
+
+    private final Map<Long, Object[]> history = new TreeMap<>();
+
+    private final boolean pipelining;
+
+    private boolean exists;
+
+    public InMemoryDatabase(BarnConfig config, InMemoryPool pool, boolean pipelining) {
+        super(config, pool.mutiny());
+        this.pipelining = pipelining;
+        pool.engine(this::execute);
+    }
+
+    /**
+     * Drops the in-memory history table.
+     */
+    public synchronized void reset() {
+        history.clear();
+        exists = false;
+    }
+
+    public synchronized int getHistorySize() {
+        return history.size();
+    }
+
+    @Override
+    protected Uni<Void> cleanSchema(SqlConnection connection) {
+        return query(connection, "DROP TABLE IF EXISTS " + table).map(x -> null);
+    }
+
+    @Override
+    protected String historyTableSql() {
+        return "CREATE TABLE " + table + " (id bigint PRIMARY KEY)";
+    }
+
+    @Override
+    protected Uni<Boolean> tryLock(SqlConnection connection, Duration wait) {
+        return query(connection, "SELECT barn_try_lock(" + wait.toMillis() + ")")
+                .map(rows -> rows.iterator().next().getBoolean(0));
+    }
+
+    @Override
+    protected Uni<Void> unlock(SqlConnection connection) {
+        return query(connection, "SELECT barn_unlock()").map(x -> null);
+    }
+
+    @Override
+    protected Uni<Boolean> checkMigrationTable(SqlConnection connection) {
+        return query(connection, "SELECT barn_table_exists('" + table + "')")
+                .map(rows -> rows.iterator().next().getBoolean(0));
+    }
+
+    @Override
+    protected Uni<String> getCurrentUser(SqlConnection connection) {
+        return query(connection, "SELECT current_user").map(rows -> rows.iterator().next().getString(0));
+    }
+
+    @Override
+    protected String getInsertMigrationSQL(int rows) {
+        return "INSERT INTO " + table + " VALUES (" + rows + ")";
+    }
+
+    @Override
+    protected SqlSplitter getSqlSplitter() {
+        return SqlSplitter.POSTGRES;
+    }
+
+    @Override
+    protected boolean isPipelining() {
+        return pipelining;
+    }
+
+    /**
+     * Executes the statement of this dialect or the history statement of the database.
+     *
+     * @param sql the SQL statement
+     * @param arguments the arguments or {@code null}
+     * @return the result rows
+     */
+    protected synchronized List<Row> execute(String sql, Tuple arguments) {
+        if (sql.startsWith("SELECT barn_try_lock(")) {
+            return value(true);
+        }
+        if (sql.startsWith("SELECT barn_table_exists(")) {
+            return value(exists);
+        }
+        if (sql.equals("SELECT current_user")) {
+            return value(USER);
+        }
+        if (sql.equals("DROP TABLE IF EXISTS " + table)) {
+            reset();
+            return Collections.emptyList();
+        }
+        if (sql.startsWith("CREATE TABLE " + table + " ")) {
+            exists = true;
+            return Collections.emptyList();
+        }
+        if (!sql.contains(" " + table + " ")) {
+            return Collections.emptyList();
+        }
+        if (!exists) {
+            throw new IllegalStateException("Table " + table + " does not exist");
+        }
+        if (sql.startsWith("INSERT INTO ")) {
+            insert(arguments);
+            return Collections.emptyList();
+        }
+        if (sql.startsWith("UPDATE ")) {
+            // the update of the checksum or of the executed repeatable migration
+            Object[] row = history.get(arguments.getLong(arguments.size() - 1));
+            row[5] = arguments.getLong(0);
+            if (arguments.size() > 2) {
+                row[4] = arguments.getString(1);
+                row[6] = arguments.getLong(2);
+                row[8] = arguments.getString(3);
+            }
+            return Collections.emptyList();
+        }
+        if (sql.startsWith("DELETE FROM ")) {
+            history.remove(FINGERPRINT_ID);
+            return Collections.emptyList();
+        }
+        if (sql.startsWith("SELECT checksum FROM ")) {
+            Object[] row = history.get(FINGERPRINT_ID);
+            return row == null ? Collections.emptyList() : value(row[5]);
+        }
+        if (sql.startsWith("SELECT id, version, description, script, checksum, type FROM ")) {
+            List<Row> result = new ArrayList<>();
+            history.values().stream().filter(r -> (Long) r[0] >= 0)
+                    .forEach(r -> result.add(new InMemoryRow(HISTORY_COLUMNS, r[0], r[1], r[2], r[4], r[5], r[3])));
+            return result;
+        }
+        if (sql.startsWith("SELECT * FROM ")) {
+            List<Row> result = new ArrayList<>();
+            history.values().stream().filter(r -> r[1] != null).reduce((a, b) -> b)
+                    .ifPresent(r -> result.add(new InMemoryRow(COLUMNS, r)));
+            return result;
+        }
+        throw new IllegalStateException("Not supported history statement: " + sql);
+    }
+
+    private void insert(Tuple arguments) {
+        int columns = COLUMNS.size() - 1;
+        for (int i = 0; i < arguments.size(); i += columns) {
+            Object[] row = new Object[COLUMNS.size()];
+            for (int c = 0; c < columns; c++) {
+                row[c] = arguments.getValue(i + c);
+            }
+            row[columns] = LocalDateTime.now();
+            if (history.putIfAbsent((Long) row[0], row) != null) {
+                throw new IllegalStateException("Duplicate key value: " + row[0]);
+            }
+        }
+    }
+
+    private static List<Row> value(Object value) {
+        return Collections.singletonList(new InMemoryRow(VALUE, value));
+    }
+}
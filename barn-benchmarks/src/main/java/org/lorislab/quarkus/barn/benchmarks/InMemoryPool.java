@@ -0,0 +1,434 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.benchmarks;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PreparedQuery;
+import io.vertx.sqlclient.PreparedStatement;
+import io.vertx.sqlclient.PropertyKind;
+import io.vertx.sqlclient.Query;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowIterator;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.SqlResult;
+import io.vertx.sqlclient.Transaction;
+import io.vertx.sqlclient.Tuple;
+import io.vertx.sqlclient.desc.ColumnDescriptor;
+import io.vertx.sqlclient.spi.DatabaseMetadata;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * The in-memory stand-in of the SQL client pool. The pool records the statements, counts the round-trips
+ * to the database and completes each round-trip after the configured latency on one event loop thread.
+ * The results of the statements are created by the engine.
+ */
+public class InMemoryPool implements Pool {
+
+    /**
+     * The engine of the in-memory database.
+     */
+    @FunctionalInterface
+    public interface Engine {
+
+        /**
+         * Executes the statement.
+         *
+         * @param sql the SQL statement
+         * @param arguments the arguments of the prepared statement or {@code null}
+         * @return the result rows
+         */
+        List<Row> execute(String sql, Tuple arguments);
+    }
+
+    private final long latency;
+
+    private final ScheduledExecutorService executor;
+
+    private final AtomicLong roundTrips = new AtomicLong();
+
+    private final ConcurrentLinkedQueue<String> statements = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean recording;
+
+    private volatile Engine engine = (sql, arguments) -> Collections.emptyList();
+
+    public InMemoryPool(Duration latency) {
+        this.latency = latency.toNanos();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "barn-in-memory-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public InMemoryPool engine(Engine engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    public InMemoryPool recording(boolean recording) {
+        this.recording = recording;
+        return this;
+    }
+
+    /**
+     * Creates the mutiny pool for this pool.
+     *
+     * @return the mutiny pool
+     */
+    public io.vertx.mutiny.sqlclient.Pool mutiny() {
+        return new io.vertx.mutiny.sqlclient.Pool(this);
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public List<String> getStatements() {
+        return new ArrayList<>(statements);
+    }
+
+    public void reset() {
+        roundTrips.set(0);
+        statements.clear();
+    }
+
+    @Override
+    public void getConnection(Handler<AsyncResult<SqlConnection>> handler) {
+        executor.execute(() -> handler.handle(Future.succeededFuture(new InMemoryConnection())));
+    }
+
+    @Override
+    public Query<RowSet<Row>> query(String sql) {
+        return new InMemoryQuery(sql);
+    }
+
+    @Override
+    public PreparedQuery<RowSet<Row>> preparedQuery(String sql) {
+        return new InMemoryQuery(sql);
+    }
+
+    @Override
+    public void begin(Handler<AsyncResult<Transaction>> handler) {
+        getConnection(ar -> handler.handle(ar.map(SqlConnection::begin)));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> void roundTrip(String sql, Tuple arguments, Function<List<Row>, T> result, Handler<AsyncResult<T>> handler) {
+        roundTrips.incrementAndGet();
+        if (recording) {
+            statements.add(sql);
+        }
+        Runnable task = () -> {
+            AsyncResult<T> ar;
+            try {
+                ar = Future.succeededFuture(result.apply(engine.execute(sql, arguments)));
+            } catch (Exception ex) {
+                ar = Future.failedFuture(ex);
+            }
+            handler.handle(ar);
+        };
+        if (latency > 0) {
+            executor.schedule(task, latency, TimeUnit.NANOSECONDS);
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * The row of the in-memory result.
+     */
+    public static class InMemoryRow implements Row {
+
+        private final List<String> columns;
+
+        private final Object[] values;
+
+        public InMemoryRow(List<String> columns, Object... values) {
+            this.columns = columns;
+            this.values = values;
+        }
+
+        @Override
+        public String getColumnName(int pos) {
+            return columns.get(pos);
+        }
+
+        @Override
+        public int getColumnIndex(String name) {
+            return columns.indexOf(name);
+        }
+
+        @Override
+        public Object getValue(int pos) {
+            return values[pos];
+        }
+
+        @Override
+        public <T> T[] getValues(Class<T> type, int pos) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Tuple addValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class InMemoryRowSet implements RowSet<Row> {
+
+        private final List<Row> rows;
+
+        InMemoryRowSet(List<Row> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public RowIterator<Row> iterator() {
+            Iterator<Row> it = rows.iterator();
+            return new RowIterator<Row>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Row next() {
+                    return it.next();
+                }
+            };
+        }
+
+        @Override
+        public int rowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public List<String> columnsNames() {
+            List<String> result = new ArrayList<>();
+            if (!rows.isEmpty()) {
+                Row row = rows.get(0);
+                for (int i = 0; i < row.size(); i++) {
+                    result.add(row.getColumnName(i));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public List<ColumnDescriptor> columnDescriptors() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+
+        @Override
+        public <V> V property(PropertyKind<V> propertyKind) {
+            return null;
+        }
+
+        @Override
+        public RowSet<Row> value() {
+            return this;
+        }
+
+        @Override
+        public RowSet<Row> next() {
+            return null;
+        }
+    }
+
+    private class InMemoryQuery implements PreparedQuery<RowSet<Row>> {
+
+        private final String sql;
+
+        InMemoryQuery(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public void execute(Handler<AsyncResult<RowSet<Row>>> handler) {
+            execute(null, handler);
+        }
+
+        @Override
+        public void execute(Tuple arguments, Handler<AsyncResult<RowSet<Row>>> handler) {
+            roundTrip(sql, arguments, InMemoryRowSet::new, handler);
+        }
+
+        @Override
+        public void executeBatch(List<Tuple> batch, Handler<AsyncResult<RowSet<Row>>> handler) {
+            // the batch is one round-trip
+            roundTrip(sql, null, rows -> {
+                List<Row> result = new ArrayList<>();
+                for (Tuple arguments : batch) {
+                    result.addAll(engine.execute(sql, arguments));
+                }
+                return new InMemoryRowSet(result);
+            }, handler);
+        }
+
+        @Override
+        public <R> PreparedQuery<SqlResult<R>> collecting(Collector<Row, ?, R> collector) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U> PreparedQuery<RowSet<U>> mapping(Function<Row, U> mapper) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class InMemoryConnection implements SqlConnection {
+
+        @Override
+        public Query<RowSet<Row>> query(String sql) {
+            return new InMemoryQuery(sql);
+        }
+
+        @Override
+        public PreparedQuery<RowSet<Row>> preparedQuery(String sql) {
+            return new InMemoryQuery(sql);
+        }
+
+        @Override
+        public SqlConnection prepare(String sql, Handler<AsyncResult<PreparedStatement>> handler) {
+            handler.handle(Future.failedFuture(new UnsupportedOperationException()));
+            return this;
+        }
+
+        @Override
+        public SqlConnection exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public SqlConnection closeHandler(Handler<Void> handler) {
+            return this;
+        }
+
+        @Override
+        public Transaction begin() {
+            return new InMemoryTransaction();
+        }
+
+        @Override
+        public boolean isSSL() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // the connection is not pooled
+        }
+
+        @Override
+        public DatabaseMetadata databaseMetadata() {
+            return null;
+        }
+    }
+
+    private class InMemoryTransaction implements Transaction {
+
+        InMemoryTransaction() {
+            // the begin statement is sent without waiting for the result, it is counted as one round-trip
+            roundTrips.incrementAndGet();
+            if (recording) {
+                statements.add("BEGIN");
+            }
+        }
+
+        @Override
+        public Query<RowSet<Row>> query(String sql) {
+            return new InMemoryQuery(sql);
+        }
+
+        @Override
+        public PreparedQuery<RowSet<Row>> preparedQuery(String sql) {
+            return new InMemoryQuery(sql);
+        }
+
+        @Override
+        public Transaction prepare(String sql, Handler<AsyncResult<PreparedStatement>> handler) {
+            handler.handle(Future.failedFuture(new UnsupportedOperationException()));
+            return this;
+        }
+
+        @Override
+        public void commit() {
+            commit(ar -> { });
+        }
+
+        @Override
+        public void commit(Handler<AsyncResult<Void>> handler) {
+            roundTrip("COMMIT", null, rows -> null, handler);
+        }
+
+        @Override
+        public void rollback() {
+            rollback(ar -> { });
+        }
+
+        @Override
+        public void rollback(Handler<AsyncResult<Void>> handler) {
+            roundTrip("ROLLBACK", null, rows -> null, handler);
+        }
+
+        @Override
+        public Transaction abortHandler(Handler<Void> handler) {
+            return this;
+        }
+
+        @Override
+        public void close() {
+            // the transaction ends with commit or rollback
+        }
+    }
+}
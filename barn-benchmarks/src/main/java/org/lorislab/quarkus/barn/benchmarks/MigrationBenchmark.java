@@ -0,0 +1,242 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.benchmarks;
+
+import org.lorislab.quarkus.barn.Barn;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.database.SqlSplitter;
+import org.lorislab.quarkus.barn.models.MigrationBundle;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The benchmark of the migration engine with the in-memory pool. The benchmark measures the Barn overhead
+ * of the migration, test data and clean cycles. Each statement of the in-memory pool is completed after
+ * the latency, the latency {@code 0} measures only the engine.
+ * The counters report the executed scripts per second, the database round-trips per script
+ * and the allocated bytes per script. The cycles without script report the values per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MigrationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Engine {
+
+        @Param({"100", "1000"})
+        public int size;
+
+        /**
+         * The latency of one round-trip in microseconds.
+         */
+        @Param({"0", "100"})
+        public int latency;
+
+        @Param({"1", "10"})
+        public int batchSize;
+
+        @Param({"false", "true"})
+        public boolean pipelining;
+
+        InMemoryPool pool;
+
+        InMemoryDatabase database;
+
+        Barn barn;
+
+        int scripts;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            List<VersionedMigration> versioned = BenchmarkData.versionedMigrations(size).stream().sorted().collect(Collectors.toList());
+            List<Resource> repeatable = BenchmarkData.repeatableMigrations(size / 10).stream().sorted().collect(Collectors.toList());
+            Map<String, byte[]> content = new HashMap<>();
+            versioned.forEach(m -> content.put(m.resource.script, script(m.resource)));
+            repeatable.forEach(r -> content.put(r.script, script(r)));
+            byte[] bundle = MigrationBundle.create(versioned, repeatable, s -> new ByteArrayInputStream(content.get(s)), Long.MAX_VALUE);
+
+            BarnConfig config = BarnConfig.builder()
+                    .table(Barn.HISTORY_TABLE)
+                    .versionedMigrations(versioned)
+                    .repeatableMigrations(repeatable)
+                    .afterMigrationScripts(Collections.singletonList(BenchmarkData.SCRIPT))
+                    .bundle(MigrationBundle.of(ByteBuffer.wrap(bundle)))
+                    .batchSize(batchSize)
+                    .build();
+            pool = new InMemoryPool(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(latency)));
+            database = new InMemoryDatabase(config, pool, pipelining);
+            barn = new Barn(database, config);
+            scripts = versioned.size() + repeatable.size();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.close();
+        }
+
+        private static byte[] script(Resource resource) {
+            String name = "t_" + Integer.toHexString(resource.script.hashCode());
+            String sql = "CREATE TABLE " + name + " (id bigint PRIMARY KEY, name varchar(255));\n"
+                    + "INSERT INTO " + name + " VALUES (1, 'one');\n"
+                    + "INSERT INTO " + name + " VALUES (2, 'two');\n";
+            resource.statements = SqlSplitter.POSTGRES.split(sql);
+            return sql.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyDatabase extends Engine {
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            database.reset();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class MigratedDatabase extends Engine {
+
+        @Setup(Level.Trial)
+        public void migrate() {
+            barn.migration();
+        }
+    }
+
+    /**
+     * The counters of the iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public double scriptsPerSecond;
+
+        public double roundTripsPerScript;
+
+        public double bytesPerScript;
+
+        private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        private long operations;
+
+        private long scripts;
+
+        private long roundTrips;
+
+        private long bytes;
+
+        private long time;
+
+        private long invocationBytes;
+
+        private long invocationTime;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            operations = 0;
+            scripts = 0;
+            roundTrips = 0;
+            bytes = 0;
+            time = 0;
+        }
+
+        @Setup(Level.Invocation)
+        public void start() {
+            invocationBytes = allocatedBytes();
+            invocationTime = System.nanoTime();
+        }
+
+        void add(Engine engine, int scripts) {
+            time += System.nanoTime() - invocationTime;
+            bytes += allocatedBytes() - invocationBytes;
+            roundTrips += engine.pool.getRoundTrips();
+            engine.pool.reset();
+            this.scripts += scripts;
+            operations++;
+
+            long count = this.scripts > 0 ? this.scripts : operations;
+            scriptsPerSecond = (double) this.scripts / Math.max(time, 1) * TimeUnit.SECONDS.toNanos(1);
+            roundTripsPerScript = (double) roundTrips / count;
+            bytesPerScript = (double) bytes / count;
+        }
+
+        private long allocatedBytes() {
+            long result = 0;
+            for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+                result += Math.max(bytes, 0);
+            }
+            return result;
+        }
+    }
+
+    @Benchmark
+    public void migration(EmptyDatabase state, Counters counters) {
+        state.pool.reset();
+        state.barn.migration();
+        counters.add(state, state.scripts);
+    }
+
+    @Benchmark
+    public void upToDate(MigratedDatabase state, Counters counters) {
+        state.pool.reset();
+        state.barn.migration();
+        counters.add(state, 0);
+    }
+
+    @Benchmark
+    public void testData(MigratedDatabase state, Counters counters) {
+        state.pool.reset();
+        state.barn.testData();
+        counters.add(state, 1);
+    }
+
+    @Benchmark
+    public void clean(MigratedDatabase state, Counters counters) {
+        state.pool.reset();
+        state.barn.clean();
+        counters.add(state, 0);
+    }
+}
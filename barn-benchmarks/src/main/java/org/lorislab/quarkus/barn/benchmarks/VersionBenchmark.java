@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.benchmarks;
+
+import org.lorislab.quarkus.barn.models.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private String[] values;
+
+    private Version[] versions;
+
+    private Version latest;
+
+    @Setup
+    public void setup() {
+        List<String> tmp = IntStream.range(0, size).mapToObj(BenchmarkData::version).collect(Collectors.toList());
+        Collections.shuffle(tmp, new Random(42));
+        values = tmp.toArray(new String[0]);
+        versions = tmp.stream().map(Version::of).toArray(Version[]::new);
+        latest = Version.of(BenchmarkData.version(size / 2));
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) {
+        for (String value : values) {
+            bh.consume(Version.of(value));
+        }
+    }
+
+    @Benchmark
+    public Version[] sort() {
+        Version[] tmp = versions.clone();
+        Arrays.sort(tmp);
+        return tmp;
+    }
+
+    @Benchmark
+    public int isLessThan() {
+        int result = 0;
+        for (Version version : versions) {
+            if (latest.isLessThan(version)) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.database;
+
+import org.lorislab.quarkus.barn.Barn;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.benchmarks.BenchmarkData;
+import org.lorislab.quarkus.barn.models.HistorySnapshot;
+import org.lorislab.quarkus.barn.models.Migration;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The benchmark of the migration planning. The benchmark is in the database package
+ * to call the protected methods of the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private Database database;
+
+    private List<VersionedMigration> versioned;
+
+    private List<Resource> repeatable;
+
+    private HistorySnapshot history;
+
+    private Migration latest;
+
+    @Setup
+    public void setup() {
+        versioned = BenchmarkData.versionedMigrations(size).stream().sorted().collect(Collectors.toList());
+        repeatable = BenchmarkData.repeatableMigrations(size / 10);
+        // the half of the versioned migrations is applied
+        history = BenchmarkData.history(versioned, repeatable, size / 2);
+        database = new PostgresDatabase(BarnConfig.builder().table(Barn.HISTORY_TABLE).fingerprint(0L).build(), null);
+        latest = new Migration();
+        latest.id = (long) size;
+    }
+
+    @Benchmark
+    public List<Migration> createMigrations() {
+        return database.createMigrations(versioned, history);
+    }
+
+    @Benchmark
+    public List<Migration> createRepeatableMigrations() {
+        return database.createRepeatableMigrations(latest, repeatable, history);
+    }
+}
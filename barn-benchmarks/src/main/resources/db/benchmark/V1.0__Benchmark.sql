@@ -0,0 +1,208 @@
+create table benchmark
+(
+    id      bigint,
+    ref     varchar(255),
+    created bigint,
+    primary key (id)
+);
+
+INSERT INTO benchmark (id, ref, created) VALUES (0, 'reference 140891', 611178002);
+INSERT INTO benchmark (id, ref, created) VALUES (1, 'reference 888598', 861425548);
+INSERT INTO benchmark (id, ref, created) VALUES (2, 'reference 800875', 67760436);
+INSERT INTO benchmark (id, ref, created) VALUES (3, 'reference 267459', 126614242);
+INSERT INTO benchmark (id, ref, created) VALUES (4, 'reference 519501', 817077201);
+INSERT INTO benchmark (id, ref, created) VALUES (5, 'reference 471325', 507069464);
+INSERT INTO benchmark (id, ref, created) VALUES (6, 'reference 683244', 407608741);
+INSERT INTO benchmark (id, ref, created) VALUES (7, 'reference 827036', 225437259);
+INSERT INTO benchmark (id, ref, created) VALUES (8, 'reference 98418', 523832096);
+INSERT INTO benchmark (id, ref, created) VALUES (9, 'reference 29724', 959191865);
+INSERT INTO benchmark (id, ref, created) VALUES (10, 'reference 876363', 418554019);
+INSERT INTO benchmark (id, ref, created) VALUES (11, 'reference 453789', 652231581);
+INSERT INTO benchmark (id, ref, created) VALUES (12, 'reference 799308', 823729238);
+INSERT INTO benchmark (id, ref, created) VALUES (13, 'reference 2208', 747144854);
+INSERT INTO benchmark (id, ref, created) VALUES (14, 'reference 467022', 285970256);
+INSERT INTO benchmark (id, ref, created) VALUES (15, 'reference 756589', 860954509);
+INSERT INTO benchmark (id, ref, created) VALUES (16, 'reference 239874', 634746160);
+INSERT INTO benchmark (id, ref, created) VALUES (17, 'reference 991188', 109765575);
+INSERT INTO benchmark (id, ref, created) VALUES (18, 'reference 945215', 340837476);
+INSERT INTO benchmark (id, ref, created) VALUES (19, 'reference 32075', 23968184);
+INSERT INTO benchmark (id, ref, created) VALUES (20, 'reference 26681', 697444855);
+INSERT INTO benchmark (id, ref, created) VALUES (21, 'reference 567712', 9883727);
+INSERT INTO benchmark (id, ref, created) VALUES (22, 'reference 984769', 946217654);
+INSERT INTO benchmark (id, ref, created) VALUES (23, 'reference 399721', 737106430);
+INSERT INTO benchmark (id, ref, created) VALUES (24, 'reference 227120', 453244221);
+INSERT INTO benchmark (id, ref, created) VALUES (25, 'reference 761111', 31182305);
+INSERT INTO benchmark (id, ref, created) VALUES (26, 'reference 553259', 238039615);
+INSERT INTO benchmark (id, ref, created) VALUES (27, 'reference 800798', 470178216);
+INSERT INTO benchmark (id, ref, created) VALUES (28, 'reference 984787', 532374341);
+INSERT INTO benchmark (id, ref, created) VALUES (29, 'reference 579715', 250272526);
+INSERT INTO benchmark (id, ref, created) VALUES (30, 'reference 362493', 247891063);
+INSERT INTO benchmark (id, ref, created) VALUES (31, 'reference 709727', 234914346);
+INSERT INTO benchmark (id, ref, created) VALUES (32, 'reference 797911', 493495461);
+INSERT INTO benchmark (id, ref, created) VALUES (33, 'reference 998500', 311150634);
+INSERT INTO benchmark (id, ref, created) VALUES (34, 'reference 971512', 23074397);
+INSERT INTO benchmark (id, ref, created) VALUES (35, 'reference 436396', 899342503);
+INSERT INTO benchmark (id, ref, created) VALUES (36, 'reference 960778', 597488273);
+INSERT INTO benchmark (id, ref, created) VALUES (37, 'reference 966984', 689658324);
+INSERT INTO benchmark (id, ref, created) VALUES (38, 'reference 104857', 199615329);
+INSERT INTO benchmark (id, ref, created) VALUES (39, 'reference 659924', 777001467);
+INSERT INTO benchmark (id, ref, created) VALUES (40, 'reference 901719', 318246764);
+INSERT INTO benchmark (id, ref, created) VALUES (41, 'reference 126762', 797947650);
+INSERT INTO benchmark (id, ref, created) VALUES (42, 'reference 348856', 961616757);
+INSERT INTO benchmark (id, ref, created) VALUES (43, 'reference 756531', 763636349);
+INSERT INTO benchmark (id, ref, created) VALUES (44, 'reference 525126', 453233942);
+INSERT INTO benchmark (id, ref, created) VALUES (45, 'reference 532380', 891244035);
+INSERT INTO benchmark (id, ref, created) VALUES (46, 'reference 954398', 719735122);
+INSERT INTO benchmark (id, ref, created) VALUES (47, 'reference 199071', 325739463);
+INSERT INTO benchmark (id, ref, created) VALUES (48, 'reference 297962', 630909864);
+INSERT INTO benchmark (id, ref, created) VALUES (49, 'reference 925346', 536185925);
+INSERT INTO benchmark (id, ref, created) VALUES (50, 'reference 887302', 542544369);
+INSERT INTO benchmark (id, ref, created) VALUES (51, 'reference 412461', 632436358);
+INSERT INTO benchmark (id, ref, created) VALUES (52, 'reference 894737', 37071829);
+INSERT INTO benchmark (id, ref, created) VALUES (53, 'reference 503554', 260640056);
+INSERT INTO benchmark (id, ref, created) VALUES (54, 'reference 779858', 856206294);
+INSERT INTO benchmark (id, ref, created) VALUES (55, 'reference 423926', 444866269);
+INSERT INTO benchmark (id, ref, created) VALUES (56, 'reference 697034', 185765286);
+INSERT INTO benchmark (id, ref, created) VALUES (57, 'reference 384957', 589268179);
+INSERT INTO benchmark (id, ref, created) VALUES (58, 'reference 925611', 754884265);
+INSERT INTO benchmark (id, ref, created) VALUES (59, 'reference 813524', 724223642);
+INSERT INTO benchmark (id, ref, created) VALUES (60, 'reference 774075', 402334307);
+INSERT INTO benchmark (id, ref, created) VALUES (61, 'reference 90667', 471331461);
+INSERT INTO benchmark (id, ref, created) VALUES (62, 'reference 696000', 545918789);
+INSERT INTO benchmark (id, ref, created) VALUES (63, 'reference 113174', 835846392);
+INSERT INTO benchmark (id, ref, created) VALUES (64, 'reference 171650', 559353361);
+INSERT INTO benchmark (id, ref, created) VALUES (65, 'reference 880753', 422254446);
+INSERT INTO benchmark (id, ref, created) VALUES (66, 'reference 388521', 525804415);
+INSERT INTO benchmark (id, ref, created) VALUES (67, 'reference 768360', 31755873);
+INSERT INTO benchmark (id, ref, created) VALUES (68, 'reference 492117', 46694123);
+INSERT INTO benchmark (id, ref, created) VALUES (69, 'reference 323516', 755250767);
+INSERT INTO benchmark (id, ref, created) VALUES (70, 'reference 889508', 660147977);
+INSERT INTO benchmark (id, ref, created) VALUES (71, 'reference 621998', 620811651);
+INSERT INTO benchmark (id, ref, created) VALUES (72, 'reference 412719', 694878646);
+INSERT INTO benchmark (id, ref, created) VALUES (73, 'reference 178624', 181026748);
+INSERT INTO benchmark (id, ref, created) VALUES (74, 'reference 526635', 243672113);
+INSERT INTO benchmark (id, ref, created) VALUES (75, 'reference 12899', 827342927);
+INSERT INTO benchmark (id, ref, created) VALUES (76, 'reference 209208', 579409818);
+INSERT INTO benchmark (id, ref, created) VALUES (77, 'reference 964780', 923729113);
+INSERT INTO benchmark (id, ref, created) VALUES (78, 'reference 574974', 249297217);
+INSERT INTO benchmark (id, ref, created) VALUES (79, 'reference 424101', 551658122);
+INSERT INTO benchmark (id, ref, created) VALUES (80, 'reference 360527', 909954310);
+INSERT INTO benchmark (id, ref, created) VALUES (81, 'reference 605861', 379325246);
+INSERT INTO benchmark (id, ref, created) VALUES (82, 'reference 481434', 976842008);
+INSERT INTO benchmark (id, ref, created) VALUES (83, 'reference 282359', 707826512);
+INSERT INTO benchmark (id, ref, created) VALUES (84, 'reference 574615', 653849522);
+INSERT INTO benchmark (id, ref, created) VALUES (85, 'reference 764831', 6130128);
+INSERT INTO benchmark (id, ref, created) VALUES (86, 'reference 402327', 841443398);
+INSERT INTO benchmark (id, ref, created) VALUES (87, 'reference 898576', 880990038);
+INSERT INTO benchmark (id, ref, created) VALUES (88, 'reference 929226', 795109485);
+INSERT INTO benchmark (id, ref, created) VALUES (89, 'reference 537395', 868807354);
+INSERT INTO benchmark (id, ref, created) VALUES (90, 'reference 135527', 556926566);
+INSERT INTO benchmark (id, ref, created) VALUES (91, 'reference 815160', 602753419);
+INSERT INTO benchmark (id, ref, created) VALUES (92, 'reference 215466', 457511382);
+INSERT INTO benchmark (id, ref, created) VALUES (93, 'reference 995852', 60261934);
+INSERT INTO benchmark (id, ref, created) VALUES (94, 'reference 504471', 934166291);
+INSERT INTO benchmark (id, ref, created) VALUES (95, 'reference 382453', 612032126);
+INSERT INTO benchmark (id, ref, created) VALUES (96, 'reference 581331', 214575938);
+INSERT INTO benchmark (id, ref, created) VALUES (97, 'reference 986724', 541939476);
+INSERT INTO benchmark (id, ref, created) VALUES (98, 'reference 433481', 520684370);
+INSERT INTO benchmark (id, ref, created) VALUES (99, 'reference 852860', 383100304);
+INSERT INTO benchmark (id, ref, created) VALUES (100, 'reference 434555', 371598338);
+INSERT INTO benchmark (id, ref, created) VALUES (101, 'reference 1661', 578187200);
+INSERT INTO benchmark (id, ref, created) VALUES (102, 'reference 566345', 669466698);
+INSERT INTO benchmark (id, ref, created) VALUES (103, 'reference 824646', 657615827);
+INSERT INTO benchmark (id, ref, created) VALUES (104, 'reference 347222', 491931376);
+INSERT INTO benchmark (id, ref, created) VALUES (105, 'reference 628993', 30037904);
+INSERT INTO benchmark (id, ref, created) VALUES (106, 'reference 843652', 246536523);
+INSERT INTO benchmark (id, ref, created) VALUES (107, 'reference 666234', 190279142);
+INSERT INTO benchmark (id, ref, created) VALUES (108, 'reference 577509', 627560084);
+INSERT INTO benchmark (id, ref, created) VALUES (109, 'reference 189565', 924501226);
+INSERT INTO benchmark (id, ref, created) VALUES (110, 'reference 96051', 857317285);
+INSERT INTO benchmark (id, ref, created) VALUES (111, 'reference 577795', 855876987);
+INSERT INTO benchmark (id, ref, created) VALUES (112, 'reference 892625', 876642949);
+INSERT INTO benchmark (id, ref, created) VALUES (113, 'reference 976171', 274119888);
+INSERT INTO benchmark (id, ref, created) VALUES (114, 'reference 34035', 903816624);
+INSERT INTO benchmark (id, ref, created) VALUES (115, 'reference 989405', 722750144);
+INSERT INTO benchmark (id, ref, created) VALUES (116, 'reference 73875', 89371972);
+INSERT INTO benchmark (id, ref, created) VALUES (117, 'reference 910245', 17921429);
+INSERT INTO benchmark (id, ref, created) VALUES (118, 'reference 475003', 15633654);
+INSERT INTO benchmark (id, ref, created) VALUES (119, 'reference 790778', 811305121);
+INSERT INTO benchmark (id, ref, created) VALUES (120, 'reference 294856', 267962176);
+INSERT INTO benchmark (id, ref, created) VALUES (121, 'reference 281691', 117562515);
+INSERT INTO benchmark (id, ref, created) VALUES (122, 'reference 836016', 670876131);
+INSERT INTO benchmark (id, ref, created) VALUES (123, 'reference 193577', 369821234);
+INSERT INTO benchmark (id, ref, created) VALUES (124, 'reference 304385', 74641570);
+INSERT INTO benchmark (id, ref, created) VALUES (125, 'reference 175605', 171396602);
+INSERT INTO benchmark (id, ref, created) VALUES (126, 'reference 267613', 566270385);
+INSERT INTO benchmark (id, ref, created) VALUES (127, 'reference 998199', 180544260);
+INSERT INTO benchmark (id, ref, created) VALUES (128, 'reference 688554', 293039647);
+INSERT INTO benchmark (id, ref, created) VALUES (129, 'reference 679689', 764063871);
+INSERT INTO benchmark (id, ref, created) VALUES (130, 'reference 308798', 488232158);
+INSERT INTO benchmark (id, ref, created) VALUES (131, 'reference 736756', 345746760);
+INSERT INTO benchmark (id, ref, created) VALUES (132, 'reference 520611', 508707754);
+INSERT INTO benchmark (id, ref, created) VALUES (133, 'reference 119737', 25377432);
+INSERT INTO benchmark (id, ref, created) VALUES (134, 'reference 327160', 415062531);
+INSERT INTO benchmark (id, ref, created) VALUES (135, 'reference 360020', 451957985);
+INSERT INTO benchmark (id, ref, created) VALUES (136, 'reference 834879', 201905667);
+INSERT INTO benchmark (id, ref, created) VALUES (137, 'reference 270973', 116781980);
+INSERT INTO benchmark (id, ref, created) VALUES (138, 'reference 265770', 966172754);
+INSERT INTO benchmark (id, ref, created) VALUES (139, 'reference 765620', 547732858);
+INSERT INTO benchmark (id, ref, created) VALUES (140, 'reference 219247', 650310277);
+INSERT INTO benchmark (id, ref, created) VALUES (141, 'reference 452623', 877289657);
+INSERT INTO benchmark (id, ref, created) VALUES (142, 'reference 21829', 241993509);
+INSERT INTO benchmark (id, ref, created) VALUES (143, 'reference 18732', 426614131);
+INSERT INTO benchmark (id, ref, created) VALUES (144, 'reference 153576', 37931054);
+INSERT INTO benchmark (id, ref, created) VALUES (145, 'reference 753753', 172043067);
+INSERT INTO benchmark (id, ref, created) VALUES (146, 'reference 467317', 756564531);
+INSERT INTO benchmark (id, ref, created) VALUES (147, 'reference 530903', 728185719);
+INSERT INTO benchmark (id, ref, created) VALUES (148, 'reference 447390', 584869491);
+INSERT INTO benchmark (id, ref, created) VALUES (149, 'reference 872672', 236867174);
+INSERT INTO benchmark (id, ref, created) VALUES (150, 'reference 661412', 856642881);
+INSERT INTO benchmark (id, ref, created) VALUES (151, 'reference 728813', 554694505);
+INSERT INTO benchmark (id, ref, created) VALUES (152, 'reference 472745', 239654640);
+INSERT INTO benchmark (id, ref, created) VALUES (153, 'reference 549344', 696328469);
+INSERT INTO benchmark (id, ref, created) VALUES (154, 'reference 32191', 424018511);
+INSERT INTO benchmark (id, ref, created) VALUES (155, 'reference 707686', 618309891);
+INSERT INTO benchmark (id, ref, created) VALUES (156, 'reference 842410', 344935061);
+INSERT INTO benchmark (id, ref, created) VALUES (157, 'reference 691875', 677475107);
+INSERT INTO benchmark (id, ref, created) VALUES (158, 'reference 447007', 63120034);
+INSERT INTO benchmark (id, ref, created) VALUES (159, 'reference 773273', 320625701);
+INSERT INTO benchmark (id, ref, created) VALUES (160, 'reference 131788', 227774671);
+INSERT INTO benchmark (id, ref, created) VALUES (161, 'reference 918064', 50938496);
+INSERT INTO benchmark (id, ref, created) VALUES (162, 'reference 321269', 75942400);
+INSERT INTO benchmark (id, ref, created) VALUES (163, 'reference 900217', 82083438);
+INSERT INTO benchmark (id, ref, created) VALUES (164, 'reference 325439', 984810563);
+INSERT INTO benchmark (id, ref, created) VALUES (165, 'reference 984915', 319846000);
+INSERT INTO benchmark (id, ref, created) VALUES (166, 'reference 779974', 169873892);
+INSERT INTO benchmark (id, ref, created) VALUES (167, 'reference 436388', 606600485);
+INSERT INTO benchmark (id, ref, created) VALUES (168, 'reference 264616', 140006408);
+INSERT INTO benchmark (id, ref, created) VALUES (169, 'reference 8892', 602065632);
+INSERT INTO benchmark (id, ref, created) VALUES (170, 'reference 921402', 913246053);
+INSERT INTO benchmark (id, ref, created) VALUES (171, 'reference 39758', 634134709);
+INSERT INTO benchmark (id, ref, created) VALUES (172, 'reference 859217', 233635842);
+INSERT INTO benchmark (id, ref, created) VALUES (173, 'reference 944570', 612334103);
+INSERT INTO benchmark (id, ref, created) VALUES (174, 'reference 483238', 184165073);
+INSERT INTO benchmark (id, ref, created) VALUES (175, 'reference 868129', 931772821);
+INSERT INTO benchmark (id, ref, created) VALUES (176, 'reference 912142', 837537161);
+INSERT INTO benchmark (id, ref, created) VALUES (177, 'reference 738221', 668901227);
+INSERT INTO benchmark (id, ref, created) VALUES (178, 'reference 533592', 40183043);
+INSERT INTO benchmark (id, ref, created) VALUES (179, 'reference 396329', 215185871);
+INSERT INTO benchmark (id, ref, created) VALUES (180, 'reference 363783', 106327675);
+INSERT INTO benchmark (id, ref, created) VALUES (181, 'reference 215756', 615664991);
+INSERT INTO benchmark (id, ref, created) VALUES (182, 'reference 706900', 962680139);
+INSERT INTO benchmark (id, ref, created) VALUES (183, 'reference 453981', 635020915);
+INSERT INTO benchmark (id, ref, created) VALUES (184, 'reference 203548', 528657595);
+INSERT INTO benchmark (id, ref, created) VALUES (185, 'reference 109496', 715066450);
+INSERT INTO benchmark (id, ref, created) VALUES (186, 'reference 409008', 317905608);
+INSERT INTO benchmark (id, ref, created) VALUES (187, 'reference 528594', 536656080);
+INSERT INTO benchmark (id, ref, created) VALUES (188, 'reference 18035', 349337234);
+INSERT INTO benchmark (id, ref, created) VALUES (189, 'reference 641863', 935896468);
+INSERT INTO benchmark (id, ref, created) VALUES (190, 'reference 421868', 966022189);
+INSERT INTO benchmark (id, ref, created) VALUES (191, 'reference 295018', 19427193);
+INSERT INTO benchmark (id, ref, created) VALUES (192, 'reference 164590', 215664273);
+INSERT INTO benchmark (id, ref, created) VALUES (193, 'reference 899192', 351908900);
+INSERT INTO benchmark (id, ref, created) VALUES (194, 'reference 850540', 604882290);
+INSERT INTO benchmark (id, ref, created) VALUES (195, 'reference 820720', 145108844);
+INSERT INTO benchmark (id, ref, created) VALUES (196, 'reference 355567', 460893390);
+INSERT INTO benchmark (id, ref, created) VALUES (197, 'reference 223377', 286190257);
+INSERT INTO benchmark (id, ref, created) VALUES (198, 'reference 707217', 103514191);
+INSERT INTO benchmark (id, ref, created) VALUES (199, 'reference 878393', 407199088);
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.deployment;
+
+import org.lorislab.quarkus.barn.Barn;
+import org.lorislab.quarkus.barn.database.DdlAnalyzer;
+import org.lorislab.quarkus.barn.models.DdlFinding;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The cache of the checksums, statement offsets, header directives and DDL findings of the migration files.
+ * The key of the cache is the file, size, last modified time, database dialect, checksum algorithm and analyzer rules.
+ * The cache is kept in memory for the dev mode reloads and stored in the build output directory between the builds.
+ * The stored cache starts with the header of the cache format and Barn version, the cache of other version is discarded.
+ */
+final class BarnResourceCache {
+
+    private static final Logger log = LoggerFactory.getLogger(BarnResourceCache.class);
+
+    static final String FILE = "barn-resources.cache";
+
+    // the version of the cache format, change it with any change of the cached data (splitter, directives, analyzer)
+    private static final int FORMAT_VERSION = 1;
+
+    static final String HEADER = "# barn-resources " + FORMAT_VERSION + " " + version();
+
+    private static final String SEPARATOR = "\t";
+
+    private static final String NULL = "-";
+
+    private static final String FINDING_SEPARATOR = "|";
+
+    private static final Map<String, Entry> CACHE = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> used = new ConcurrentHashMap<>();
+
+    static class Entry {
+
+        final long checksum;
+
+        final Long legacyChecksum;
+
+        final int[] statements;
+
+        final Map<String, String> directives;
+
+        // the findings of the DDL analyzer or null if the script was not analyzed
+        final List<DdlFinding> findings;
+
+        Entry(long checksum, Long legacyChecksum, int[] statements, Map<String, String> directives, List<DdlFinding> findings) {
+            this.checksum = checksum;
+            this.legacyChecksum = legacyChecksum;
+            this.statements = statements;
+            this.directives = directives;
+            this.findings = findings;
+        }
+    }
+
+    static String key(String file, long size, long modified, String dialect, String checksum) {
+        return file + "|" + size + "|" + modified + "|" + dialect + "|" + checksum;
+    }
+
+    Entry get(String key) {
+        Entry entry = CACHE.get(key);
+        if (entry != null) {
+            used.put(key, entry);
+        }
+        return entry;
+    }
+
+    void put(String key, Entry entry) {
+        CACHE.put(key, entry);
+        used.put(key, entry);
+    }
+
+    /**
+     * Loads the stored cache from the build output directory.
+     *
+     * @param dir the build output directory
+     */
+    static void load(Path dir) {
+        Path file = dir.resolve(FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+                log.info("Discard the migration resource cache {} of other version.", file);
+                return;
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                String[] items = line.split(SEPARATOR);
+                if (items.length < 6) {
+                    continue;
+                }
+                List<DdlFinding> findings = null;
+                if (!NULL.equals(items[5])) {
+                    int count = Integer.parseInt(items[5]);
+                    if (items.length != 6 + count) {
+                        continue;
+                    }
+                    findings = new ArrayList<>(count);
+                    for (int i = 6; i < items.length; i++) {
+                        findings.add(finding(items[i]));
+                    }
+                }
+                Long legacyChecksum = NULL.equals(items[2]) ? null : Long.parseLong(items[2]);
+                int[] statements = null;
+                if (!NULL.equals(items[3])) {
+                    statements = items[3].isEmpty() ? new int[0]
+                            : Arrays.stream(items[3].split(",")).mapToInt(Integer::parseInt).toArray();
+                }
+                Map<String, String> directives = NULL.equals(items[4]) ? null : ResourceLoader.parseDirectives(items[4]);
+                CACHE.putIfAbsent(items[0], new Entry(Long.parseLong(items[1]), legacyChecksum, statements, directives, findings));
+            }
+        } catch (Exception ex) {
+            log.warn("Error load the migration resource cache {}. Error: {}", file, ex.getMessage());
+        }
+    }
+
+    /**
+     * Stores the entries used by this build to the build output directory. The entries of the deleted
+     * or changed files are removed from the memory cache.
+     *
+     * @param dir the build output directory
+     */
+    void store(Path dir) {
+        CACHE.keySet().retainAll(used.keySet());
+        List<String> lines = new ArrayList<>(used.size() + 1);
+        lines.add(HEADER);
+        used.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> {
+            Entry entry = e.getValue();
+            String legacy = entry.legacyChecksum == null ? NULL : String.valueOf(entry.legacyChecksum);
+            String tmp = entry.statements == null ? NULL : Arrays.stream(entry.statements).mapToObj(String::valueOf).collect(Collectors.joining(","));
+            String directives = entry.directives == null ? NULL : ResourceLoader.formatDirectives(entry.directives);
+            StringBuilder line = new StringBuilder(e.getKey()).append(SEPARATOR).append(entry.checksum)
+                    .append(SEPARATOR).append(legacy).append(SEPARATOR).append(tmp).append(SEPARATOR).append(directives)
+                    .append(SEPARATOR).append(entry.findings == null ? NULL : String.valueOf(entry.findings.size()));
+            if (entry.findings != null) {
+                entry.findings.forEach(f -> line.append(SEPARATOR).append(finding(f)));
+            }
+            lines.add(line.toString());
+        });
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve(FILE), lines, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            log.warn("Error store the migration resource cache in {}. Error: {}", dir, ex.getMessage());
+        }
+    }
+
+    private static String version() {
+        String version = Barn.class.getPackage().getImplementationVersion();
+        return version != null ? version : NULL;
+    }
+
+    private static String finding(DdlFinding finding) {
+        // the snippet is the last item, the whitespaces of the snippet are collapsed to one space
+        return String.join(FINDING_SEPARATOR, finding.getScript(), String.valueOf(finding.getStatement()),
+                finding.getRule(), finding.getSeverity().name(), finding.getSnippet());
+    }
+
+    private static DdlFinding finding(String value) {
+        String[] items = value.split("\\" + FINDING_SEPARATOR, 5);
+        DdlAnalyzer.Rule rule = DdlAnalyzer.Rule.of(items[2]);
+        return new DdlFinding(items[0], Integer.parseInt(items[1]), rule.getId(), DdlFinding.Severity.valueOf(items[3]),
+                rule.getMessage(), items[4]);
+    }
+}
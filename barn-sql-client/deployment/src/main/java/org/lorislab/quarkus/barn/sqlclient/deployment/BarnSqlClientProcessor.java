@@ -16,17 +16,32 @@
 package org.lorislab.quarkus.barn.sqlclient.deployment;
 
 import io.quarkus.arc.deployment.BeanContainerBuildItem;
+import io.quarkus.arc.deployment.UnremovableBeanBuildItem;
 import io.quarkus.arc.runtime.BeanContainer;
+import io.quarkus.deployment.Capabilities;
+import io.quarkus.deployment.Capability;
 import io.quarkus.deployment.annotations.BuildProducer;
 import io.quarkus.deployment.annotations.BuildStep;
 import io.quarkus.deployment.annotations.ExecutionTime;
 import io.quarkus.deployment.annotations.Record;
 import io.quarkus.deployment.builditem.CapabilityBuildItem;
 import io.quarkus.deployment.builditem.FeatureBuildItem;
+import io.quarkus.deployment.builditem.GeneratedResourceBuildItem;
 import io.quarkus.deployment.builditem.ServiceStartBuildItem;
 import io.quarkus.deployment.builditem.nativeimage.NativeImageResourceBuildItem;
+import io.quarkus.deployment.metrics.MetricsCapabilityBuildItem;
+import io.quarkus.deployment.pkg.builditem.OutputTargetBuildItem;
+import io.quarkus.runtime.metrics.MetricsFactory;
+import io.quarkus.smallrye.health.deployment.spi.HealthBuildItem;
+import org.jboss.jandex.DotName;
 
 
+import org.lorislab.quarkus.barn.database.DdlAnalyzer;
+import org.lorislab.quarkus.barn.database.SqlSplitter;
+import org.lorislab.quarkus.barn.models.ChecksumAlgorithm;
+import org.lorislab.quarkus.barn.models.DdlFinding;
+import org.lorislab.quarkus.barn.models.DdlReport;
+import org.lorislab.quarkus.barn.models.MigrationBundle;
 import org.lorislab.quarkus.barn.models.Resource;
 import org.lorislab.quarkus.barn.models.ResourceLoader;
 import org.lorislab.quarkus.barn.models.VersionedMigration;
@@ -36,15 +51,23 @@ import org.lorislab.quarkus.barn.sqlclient.runtime.BarnRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.CheckedInputStream;
 
 import static io.quarkus.deployment.annotations.ExecutionTime.STATIC_INIT;
 
@@ -58,6 +81,12 @@ public class BarnSqlClientProcessor {
 
     public static String BARN_CLIENT = "barn-sql-client";
 
+    private static final DotName METER_REGISTRY = DotName.createSimple("io.micrometer.core.instrument.MeterRegistry");
+
+    private static final String DDL_REPORT = "barn-ddl-report.json";
+
+    private static final String HEALTH_CHECK = "org.lorislab.quarkus.barn.sqlclient.runtime.BarnHealthCheck";
+
     BarnBuildTimeConfig config;
 
     @BuildStep
@@ -71,8 +100,39 @@ public class BarnSqlClientProcessor {
 
     @BuildStep
     @Record(STATIC_INIT)
-    void build(BuildProducer<FeatureBuildItem> feature, BarnRecorder recorder,
-                        BuildProducer<NativeImageResourceBuildItem> resource) throws IOException, URISyntaxException {
+    void metrics(BarnRecorder recorder, Optional<MetricsCapabilityBuildItem> metricsCapability,
+                 BuildProducer<UnremovableBeanBuildItem> unremovableBeans) {
+        // the metrics are recorded only with the quarkus-micrometer extension
+        boolean micrometer = metricsCapability.map(m -> m.metricsSupported(MetricsFactory.MICROMETER)).orElse(false);
+        if (config.metricsEnabled && micrometer) {
+            recorder.setMetrics(true);
+            unremovableBeans.produce(UnremovableBeanBuildItem.beanTypes(METER_REGISTRY));
+            log.info("Barn metrics enabled");
+        }
+    }
+
+    @BuildStep
+    HealthBuildItem health() {
+        // the readiness check is registered only with the quarkus-smallrye-health extension
+        return new HealthBuildItem(HEALTH_CHECK, config.healthEnabled);
+    }
+
+    @BuildStep
+    @Record(STATIC_INIT)
+    void tracing(BarnRecorder recorder, Capabilities capabilities) {
+        // the spans are created only with the quarkus-smallrye-opentracing extension
+        if (config.tracingEnabled && capabilities.isPresent(Capability.OPENTRACING)) {
+            recorder.setTracing(true);
+            log.info("Barn tracing enabled");
+        }
+    }
+
+    @BuildStep
+    @Record(STATIC_INIT)
+    void build(BuildProducer<FeatureBuildItem> feature, BarnRecorder recorder, BarnPoolBuildItem poolBuildItem,
+                        BuildProducer<NativeImageResourceBuildItem> resource,
+                        BuildProducer<GeneratedResourceBuildItem> generatedResource,
+                        OutputTargetBuildItem outputTarget) throws IOException, URISyntaxException {
 
         feature.produce(new FeatureBuildItem(BARN_CLIENT));
 
@@ -82,32 +142,72 @@ public class BarnSqlClientProcessor {
             throw new IllegalStateException("'barn.location' is empty!");
         }
 
-        // find migration resources
-        List<Resource> resources = getMigrationFiles(location);
+        // split the scripts to the statements for the database of the pool
+        SqlSplitter splitter = SqlSplitter.forPool(poolBuildItem.getPool().getName());
+
+        // find the blocking DDL operations while the scripts are split
+        DdlAnalyzer analyzer = config.analyzer.enabled && splitter != null ? new DdlAnalyzer(splitter, config.analyzer.rules) : null;
+        Map<String, List<DdlFinding>> findings = new ConcurrentHashMap<>();
+
+        // find migration resources, the checksums are cached between the builds
+        BarnResourceCache.load(outputTarget.getOutputDirectory());
+        BarnResourceCache cache = new BarnResourceCache();
+        // the content of the scripts for the bundle is read in the same pass
+        Map<String, byte[]> contents = config.bundle.enabled ? new ConcurrentHashMap<>() : null;
+        List<Resource> resources = getMigrationFiles(location, splitter, poolBuildItem.getPool().getName(), cache, contents,
+                analyzer, findings);
+        cache.store(outputTarget.getOutputDirectory());
         if (!resources.isEmpty()) {
 
             // validate resources
             ResourceLoader.validateResources(resources);
 
-            // native resource
-            String[] paths = resources.stream().map(x -> x.script).toArray(String[]::new);
-            resource.produce(new NativeImageResourceBuildItem(paths));
+            // report the blocking DDL operations
+            if (analyzer != null) {
+                analyze(resources, findings, outputTarget.getOutputDirectory());
+            }
 
-            // add the repeatable migrations to recorder
+            // add the repeatable migrations
             List<Resource> repeatableMigration = resources.stream()
                     .filter(r -> r.repeatable).sorted().collect(Collectors.toList());
-            ;
-            if (!repeatableMigration.isEmpty()) {
-                recorder.setRepeatableMigrations(repeatableMigration);
-            }
 
-            // add the versioned migrations to recorder
+            // add the versioned migrations
             List<VersionedMigration> migrations = resources.stream()
                     .filter(r -> !r.repeatable)
                     .map(VersionedMigration::new).sorted().collect(Collectors.toList());
-            if (!migrations.isEmpty()) {
-                recorder.setVersionedMigrations(migrations);
+
+            if (config.bundle.enabled) {
+                // pack the migrations to the bundle
+                byte[] data = MigrationBundle.create(migrations, repeatableMigration,
+                        script -> {
+                            byte[] content = contents.get(script);
+                            return content != null ? new ByteArrayInputStream(content) : null;
+                        },
+                        config.bundle.maxScriptSize.asLongValue());
+                generatedResource.produce(new GeneratedResourceBuildItem(MigrationBundle.DEFAULT_NAME, data));
+                recorder.setBundle(MigrationBundle.DEFAULT_NAME);
+
+                // native resource, the bundle and the not packed scripts
+                MigrationBundle bundle = MigrationBundle.of(ByteBuffer.wrap(data));
+                List<String> paths = resources.stream().map(x -> x.script).filter(x -> !bundle.contains(x)).collect(Collectors.toList());
+                paths.add(MigrationBundle.DEFAULT_NAME);
+                resource.produce(new NativeImageResourceBuildItem(paths));
+                log.info("Migration bundle created. Scripts: {} not packed: {} size: {}", resources.size(), paths.size() - 1, data.length);
+            } else {
+                // native resource
+                String[] paths = resources.stream().map(x -> x.script).toArray(String[]::new);
+                resource.produce(new NativeImageResourceBuildItem(paths));
+
+                if (!repeatableMigration.isEmpty()) {
+                    recorder.setRepeatableMigrations(repeatableMigration);
+                }
+                if (!migrations.isEmpty()) {
+                    recorder.setVersionedMigrations(migrations);
+                }
             }
+
+            // fingerprint of the whole migration set
+            recorder.setFingerprint(ResourceLoader.fingerprint(migrations, repeatableMigration));
         }
         // add imports
         List<String> afterMigrationScripts = config.testDataScripts;
@@ -119,63 +219,151 @@ public class BarnSqlClientProcessor {
 
     }
 
-    private List<Resource> getMigrationFiles(String location) throws IOException, URISyntaxException {
+    private void analyze(List<Resource> resources, Map<String, List<DdlFinding>> findings, Path output) throws IOException {
+        DdlReport report = new DdlReport();
+        for (Resource r : resources) {
+            List<DdlFinding> items = findings.get(r.script);
+            if (items != null) {
+                items.forEach(report::add);
+                report.analyzed();
+            }
+        }
+        report.getFindings().forEach(f -> log.warn("Blocking DDL {}", f));
+        if (config.analyzer.report) {
+            Path file = output.resolve(DDL_REPORT);
+            report.write(file);
+            log.info("DDL analysis of {} scripts written to {}. Findings: {}", report.getScripts(), file, report.getFindings().size());
+        }
+        List<DdlFinding> errors = report.getErrors();
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Blocking DDL in the migration scripts:\n"
+                    + errors.stream().map(DdlFinding::toString).collect(Collectors.joining("\n")));
+        }
+    }
+
+    private List<Resource> getMigrationFiles(String location, SqlSplitter splitter, String dialect, BarnResourceCache cache,
+                                             Map<String, byte[]> contents, DdlAnalyzer analyzer,
+                                             Map<String, List<DdlFinding>> findings) throws IOException, URISyntaxException {
         if (location == null || location.isBlank()) {
             return Collections.emptyList();
         }
-        List<Resource> result = new ArrayList<>();
-        Enumeration<URL> migrations = Thread.currentThread().getContextClassLoader().getResources(location);
-        while (migrations.hasMoreElements()) {
-            URL path = migrations.nextElement();
-            log.info("Adding application migrations in path '{}' using protocol '{}'", path.getPath(), path.getProtocol());
-
-            if (JAR_PROTOCOL.equals(path.getProtocol())) {
-                try (final FileSystem fileSystem = initFileSystem(path.toURI())) {
-                    result.addAll(getResources(location, path, JAR_PROTOCOL));
+        List<FileSystem> fileSystems = new ArrayList<>();
+        try {
+            // discover the files of all locations
+            List<Path> files = new ArrayList<>();
+            Enumeration<URL> migrations = Thread.currentThread().getContextClassLoader().getResources(location);
+            while (migrations.hasMoreElements()) {
+                URL path = migrations.nextElement();
+                log.info("Adding application migrations in path '{}' using protocol '{}'", path.getPath(), path.getProtocol());
+
+                if (JAR_PROTOCOL.equals(path.getProtocol())) {
+                    fileSystems.add(initFileSystem(path.toURI()));
+                    files.addAll(getFiles(path));
+                } else if (FILE_PROTOCOL.equals(path.getProtocol())) {
+                    files.addAll(getFiles(path));
+                } else {
+                    log.warn("Unsupported URL protocol '{}' for path '{}'. Migration files will not be discovered.", path.getProtocol(), path.getPath());
                 }
-            } else if (FILE_PROTOCOL.equals(path.getProtocol())) {
-                result.addAll(getResources(location, path, FILE_PROTOCOL));
-            } else {
-                log.warn("Unsupported URL protocol '{}' for path '{}'. Migration files will not be discovered.", path.getProtocol(), path.getPath());
+            }
+
+            // read and checksum the files in parallel, the result is sorted by script
+            return files.parallelStream()
+                    .map(it -> createResource(location, it, splitter, dialect, cache, contents, analyzer, findings))
+                    .filter(Objects::nonNull)
+                    .peek(it -> log.debug("Discovered: " + it))
+                    .sorted(Comparator.comparing((Resource r) -> r.script))
+                    .collect(Collectors.toList());
+        } finally {
+            for (FileSystem fileSystem : fileSystems) {
+                fileSystem.close();
             }
         }
-        return result;
     }
 
-    private Set<Resource> getResources(final String location, final URL path, final String protocol) throws IOException, URISyntaxException {
+    private List<Path> getFiles(final URL path) throws IOException, URISyntaxException {
         try (final Stream<Path> pathStream = Files.walk(Paths.get(path.toURI()))) {
-            return pathStream
-                    .filter(Files::isRegularFile)
-                    .map(it -> {
-                        String resourcePath = Paths.get(location, it.getFileName().toString()).toString();
-                        Resource r = ResourceLoader.createFrom(resourcePath);
-                        byte[] data = loadResourceContent(protocol, it, resourcePath);
-                        r.checksum = ResourceLoader.checksum(data);
-                        return r;
-                    })
-                    .filter(r -> r.checksum > 0)
-                    .peek(it -> log.debug("Discovered: " + it))
-                    .collect(Collectors.toSet());
+            return pathStream.filter(Files::isRegularFile).collect(Collectors.toList());
         }
     }
 
-    private byte[] loadResourceContent(String protocol, Path it, String resourcePath) {
-        if (JAR_PROTOCOL.equals(protocol)) {
-            try {
-                return Files.readAllBytes(it);
-            } catch (IOException ex) {
-                throw new IllegalStateException(ex);
+    private Resource createResource(String location, Path it, SqlSplitter splitter, String dialect, BarnResourceCache cache,
+                                    Map<String, byte[]> contents, DdlAnalyzer analyzer, Map<String, List<DdlFinding>> findings) {
+        String resourcePath = Paths.get(location, it.getFileName().toString()).toString();
+        Resource r = ResourceLoader.createFrom(resourcePath);
+        try {
+            long size = Files.size(it);
+            if (size == 0) {
+                // skip the empty files
+                return null;
             }
-        } else {
-            try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourcePath)) {
-                if (in != null) {
-                    return in.readAllBytes();
-                }
-            } catch (IOException ex) {
-                throw new IllegalStateException(ex);
+            ChecksumAlgorithm algorithm = config.checksum.algorithm;
+            boolean normalize = config.checksum.normalize;
+            // the findings of the analyzer depend on the severities of the rules
+            String rules = "";
+            if (analyzer != null) {
+                rules = "-" + (config.analyzer.rules != null ? new TreeMap<>(config.analyzer.rules) : Collections.emptyMap());
             }
+            String key = BarnResourceCache.key(it.toUri().toString(), size, Files.getLastModifiedTime(it).toMillis(), dialect,
+                    algorithm + (normalize ? "-normalized" : "") + rules);
+            // the script packed to the bundle is read once, the checksums are computed from the content
+            byte[] content = null;
+            if (contents != null && size <= config.bundle.maxScriptSize.asLongValue()) {
+                content = Files.readAllBytes(it);
+                contents.put(resourcePath, content);
+            }
+            byte[] data = content;
+            Content source = data != null ? () -> new ByteArrayInputStream(data) : () -> Files.newInputStream(it);
+            BarnResourceCache.Entry entry = cache.get(key);
+            if (entry == null || (analyzer != null && entry.findings == null)) {
+                entry = loadResourceContent(resourcePath, source, splitter, algorithm, normalize, analyzer);
+                cache.put(key, entry);
+            }
+            if (entry.findings != null) {
+                findings.put(resourcePath, entry.findings);
+            }
+            r.checksum = entry.checksum;
+            r.legacyChecksum = entry.legacyChecksum;
+            r.statements = entry.statements;
+            r.directives = entry.directives;
+            return r;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private BarnResourceCache.Entry loadResourceContent(String script, Content source, SqlSplitter splitter, ChecksumAlgorithm algorithm,
+                                                        boolean normalize, DdlAnalyzer analyzer) throws IOException {
+        // stream the content, the checksums, the statements and the DDL findings are computed while reading
+        boolean legacy = algorithm.isLegacy(normalize);
+        InputStream in = source.open();
+        CheckedInputStream raw = legacy ? null : ResourceLoader.checksumStream(in);
+        try (CheckedInputStream checked = ResourceLoader.checksumStream(legacy ? in : raw, algorithm, normalize)) {
+            int[] statements = null;
+            List<DdlFinding> findings = analyzer != null ? new ArrayList<>() : null;
+            if (splitter != null) {
+                statements = splitter.split(new InputStreamReader(checked, StandardCharsets.UTF_8),
+                        analyzer != null ? analyzer.statements(script, findings) : null);
+            }
+            long checksum = ResourceLoader.checksum(checked);
+            // the CRC32 checksum of the raw content for the transition of the stored checksums
+            Long legacyChecksum = legacy ? null : raw.getChecksum().getValue();
+            return new BarnResourceCache.Entry(checksum, legacyChecksum, statements, loadDirectives(source), findings);
         }
-        return null;
+    }
+
+    private static Map<String, String> loadDirectives(Content source) throws IOException {
+        // only the header of the script is read
+        try (Reader reader = new BufferedReader(new InputStreamReader(source.open(), StandardCharsets.UTF_8))) {
+            return ResourceLoader.directives(reader);
+        }
+    }
+
+    /**
+     * The content of the script, the file or the content read for the bundle.
+     */
+    private interface Content {
+
+        InputStream open() throws IOException;
     }
 
     private FileSystem initFileSystem(final URI uri) throws IOException {
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.deployment;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lorislab.quarkus.barn.database.DdlAnalyzer;
+import org.lorislab.quarkus.barn.models.DdlFinding;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+public class BarnResourceCacheTest {
+
+    @Test
+    public void cacheTest(@TempDir Path dir) throws IOException {
+        Path script = dir.resolve("V1__Test.sql");
+        Files.writeString(script, "CREATE TABLE test (id INT);", StandardCharsets.UTF_8);
+        String key = key(script);
+
+        BarnResourceCache cache = new BarnResourceCache();
+        Assertions.assertNull(cache.get(key));
+        cache.put(key, new BarnResourceCache.Entry(1L, null, new int[]{0, 27}, null, null));
+
+        // hit in the next build
+        BarnResourceCache.Entry entry = new BarnResourceCache().get(key);
+        Assertions.assertNotNull(entry);
+        Assertions.assertEquals(1L, entry.checksum);
+
+        // miss after the change of the file
+        Files.writeString(script, "CREATE TABLE test (id INT, ref VARCHAR(20));", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(script, FileTime.fromMillis(Files.getLastModifiedTime(script).toMillis() + 1000));
+        Assertions.assertNotEquals(key, key(script));
+        Assertions.assertNull(new BarnResourceCache().get(key(script)));
+    }
+
+    @Test
+    public void storeTest(@TempDir Path dir) throws IOException {
+        Path script = dir.resolve("R__Test.sql");
+        Files.writeString(script, "-- barn:deferred\nCREATE TABLE test (id INT);", StandardCharsets.UTF_8);
+        String key = key(script);
+
+        BarnResourceCache cache = new BarnResourceCache();
+        DdlFinding finding = new DdlFinding("db/migration/R__Test.sql", 2, DdlAnalyzer.Rule.CREATE_INDEX.getId(),
+                DdlFinding.Severity.ERROR, DdlAnalyzer.Rule.CREATE_INDEX.getMessage(), "CREATE INDEX test_idx ON test (id) WHERE name <> 'a|b'");
+        cache.put(key, new BarnResourceCache.Entry(1L, 42L, new int[0],
+                ResourceLoader.parseDirectives("deferred,lock-timeout=5s"), List.of(finding)));
+        Path output = dir.resolve("target");
+        cache.store(output);
+
+        // the build without the entry removes the entry from the memory cache
+        new BarnResourceCache().store(dir.resolve("other"));
+        Assertions.assertNull(new BarnResourceCache().get(key));
+
+        // the entry is loaded from the stored file
+        BarnResourceCache.load(output);
+        BarnResourceCache.Entry entry = new BarnResourceCache().get(key);
+        Assertions.assertNotNull(entry);
+        Assertions.assertEquals(1L, entry.checksum);
+        Assertions.assertEquals(42L, entry.legacyChecksum);
+        Assertions.assertArrayEquals(new int[0], entry.statements);
+        Assertions.assertTrue(entry.directives.containsKey(ResourceLoader.DIRECTIVE_DEFERRED));
+        Assertions.assertEquals("5s", entry.directives.get("lock-timeout"));
+        Assertions.assertEquals(1, entry.findings.size());
+        DdlFinding loaded = entry.findings.get(0);
+        Assertions.assertEquals(finding.getScript(), loaded.getScript());
+        Assertions.assertEquals(2, loaded.getStatement());
+        Assertions.assertEquals(finding.getRule(), loaded.getRule());
+        Assertions.assertEquals(DdlFinding.Severity.ERROR, loaded.getSeverity());
+        Assertions.assertEquals(finding.getMessage(), loaded.getMessage());
+        Assertions.assertEquals(finding.getSnippet(), loaded.getSnippet());
+    }
+
+    @Test
+    public void versionTest(@TempDir Path dir) throws IOException {
+        Path script = dir.resolve("V2__Test.sql");
+        Files.writeString(script, "CREATE TABLE test (id INT);", StandardCharsets.UTF_8);
+        String key = key(script);
+
+        BarnResourceCache cache = new BarnResourceCache();
+        cache.put(key, new BarnResourceCache.Entry(1L, null, new int[]{0, 27}, null, null));
+        Path output = dir.resolve("target");
+        cache.store(output);
+        Path file = output.resolve(BarnResourceCache.FILE);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Assertions.assertEquals(BarnResourceCache.HEADER, lines.get(0));
+        new BarnResourceCache().store(dir.resolve("other"));
+
+        // the cache of other version is discarded
+        lines.set(0, "# barn-resources 0 0.1.0");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        BarnResourceCache.load(output);
+        Assertions.assertNull(new BarnResourceCache().get(key));
+
+        // the cache without the header is discarded
+        Files.write(file, lines.subList(1, lines.size()), StandardCharsets.UTF_8);
+        BarnResourceCache.load(output);
+        Assertions.assertNull(new BarnResourceCache().get(key));
+    }
+
+    private static String key(Path script) throws IOException {
+        return BarnResourceCache.key(script.toUri().toString(), Files.size(script),
+                Files.getLastModifiedTime(script).toMillis(), "postgresql", "SHA256");
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+import java.util.Map;
+
+@ConfigGroup
+public class BarnAnalyzerConfig {
+
+    /**
+     * {@code true} to analyze the migration scripts for the blocking DDL operations at build time.
+     */
+    @ConfigItem(defaultValue = "true")
+    public boolean enabled;
+
+    /**
+     * The severity {@code off}, {@code warn} or {@code error} of the rule by the rule id. The rules are
+     * {@code alter-column-type}, {@code volatile-default}, {@code create-index}, {@code foreign-key} and
+     * {@code copy-algorithm}, the default severity is {@code warn}. The build fails on the finding with {@code error}.
+     */
+    @ConfigItem
+    public Map<String, String> rules;
+
+    /**
+     * {@code true} to write the JSON report {@code barn-ddl-report.json} to the build output directory.
+     */
+    @ConfigItem(defaultValue = "true")
+    public boolean report;
+}
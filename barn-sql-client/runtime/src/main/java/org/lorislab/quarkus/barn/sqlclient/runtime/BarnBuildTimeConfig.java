@@ -48,4 +48,40 @@ public class BarnBuildTimeConfig {
      */
     @ConfigItem(defaultValue = DEFAULT_TEST_DATA_SCRIPTS)
     public List<String> testDataScripts;
+
+    /**
+     * The migration bundle configuration.
+     */
+    @ConfigItem
+    public BarnBundleConfig bundle;
+
+    /**
+     * The checksum configuration.
+     */
+    @ConfigItem
+    public BarnChecksumConfig checksum;
+
+    /**
+     * The blocking DDL analyzer configuration.
+     */
+    @ConfigItem
+    public BarnAnalyzerConfig analyzer;
+
+    /**
+     * {@code true} to record the migration metrics if the {@code quarkus-micrometer} extension is present.
+     */
+    @ConfigItem(name = "metrics.enabled", defaultValue = "true")
+    public boolean metricsEnabled;
+
+    /**
+     * {@code true} to trace the migration if the {@code quarkus-smallrye-opentracing} extension is present.
+     */
+    @ConfigItem(name = "tracing.enabled", defaultValue = "true")
+    public boolean tracingEnabled;
+
+    /**
+     * {@code true} to publish the readiness check of the migration if the {@code quarkus-smallrye-health} extension is present.
+     */
+    @ConfigItem(name = "health.enabled", defaultValue = "true")
+    public boolean healthEnabled;
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+import org.lorislab.quarkus.barn.models.ChecksumAlgorithm;
+
+@ConfigGroup
+public class BarnChecksumConfig {
+
+    /**
+     * The checksum algorithm of the migration scripts. The stored CRC32 checksums of the unchanged
+     * repeatable migrations are updated to the new algorithm without execution.
+     */
+    @ConfigItem(defaultValue = "crc32")
+    public ChecksumAlgorithm algorithm;
+
+    /**
+     * {@code true} to ignore the line endings and the trailing whitespace in the checksum.
+     */
+    @ConfigItem(defaultValue = "false")
+    public boolean normalize;
+}
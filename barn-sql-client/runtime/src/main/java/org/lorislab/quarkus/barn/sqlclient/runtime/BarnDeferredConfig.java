@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+import java.time.Duration;
+
+@ConfigGroup
+public class BarnDeferredConfig {
+
+    /**
+     * {@code true} to execute the versioned migrations with the {@code -- barn:deferred} directive in the background
+     * after the start actions. If disabled the deferred migrations are executed with the other migrations.
+     */
+    @ConfigItem(defaultValue = "true")
+    public boolean enabled;
+
+    /**
+     * The delay between the deferred migrations.
+     */
+    @ConfigItem(defaultValue = "1S")
+    public Duration delay;
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+import java.time.Duration;
+
+@ConfigGroup
+public class BarnFollowerConfig {
+
+    /**
+     * {@code true} to enable the leader/follower startup. The instance holding the migration lock migrates
+     * the database and the other instances wait for the leader instead of contending for the lock.
+     */
+    @ConfigItem
+    public boolean enabled;
+
+    /**
+     * The maximum time to wait for the leader. After the timeout the follower falls back to the migration lock.
+     */
+    @ConfigItem(defaultValue = "60S")
+    public Duration timeout;
+
+    /**
+     * The poll interval of the migration fingerprint for databases without notification support.
+     */
+    @ConfigItem(defaultValue = "1S")
+    public Duration pollInterval;
+}
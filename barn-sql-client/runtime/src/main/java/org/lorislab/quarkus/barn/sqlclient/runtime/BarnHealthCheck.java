@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * The readiness check of the start actions. The check is down until the database migration completes,
+ * the deferred migrations are reported in the data of the check and do not change the state.
+ * The bean is registered only with the {@code quarkus-smallrye-health} extension.
+ */
+@Readiness
+public class BarnHealthCheck implements HealthCheck {
+
+    static final String NAME = "Barn database migration";
+
+    @Override
+    public HealthCheckResponse call() {
+        BarnStatus status = BarnStatus.INSTANCE;
+        BarnStatus.State state = status.getState();
+        HealthCheckResponseBuilder builder = HealthCheckResponse.named(NAME)
+                .state(state == BarnStatus.State.COMPLETED)
+                .withData("state", state.name().toLowerCase());
+        if (status.getPhase() != null) {
+            builder.withData("phase", status.getPhase().name().toLowerCase());
+        }
+        if (state == BarnStatus.State.RUNNING) {
+            if (status.getScript() != null) {
+                builder.withData("script", status.getScript());
+            }
+            builder.withData("executed", status.getExecuted())
+                    .withData("skipped", status.getSkipped())
+                    .withData("total", status.getTotal());
+        }
+        Throwable error = status.getError();
+        if (error != null) {
+            builder.withData("error", String.valueOf(error.getMessage()));
+        }
+        BarnStatus.State deferred = status.getDeferredState();
+        if (deferred != null) {
+            builder.withData("deferred", deferred.name().toLowerCase())
+                    .withData("deferredExecuted", status.getDeferredExecuted())
+                    .withData("deferredTotal", status.getDeferredTotal());
+            if (deferred == BarnStatus.State.RUNNING && status.getDeferredScript() != null) {
+                builder.withData("deferredScript", status.getDeferredScript());
+            }
+            Throwable deferredError = status.getDeferredError();
+            if (deferredError != null) {
+                builder.withData("deferredError", String.valueOf(deferredError.getMessage()));
+            }
+        }
+        return builder.build();
+    }
+}
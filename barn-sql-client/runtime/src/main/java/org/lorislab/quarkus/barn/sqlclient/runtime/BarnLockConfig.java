@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+import java.time.Duration;
+
+@ConfigGroup
+public class BarnLockConfig {
+
+    /**
+     * The total time to wait for the migration lock.
+     */
+    @ConfigItem(defaultValue = "60S")
+    public Duration timeout;
+
+    /**
+     * The maximum time of one server-side blocking wait for the lock.
+     * Zero means the lock is only tried and the wait is done with the backoff.
+     */
+    @ConfigItem(defaultValue = "5S")
+    public Duration wait;
+
+    /**
+     * The initial backoff between two lock attempts. The backoff is doubled after each attempt and jittered.
+     */
+    @ConfigItem(defaultValue = "0.1S")
+    public Duration backoff;
+
+    /**
+     * The maximum backoff between two lock attempts.
+     */
+    @ConfigItem(defaultValue = "2S")
+    public Duration maxBackoff;
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.arc.Arc;
+import org.lorislab.quarkus.barn.BarnListener;
+import org.lorislab.quarkus.barn.models.Migration;
+
+import java.time.Duration;
+
+/**
+ * The listener which records the migration events as Micrometer meters. The script meters are tagged only
+ * by the type of the script, the version and the name of the script are in the span and the JFR event.
+ */
+public class BarnMicrometerListener implements BarnListener {
+
+    static final String PREFIX = "barn.";
+
+    static final String VERSIONED = "versioned";
+
+    static final String REPEATABLE = "repeatable";
+
+    private final MeterRegistry registry;
+
+    private final Timer lockWait;
+
+    private final Timer lockHold;
+
+    private final DistributionSummary lockAttempts;
+
+    private final Timer historyRead;
+
+    private final Counter skipped;
+
+    private final Timer versionedScript;
+
+    private final Timer repeatableScript;
+
+    private final Counter versionedApplied;
+
+    private final Counter repeatableApplied;
+
+    private final Counter regressed;
+
+    private Gauge version;
+
+    public BarnMicrometerListener(MeterRegistry registry) {
+        this.registry = registry;
+        lockWait = Timer.builder(PREFIX + "lock.wait")
+                .description("The time waiting for the migration lock")
+                .register(registry);
+        lockHold = Timer.builder(PREFIX + "lock.hold")
+                .description("The time the migration lock was held")
+                .register(registry);
+        lockAttempts = DistributionSummary.builder(PREFIX + "lock.attempts")
+                .description("The number of attempts to acquire the migration lock")
+                .register(registry);
+        historyRead = Timer.builder(PREFIX + "history.read")
+                .description("The time of the history table read")
+                .register(registry);
+        skipped = Counter.builder(PREFIX + "scripts.skipped")
+                .description("The number of already applied or empty scripts")
+                .register(registry);
+        versionedScript = scriptTimer(registry, VERSIONED);
+        repeatableScript = scriptTimer(registry, REPEATABLE);
+        versionedApplied = appliedCounter(registry, VERSIONED);
+        repeatableApplied = appliedCounter(registry, REPEATABLE);
+        regressed = Counter.builder(PREFIX + "scripts.regressed")
+                .description("The number of repeatable scripts with the execution time over the baseline")
+                .tag("type", REPEATABLE)
+                .register(registry);
+    }
+
+    private static Timer scriptTimer(MeterRegistry registry, String type) {
+        return Timer.builder(PREFIX + "script")
+                .description("The execution time of the migration script")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    private static Counter appliedCounter(MeterRegistry registry, String type) {
+        return Counter.builder(PREFIX + "scripts.applied")
+                .description("The number of applied scripts")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    /**
+     * Creates the listener with the meter registry of the application.
+     *
+     * @return the listener
+     */
+    public static BarnListener create() {
+        return new BarnMicrometerListener(Arc.container().instance(MeterRegistry.class).get());
+    }
+
+    @Override
+    public void phaseFinished(Phase phase, Duration duration, Throwable failure) {
+        Timer.builder(PREFIX + "phase")
+                .description("The duration of the migration, clean and test data phases")
+                .tag("phase", phase.name().toLowerCase().replace('_', '-'))
+                .tag("outcome", failure == null ? "success" : "failure")
+                .register(registry)
+                .record(duration);
+    }
+
+    @Override
+    public void lockAcquired(Duration wait, int attempts) {
+        lockWait.record(wait);
+        lockAttempts.record(attempts);
+    }
+
+    @Override
+    public void lockReleased(Duration hold) {
+        lockHold.record(hold);
+    }
+
+    @Override
+    public void historyLoaded(int migrations, Duration duration) {
+        historyRead.record(duration);
+    }
+
+    @Override
+    public void scriptExecuted(Migration migration, long size, Duration duration) {
+        if (migration.version != null) {
+            versionedScript.record(duration);
+            versionedApplied.increment();
+        } else {
+            repeatableScript.record(duration);
+            repeatableApplied.increment();
+        }
+    }
+
+    @Override
+    public void scriptRegressed(Migration migration, Duration time, Duration baseline) {
+        regressed.increment();
+    }
+
+    @Override
+    public void scriptsSkipped(int count) {
+        skipped.increment(count);
+    }
+
+    @Override
+    public synchronized void schemaVersion(String value) {
+        String tmp = value != null ? value : "none";
+        if (version != null) {
+            if (tmp.equals(version.getId().getTag("version"))) {
+                return;
+            }
+            registry.remove(version);
+        }
+        // the info gauge, the version is the tag of the gauge
+        version = Gauge.builder(PREFIX + "schema.version", () -> 1)
+                .description("The current version of the database schema")
+                .tag("version", tmp)
+                .register(registry);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+import java.util.Optional;
+
+@ConfigGroup
+public class BarnProfileConfig {
+
+    /**
+     * {@code true} to profile the migration scripts with the database statistics. The Postgres database
+     * needs the {@code pg_stat_statements} extension, the Mysql database the {@code performance_schema}.
+     */
+    @ConfigItem
+    public boolean enabled;
+
+    /**
+     * The path of the JSON profile report. Without the report the profiles are logged.
+     */
+    @ConfigItem
+    public Optional<String> report;
+}
@@ -17,24 +17,42 @@ package org.lorislab.quarkus.barn.sqlclient.runtime;
 
 import io.quarkus.arc.runtime.BeanContainer;
 import io.quarkus.runtime.annotations.Recorder;
+import io.quarkus.runtime.configuration.ProfileManager;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import io.vertx.mutiny.sqlclient.Pool;
 import org.lorislab.quarkus.barn.Barn;
 import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.BarnListener;
+import org.lorislab.quarkus.barn.models.MigrationBundle;
 import org.lorislab.quarkus.barn.models.Resource;
 import org.lorislab.quarkus.barn.models.VersionedMigration;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.enterprise.inject.Default;
 import java.util.List;
 
 @Recorder
 public class BarnRecorder {
 
+    private static final Logger log = LoggerFactory.getLogger(BarnRecorder.class);
+
     public static List<VersionedMigration> versionedMigrations;
 
     public static List<Resource> repeatableMigrations;
 
     public static List<String> afterMigrationScripts;
 
+    public static Long fingerprint;
+
+    public static String bundle;
+
+    public static boolean metrics;
+
+    public static boolean tracing;
+
     public void setRepeatableMigrations(List<Resource> repeatableMigrations) {
         BarnRecorder.repeatableMigrations = repeatableMigrations;
     }
@@ -43,6 +61,22 @@ public class BarnRecorder {
         BarnRecorder.afterMigrationScripts = afterMigrationScripts;
     }
 
+    public void setFingerprint(Long fingerprint) {
+        BarnRecorder.fingerprint = fingerprint;
+    }
+
+    public void setBundle(String bundle) {
+        BarnRecorder.bundle = bundle;
+    }
+
+    public void setMetrics(boolean metrics) {
+        BarnRecorder.metrics = metrics;
+    }
+
+    public void setTracing(boolean tracing) {
+        BarnRecorder.tracing = tracing;
+    }
+
     public void setVersionedMigrations(List<VersionedMigration> versionedMigration) {
         BarnRecorder.versionedMigrations = versionedMigration;
     }
@@ -60,20 +94,102 @@ public class BarnRecorder {
                     .afterMigrationScripts(afterMigrationScripts)
                     .versionedMigrations(versionedMigrations)
                     .repeatableMigrations(repeatableMigrations)
+                    .bundle(bundle != null ? MigrationBundle.load(bundle) : null)
+                    .fingerprint(fingerprint)
+                    .batchSize(config.batchSize)
+                    .lockTimeout(config.lock.timeout)
+                    .lockWait(config.lock.wait)
+                    .lockBackoff(config.lock.backoff, config.lock.maxBackoff)
+                    .follower(config.follower.enabled, config.follower.timeout, config.follower.pollInterval)
+                    .profile(config.profile.enabled, config.profile.report.orElse(null))
+                    .regression(config.regression.enabled, config.regression.factor, config.regression.window, config.regression.threshold)
+                    .regressionReport(config.regression.report.orElse(null))
+                    .environment(config.regression.environment.orElse(ProfileManager.getActiveProfile()))
+                    .deferred(config.deferred.enabled, config.deferred.delay)
+                    .scriptTimeout(config.script.lockTimeout.orElse(null), config.script.statementTimeout.orElse(null))
+                    .scriptRetry(config.script.retries, config.script.retryBackoff, config.script.retryMaxBackoff)
+                    // the scripts are read and the reports written outside of the event loop
+                    .executor(Infrastructure.getDefaultWorkerPool())
+                    .listener(BarnListener.of(
+                            BarnStatus.INSTANCE,
+                            metrics ? BarnMicrometerListener.create() : null,
+                            tracing ? BarnTracingListener.create() : null))
                     .build();
             Barn barn = new Barn(client, barnConfig);
+            Uni<Void> actions = Uni.createFrom().voidItem();
             if (config.cleanAtStart) {
-                barn.clean();
+                actions = actions.chain(barn::cleanUni);
             }
             if (config.migrateAtStart) {
-                barn.migration();
+                actions = actions.chain(barn::migrationUni);
             }
             if (config.testData) {
-                barn.testData();
+                actions = actions.chain(barn::testDataUni);
             }
+            BarnStatus.INSTANCE.start(barnConfig.getVersionedMigrations().size() + barnConfig.getRepeatableMigrations().size());
+            start(actions, config.asyncStart, () -> deferred(barn, config));
         } catch (Exception ex) {
+            BarnStatus.INSTANCE.failed(ex);
             throw new IllegalStateException(ex);
         }
     }
 
+    /**
+     * Executes the start actions. In the async mode the actions run in the background on the worker executor
+     * and the readiness check is down until the actions complete.
+     *
+     * @param actions the start actions
+     * @param async {@code true} to run the actions in the background
+     * @param completed the action executed after the start actions
+     */
+    static void start(Uni<Void> actions, boolean async, Runnable completed) {
+        BarnStatus status = BarnStatus.INSTANCE;
+        if (async) {
+            log.info("Barn start actions run in the background");
+            actions.runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                    .subscribe().with(x -> {
+                        status.completed();
+                        log.info("Barn start actions completed");
+                        completed.run();
+                    }, ex -> {
+                        status.failed(ex);
+                        log.error("Barn start actions failed", ex);
+                    });
+            return;
+        }
+        actions.await().indefinitely();
+        status.completed();
+        completed.run();
+    }
+
+    /**
+     * Executes the deferred migrations in the background after the start actions.
+     *
+     * @param barn the barn
+     * @param config the runtime configuration
+     */
+    private static void deferred(Barn barn, BarnRuntimeConfig config) {
+        if (!config.migrateAtStart || !config.deferred.enabled) {
+            return;
+        }
+        BarnStatus status = BarnStatus.INSTANCE;
+        barn.pendingDeferredUni()
+                .chain(scripts -> {
+                    if (scripts.isEmpty()) {
+                        return Uni.createFrom().voidItem();
+                    }
+                    log.info("Barn deferred migrations run in the background. Pending: {}", scripts.size());
+                    status.deferredStart(scripts.size());
+                    return barn.deferredUni().invoke(x -> {
+                        status.deferredCompleted();
+                        log.info("Barn deferred migrations completed");
+                    });
+                })
+                .subscribe().with(x -> {
+                }, ex -> {
+                    status.deferredFailed(ex);
+                    log.error("Barn deferred migrations failed", ex);
+                });
+    }
+
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@ConfigGroup
+public class BarnRegressionConfig {
+
+    /**
+     * {@code true} to compare the execution time of the repeatable migrations with the baseline of the previous runs.
+     * The baselines are stored in the {@code <history-table>_baseline} table.
+     */
+    @ConfigItem
+    public boolean enabled;
+
+    /**
+     * The script is regressed if the execution time exceeds the baseline multiplied by the factor.
+     */
+    @ConfigItem(defaultValue = "3")
+    public double factor;
+
+    /**
+     * The number of runs of the rolling average baseline.
+     */
+    @ConfigItem(defaultValue = "10")
+    public int window;
+
+    /**
+     * The minimal difference of the execution time to the baseline of the regressed script.
+     */
+    @ConfigItem(defaultValue = "1S")
+    public Duration threshold;
+
+    /**
+     * The environment of the baselines. Default: the active Quarkus profile.
+     */
+    @ConfigItem
+    public Optional<String> environment;
+
+    /**
+     * The path of the JSON regression report.
+     */
+    @ConfigItem
+    public Optional<String> report;
+}
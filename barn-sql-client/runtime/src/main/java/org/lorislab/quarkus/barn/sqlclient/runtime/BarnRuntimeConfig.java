@@ -39,6 +39,13 @@ public class BarnRuntimeConfig {
     @ConfigItem
     public boolean migrateAtStart;
 
+    /**
+     * {@code true} to execute the start actions in the background after the application starts. The readiness check
+     * is down until the start actions complete.
+     */
+    @ConfigItem
+    public boolean asyncStart;
+
     /**
      * {@code true} to execute migration clean command automatically when the application starts, {@code false} otherwise.
      *
@@ -59,4 +66,47 @@ public class BarnRuntimeConfig {
      */
     @ConfigItem(defaultValue = Barn.HISTORY_TABLE)
     public String historyTable;
+
+    /**
+     * The number of consecutive versioned migrations executed in one transaction with one history insert.
+     * The default {@code 1} executes each migration in its own transaction.
+     */
+    @ConfigItem(defaultValue = "1")
+    public int batchSize;
+
+    /**
+     * The migration lock configuration.
+     */
+    @ConfigItem
+    public BarnLockConfig lock;
+
+    /**
+     * The leader/follower startup configuration.
+     */
+    @ConfigItem
+    public BarnFollowerConfig follower;
+
+    /**
+     * The migration profile configuration.
+     */
+    @ConfigItem
+    public BarnProfileConfig profile;
+
+    /**
+     * The execution time regression configuration.
+     */
+    @ConfigItem
+    public BarnRegressionConfig regression;
+
+    /**
+     * The deferred migrations configuration.
+     */
+    @ConfigItem
+    public BarnDeferredConfig deferred;
+
+    /**
+     * The timeouts and retry of the migration scripts.
+     */
+    @ConfigItem
+    public BarnScriptConfig script;
 }
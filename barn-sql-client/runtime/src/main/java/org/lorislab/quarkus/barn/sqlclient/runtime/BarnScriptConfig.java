@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@ConfigGroup
+public class BarnScriptConfig {
+
+    /**
+     * The lock timeout of the migration script, {@code lock_timeout} (Postgres) or {@code lock_wait_timeout}
+     * and {@code innodb_lock_wait_timeout} (Mysql). Overridden by the {@code -- barn:lock-timeout} directive.
+     * Default: the database default.
+     */
+    @ConfigItem
+    public Optional<Duration> lockTimeout;
+
+    /**
+     * The statement timeout of the migration script, {@code statement_timeout} (Postgres) or {@code max_execution_time}
+     * (Mysql). Overridden by the {@code -- barn:statement-timeout} directive. Default: the database default.
+     */
+    @ConfigItem
+    public Optional<Duration> statementTimeout;
+
+    /**
+     * The maximum number of retries of the script after the lock timeout.
+     */
+    @ConfigItem(defaultValue = "3")
+    public int retries;
+
+    /**
+     * The initial backoff between the retries.
+     */
+    @ConfigItem(defaultValue = "1S")
+    public Duration retryBackoff;
+
+    /**
+     * The maximum backoff between the retries.
+     */
+    @ConfigItem(defaultValue = "30S")
+    public Duration retryMaxBackoff;
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import org.lorislab.quarkus.barn.BarnListener;
+import org.lorislab.quarkus.barn.models.Migration;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The status of the start actions. The status is updated by the migration events and read by the readiness check.
+ */
+public class BarnStatus implements BarnListener {
+
+    public static final BarnStatus INSTANCE = new BarnStatus();
+
+    /**
+     * The state of the start actions.
+     */
+    public enum State {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private volatile State state = State.PENDING;
+
+    private volatile Phase phase;
+
+    private volatile String script;
+
+    private volatile int total;
+
+    private final AtomicInteger executed = new AtomicInteger();
+
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    private volatile Throwable error;
+
+    private volatile State deferredState;
+
+    private volatile int deferredTotal;
+
+    private final AtomicInteger deferredExecuted = new AtomicInteger();
+
+    private volatile String deferredScript;
+
+    private volatile Throwable deferredError;
+
+    /**
+     * Starts the start actions.
+     *
+     * @param total the number of the migration scripts
+     */
+    public void start(int total) {
+        this.total = total;
+        executed.set(0);
+        skipped.set(0);
+        phase = null;
+        script = null;
+        error = null;
+        deferredState = null;
+        state = State.RUNNING;
+    }
+
+    public void completed() {
+        script = null;
+        state = State.COMPLETED;
+    }
+
+    public void failed(Throwable error) {
+        this.error = error;
+        state = State.FAILED;
+    }
+
+    /**
+     * Starts the deferred migrations.
+     *
+     * @param total the number of the pending deferred migrations
+     */
+    public void deferredStart(int total) {
+        deferredTotal = total;
+        deferredExecuted.set(0);
+        deferredScript = null;
+        deferredError = null;
+        deferredState = State.RUNNING;
+    }
+
+    public void deferredCompleted() {
+        deferredScript = null;
+        deferredState = State.COMPLETED;
+    }
+
+    public void deferredFailed(Throwable error) {
+        deferredError = error;
+        deferredState = State.FAILED;
+    }
+
+    @Override
+    public void phaseStarted(Phase phase) {
+        if (phase != Phase.DEFERRED) {
+            this.phase = phase;
+        }
+    }
+
+    @Override
+    public void scriptStarted(String script) {
+        if (deferredState == State.RUNNING) {
+            deferredScript = script;
+        } else {
+            this.script = script;
+        }
+    }
+
+    @Override
+    public void scriptExecuted(Migration migration, long size, Duration duration) {
+        if (deferredState == State.RUNNING) {
+            deferredExecuted.incrementAndGet();
+        } else {
+            executed.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void scriptsSkipped(int count) {
+        skipped.addAndGet(count);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getExecuted() {
+        return executed.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Gets the state of the deferred migrations.
+     *
+     * @return the state or {@code null} if there is no pending deferred migration
+     */
+    public State getDeferredState() {
+        return deferredState;
+    }
+
+    public int getDeferredTotal() {
+        return deferredTotal;
+    }
+
+    public int getDeferredExecuted() {
+        return deferredExecuted.get();
+    }
+
+    public String getDeferredScript() {
+        return deferredScript;
+    }
+
+    public Throwable getDeferredError() {
+        return deferredError;
+    }
+}
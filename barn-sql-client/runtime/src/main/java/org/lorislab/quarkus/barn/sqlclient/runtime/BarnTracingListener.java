@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.GlobalTracer;
+import org.lorislab.quarkus.barn.BarnListener;
+import org.lorislab.quarkus.barn.models.Migration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The listener which traces the migration as OpenTracing spans. Each phase is the parent span,
+ * the lock, history and script events are the child spans of the phase. The child spans are
+ * created after the event with the start time of the event.
+ */
+public class BarnTracingListener implements BarnListener {
+
+    static final String PREFIX = "barn.";
+
+    static final String COMPONENT = "barn";
+
+    private final Tracer tracer;
+
+    private volatile Span phase;
+
+    public BarnTracingListener(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Creates the listener with the global tracer of the application.
+     *
+     * @return the listener
+     */
+    public static BarnListener create() {
+        return new BarnTracingListener(GlobalTracer.get());
+    }
+
+    @Override
+    public void phaseStarted(Phase phase) {
+        Tracer.SpanBuilder builder = tracer.buildSpan(PREFIX + phase.name().toLowerCase().replace('_', '-'))
+                .withTag(Tags.COMPONENT.getKey(), COMPONENT);
+        // attach the phase to the current trace
+        Span parent = tracer.activeSpan();
+        if (parent != null) {
+            builder.asChildOf(parent);
+        }
+        this.phase = builder.start();
+    }
+
+    @Override
+    public void phaseFinished(Phase phase, Duration duration, Throwable failure) {
+        Span span = this.phase;
+        if (span == null) {
+            return;
+        }
+        this.phase = null;
+        if (failure != null) {
+            Tags.ERROR.set(span, true);
+            Map<String, Object> log = new HashMap<>();
+            log.put("event", Tags.ERROR.getKey());
+            log.put("error.object", failure);
+            span.log(log);
+        }
+        span.finish();
+    }
+
+    @Override
+    public void lockAcquired(Duration wait, int attempts) {
+        Span span = span("lock", wait);
+        if (span != null) {
+            span.setTag(PREFIX + "lock.attempts", attempts);
+            span.finish();
+        }
+    }
+
+    @Override
+    public void historyLoaded(int migrations, Duration duration) {
+        Span span = span("history.read", duration);
+        if (span != null) {
+            span.setTag(PREFIX + "history.migrations", migrations);
+            span.finish();
+        }
+    }
+
+    @Override
+    public void scriptExecuted(Migration migration, long size, Duration duration) {
+        Span span = span("script", duration);
+        if (span != null) {
+            span.setTag(PREFIX + "script", migration.script);
+            span.setTag(PREFIX + "script.version", migration.version != null ? migration.version : "none");
+            span.setTag(PREFIX + "script.checksum", migration.checksum);
+            span.setTag(PREFIX + "script.size", size);
+            span.finish();
+        }
+    }
+
+    @Override
+    public void testDataExecuted(String script, long size, Duration duration) {
+        Span span = span("script", duration);
+        if (span != null) {
+            span.setTag(PREFIX + "script", script);
+            span.setTag(PREFIX + "script.size", size);
+            span.finish();
+        }
+    }
+
+    @Override
+    public void historyWritten(int migrations, Duration duration) {
+        Span span = span("history.write", duration);
+        if (span != null) {
+            span.setTag(PREFIX + "history.migrations", migrations);
+            span.finish();
+        }
+    }
+
+    /**
+     * Starts the child span of the current phase. The event is reported after it finished,
+     * the start of the span is the current time minus the duration of the event.
+     *
+     * @param name the name of the span
+     * @param duration the duration of the event
+     * @return the started span or {@code null} outside of the phase
+     */
+    private Span span(String name, Duration duration) {
+        Span parent = this.phase;
+        if (parent == null) {
+            return null;
+        }
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        return tracer.buildSpan(PREFIX + name)
+                .asChildOf(parent)
+                .withTag(Tags.COMPONENT.getKey(), COMPONENT)
+                .withStartTimestamp(now - TimeUnit.NANOSECONDS.toMicros(duration.toNanos()))
+                .start();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.sqlclient.runtime;
+
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.BarnListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class BarnAsyncStartTest {
+
+    @Test
+    public void asyncStartTest() throws Exception {
+        BarnStatus status = BarnStatus.INSTANCE;
+        CompletableFuture<Void> actions = new CompletableFuture<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        status.start(3);
+        BarnRecorder.start(Uni.createFrom().completionStage(actions), true, () -> completed.complete(null));
+
+        // the start actions are running, the readiness is down with the progress
+        status.phaseStarted(BarnListener.Phase.MIGRATION);
+        status.scriptStarted("db/migration/V1__Test.sql");
+        status.scriptExecuted(null, 10, Duration.ofMillis(1));
+        status.scriptStarted("db/migration/V2__Test.sql");
+        HealthCheckResponse response = new BarnHealthCheck().call();
+        Assertions.assertEquals(HealthCheckResponse.State.DOWN, response.getState());
+        Map<String, Object> data = response.getData().orElseThrow();
+        Assertions.assertEquals("running", data.get("state"));
+        Assertions.assertEquals("migration", data.get("phase"));
+        Assertions.assertEquals("db/migration/V2__Test.sql", data.get("script"));
+        Assertions.assertEquals(1L, data.get("executed"));
+        Assertions.assertEquals(3L, data.get("total"));
+
+        // the start actions completed in the background
+        actions.complete(null);
+        completed.get(5, TimeUnit.SECONDS);
+        response = new BarnHealthCheck().call();
+        Assertions.assertEquals(HealthCheckResponse.State.UP, response.getState());
+        Assertions.assertEquals("completed", response.getData().orElseThrow().get("state"));
+    }
+
+    @Test
+    public void asyncStartFailedTest() throws Exception {
+        BarnStatus status = BarnStatus.INSTANCE;
+        CompletableFuture<Void> actions = new CompletableFuture<>();
+        status.start(3);
+        BarnRecorder.start(Uni.createFrom().completionStage(actions), true,
+                () -> Assertions.fail("The start actions failed"));
+        Assertions.assertEquals(HealthCheckResponse.State.DOWN, new BarnHealthCheck().call().getState());
+
+        // the failed start actions, the readiness stays down with the error
+        actions.completeExceptionally(new IllegalStateException("Error execute migration!"));
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (status.getState() == BarnStatus.State.RUNNING && System.nanoTime() < end) {
+            Thread.sleep(10);
+        }
+        HealthCheckResponse response = new BarnHealthCheck().call();
+        Assertions.assertEquals(HealthCheckResponse.State.DOWN, response.getState());
+        Map<String, Object> data = response.getData().orElseThrow();
+        Assertions.assertEquals("failed", data.get("state"));
+        Assertions.assertEquals("Error execute migration!", data.get("error"));
+    }
+}
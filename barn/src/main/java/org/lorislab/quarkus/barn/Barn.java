@@ -15,11 +15,14 @@
  */
 package org.lorislab.quarkus.barn;
 
+import io.smallrye.mutiny.Uni;
 import io.vertx.mutiny.sqlclient.Pool;
 import org.lorislab.quarkus.barn.database.Database;
 import org.lorislab.quarkus.barn.database.MySqlDatabase;
 import org.lorislab.quarkus.barn.database.PostgresDatabase;
-import org.lorislab.quarkus.barn.models.Migration;
+
+import java.time.Duration;
+import java.util.List;
 
 public class Barn {
 
@@ -30,24 +33,41 @@ public class Barn {
     private final BarnConfig config;
 
     public Barn(final Pool client, final BarnConfig config) {
+        this(database(client, config), config);
+    }
+
+    /**
+     * Creates the barn for the database dialect.
+     *
+     * @param database the database dialect
+     * @param config the barn configuration
+     */
+    public Barn(final Database database, final BarnConfig config) {
+        if (database == null) {
+            throw new NullPointerException("Database is null!");
+        }
+        if (config == null) {
+            throw new NullPointerException("Configuration is null!");
+        }
+        this.config = config;
+        this.database = database;
+    }
+
+    private static Database database(final Pool client, final BarnConfig config) {
         if (client == null) {
             throw new NullPointerException("Pool client is null!");
         }
         if (config == null) {
             throw new NullPointerException("Configuration is null!");
         }
-        this.config = config;
         String clazz = client.getClass().getName();
         if (PostgresDatabase.POOL.equals(clazz)) {
-            database = new PostgresDatabase(config.getHistoryTable(), client);
-        } else if (MySqlDatabase.POOL.equals(clazz)) {
-            database = new MySqlDatabase(config.getHistoryTable(), client);
-        } else {
-            database = null;
+            return new PostgresDatabase(config, client);
         }
-        if (database == null) {
-            throw new IllegalStateException("Not supported pool client. Class: " + clazz);
+        if (MySqlDatabase.POOL.equals(clazz)) {
+            return new MySqlDatabase(config, client);
         }
+        throw new IllegalStateException("Not supported pool client. Class: " + clazz);
     }
 
     public BarnConfig getConfig() {
@@ -55,23 +75,70 @@ public class Barn {
     }
 
     public void testData() {
-        database.testData(config.getTestDataScripts());
+        testDataUni().await().indefinitely();
+    }
+
+    public Uni<Void> testDataUni() {
+        return database.testDataUni(config.getTestDataScripts());
     }
 
     public void clean() {
-        database.doClean();
+        cleanUni().await().indefinitely();
+    }
+
+    public Uni<Void> cleanUni() {
+        return database.doCleanUni();
     }
 
     public void migration() {
-        database.doMigration(config.getVersionedMigrations(), config.getRepeatableMigrations());
+        migrationUni().await().indefinitely();
+    }
+
+    public Uni<Void> migrationUni() {
+        return database.doMigrationUni(config.getVersionedMigrations(), config.getRepeatableMigrations(), config.getFingerprint());
+    }
+
+    public void deferred() {
+        deferredUni().await().indefinitely();
+    }
+
+    /**
+     * Executes the deferred migrations which are not applied yet.
+     *
+     * @return the uni completed after the deferred migrations
+     */
+    public Uni<Void> deferredUni() {
+        return database.doDeferredUni(config.getVersionedMigrations());
+    }
+
+    public List<String> pendingDeferred() {
+        return pendingDeferredUni().await().indefinitely();
+    }
+
+    /**
+     * Gets the scripts of the deferred migrations which are not applied yet.
+     *
+     * @return the scripts of the pending deferred migrations
+     */
+    public Uni<List<String>> pendingDeferredUni() {
+        return database.pendingDeferredUni(config.getVersionedMigrations());
     }
 
     public String version() {
-        Migration migration = database.lastVersionedMigration();
-        if (migration != null) {
-            return migration.version;
-        }
-        return null;
+        return versionUni().await().indefinitely();
+    }
+
+    /**
+     * Gets the time the last migration waited for the database lock.
+     *
+     * @return the lock wait time
+     */
+    public Duration lockWaitTime() {
+        return database.getLockWaitTime();
+    }
+
+    public Uni<String> versionUni() {
+        return database.lastVersionedMigrationUni().map(migration -> migration != null ? migration.version : null);
     }
 
 }
@@ -1,10 +1,14 @@
 package org.lorislab.quarkus.barn;
 
+import org.lorislab.quarkus.barn.models.MigrationBundle;
 import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
 import org.lorislab.quarkus.barn.models.VersionedMigration;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 public class BarnConfig {
@@ -17,6 +21,60 @@ public class BarnConfig {
 
     private String historyTable;
 
+    private Long fingerprint;
+
+    private Duration lockTimeout = Duration.ofSeconds(60);
+
+    private Duration lockWait = Duration.ofSeconds(5);
+
+    private Duration lockBackoff = Duration.ofMillis(100);
+
+    private Duration lockMaxBackoff = Duration.ofSeconds(2);
+
+    private MigrationBundle bundle;
+
+    private int batchSize = 1;
+
+    private boolean follower;
+
+    private Duration followerTimeout = Duration.ofSeconds(60);
+
+    private Duration followerPollInterval = Duration.ofSeconds(1);
+
+    private BarnListener listener = BarnListener.NOOP;
+
+    private boolean profile;
+
+    private String profileReport;
+
+    private boolean regression;
+
+    private double regressionFactor = 3.0;
+
+    private int regressionWindow = 10;
+
+    private Duration regressionThreshold = Duration.ofSeconds(1);
+
+    private String regressionReport;
+
+    private String environment = "default";
+
+    private boolean deferred;
+
+    private Duration deferredDelay = Duration.ofSeconds(1);
+
+    private Duration scriptLockTimeout;
+
+    private Duration scriptStatementTimeout;
+
+    private int scriptRetries = 3;
+
+    private Duration scriptRetryBackoff = Duration.ofSeconds(1);
+
+    private Duration scriptRetryMaxBackoff = Duration.ofSeconds(30);
+
+    private Executor executor;
+
     public String getHistoryTable() {
         return historyTable;
     }
@@ -33,6 +91,114 @@ public class BarnConfig {
         return testDataScripts;
     }
 
+    public Long getFingerprint() {
+        return fingerprint;
+    }
+
+    public Duration getLockTimeout() {
+        return lockTimeout;
+    }
+
+    public Duration getLockWait() {
+        return lockWait;
+    }
+
+    public Duration getLockBackoff() {
+        return lockBackoff;
+    }
+
+    public Duration getLockMaxBackoff() {
+        return lockMaxBackoff;
+    }
+
+    public MigrationBundle getBundle() {
+        return bundle;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isFollower() {
+        return follower;
+    }
+
+    public Duration getFollowerTimeout() {
+        return followerTimeout;
+    }
+
+    public Duration getFollowerPollInterval() {
+        return followerPollInterval;
+    }
+
+    public BarnListener getListener() {
+        return listener;
+    }
+
+    public boolean isProfile() {
+        return profile;
+    }
+
+    public String getProfileReport() {
+        return profileReport;
+    }
+
+    public boolean isRegression() {
+        return regression;
+    }
+
+    public double getRegressionFactor() {
+        return regressionFactor;
+    }
+
+    public int getRegressionWindow() {
+        return regressionWindow;
+    }
+
+    public Duration getRegressionThreshold() {
+        return regressionThreshold;
+    }
+
+    public String getRegressionReport() {
+        return regressionReport;
+    }
+
+    public String getEnvironment() {
+        return environment;
+    }
+
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    public Duration getDeferredDelay() {
+        return deferredDelay;
+    }
+
+    public Duration getScriptLockTimeout() {
+        return scriptLockTimeout;
+    }
+
+    public Duration getScriptStatementTimeout() {
+        return scriptStatementTimeout;
+    }
+
+    public int getScriptRetries() {
+        return scriptRetries;
+    }
+
+    public Duration getScriptRetryBackoff() {
+        return scriptRetryBackoff;
+    }
+
+    public Duration getScriptRetryMaxBackoff() {
+        return scriptRetryMaxBackoff;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
     public static BarnConfigBuilder builder() {
         return new BarnConfigBuilder();
     }
@@ -60,6 +226,26 @@ public class BarnConfig {
             return this;
         }
 
+        /**
+         * Sets the packed migration bundle. The versioned and repeatable migrations are loaded from the bundle index.
+         *
+         * @param bundle the migration bundle
+         * @return the builder
+         */
+        public BarnConfigBuilder bundle(MigrationBundle bundle) {
+            if (bundle != null) {
+                config.bundle = bundle;
+                config.versionedMigrations = bundle.getVersionedMigrations();
+                config.repeatableMigrations = bundle.getRepeatableMigrations();
+            }
+            return this;
+        }
+
+        public BarnConfigBuilder listener(BarnListener listener) {
+            config.listener = listener != null ? listener : BarnListener.NOOP;
+            return this;
+        }
+
         public BarnConfigBuilder afterMigrationScripts(List<String> resources) {
             if (resources != null) {
                 config.testDataScripts = resources;
@@ -67,6 +253,171 @@ public class BarnConfig {
             return this;
         }
 
+        public BarnConfigBuilder fingerprint(Long fingerprint) {
+            config.fingerprint = fingerprint;
+            return this;
+        }
+
+        public BarnConfigBuilder lockTimeout(Duration timeout) {
+            if (timeout != null) {
+                config.lockTimeout = timeout;
+            }
+            return this;
+        }
+
+        public BarnConfigBuilder lockWait(Duration wait) {
+            if (wait != null) {
+                config.lockWait = wait;
+            }
+            return this;
+        }
+
+        public BarnConfigBuilder lockBackoff(Duration backoff, Duration maxBackoff) {
+            if (backoff != null) {
+                config.lockBackoff = backoff;
+            }
+            if (maxBackoff != null) {
+                config.lockMaxBackoff = maxBackoff;
+            }
+            return this;
+        }
+
+        public BarnConfigBuilder batchSize(int batchSize) {
+            config.batchSize = Math.max(batchSize, 1);
+            return this;
+        }
+
+        public BarnConfigBuilder follower(boolean follower, Duration timeout, Duration pollInterval) {
+            config.follower = follower;
+            if (timeout != null) {
+                config.followerTimeout = timeout;
+            }
+            if (pollInterval != null) {
+                config.followerPollInterval = pollInterval;
+            }
+            return this;
+        }
+
+        /**
+         * Enables the profiling of the migration scripts with the database statistics.
+         *
+         * @param profile {@code true} to profile the migration scripts
+         * @param report the path of the JSON report or {@code null} to log the profiles
+         * @return the builder
+         */
+        public BarnConfigBuilder profile(boolean profile, String report) {
+            config.profile = profile;
+            config.profileReport = report;
+            return this;
+        }
+
+        /**
+         * Enables the execution time regression detection of the repeatable migrations. The baseline is
+         * the rolling average of the execution time of the previous runs in the environment.
+         *
+         * @param regression {@code true} to check the execution time of the repeatable migrations
+         * @param factor the script is regressed if the execution time exceeds the baseline multiplied by the factor
+         * @param window the number of runs of the rolling average
+         * @param threshold the minimal difference to the baseline of the regressed script
+         * @return the builder
+         */
+        public BarnConfigBuilder regression(boolean regression, double factor, int window, Duration threshold) {
+            config.regression = regression;
+            if (factor > 1) {
+                config.regressionFactor = factor;
+            }
+            config.regressionWindow = Math.max(window, 1);
+            if (threshold != null) {
+                config.regressionThreshold = threshold;
+            }
+            return this;
+        }
+
+        /**
+         * Sets the path of the JSON regression report.
+         *
+         * @param report the path of the report or {@code null} without report
+         * @return the builder
+         */
+        public BarnConfigBuilder regressionReport(String report) {
+            config.regressionReport = report;
+            return this;
+        }
+
+        /**
+         * Sets the environment of the execution time baseline.
+         *
+         * @param environment the environment
+         * @return the builder
+         */
+        public BarnConfigBuilder environment(String environment) {
+            if (environment != null && !environment.isBlank()) {
+                config.environment = environment;
+            }
+            return this;
+        }
+
+        /**
+         * Enables the deferred migrations. The versioned migrations with the {@code -- barn:deferred} directive
+         * are skipped by the migration and executed by the deferred phase after the start of the application.
+         *
+         * @param deferred {@code true} to defer the migrations
+         * @param delay the delay between the deferred migrations or {@code null} for the default
+         * @return the builder
+         */
+        public BarnConfigBuilder deferred(boolean deferred, Duration delay) {
+            config.deferred = deferred;
+            if (delay != null) {
+                config.deferredDelay = delay;
+            }
+            return this;
+        }
+
+        /**
+         * Sets the lock and statement timeout of the migration scripts. The timeouts could be overridden by the
+         * {@code -- barn:lock-timeout=<duration>} and {@code -- barn:statement-timeout=<duration>} directives.
+         *
+         * @param lockTimeout the lock timeout or {@code null} for the database default
+         * @param statementTimeout the statement timeout or {@code null} for the database default
+         * @return the builder
+         */
+        public BarnConfigBuilder scriptTimeout(Duration lockTimeout, Duration statementTimeout) {
+            config.scriptLockTimeout = lockTimeout;
+            config.scriptStatementTimeout = statementTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the retry of the migration script after the lock timeout. Between the retries is an exponential
+         * backoff with jitter.
+         *
+         * @param retries the maximum number of retries, zero to disable the retry
+         * @param backoff the initial backoff or {@code null} for the default
+         * @param maxBackoff the maximum backoff or {@code null} for the default
+         * @return the builder
+         */
+        public BarnConfigBuilder scriptRetry(int retries, Duration backoff, Duration maxBackoff) {
+            config.scriptRetries = Math.max(retries, 0);
+            if (backoff != null) {
+                config.scriptRetryBackoff = backoff;
+            }
+            if (maxBackoff != null) {
+                config.scriptRetryMaxBackoff = maxBackoff;
+            }
+            return this;
+        }
+
+        /**
+         * Sets the executor of the blocking I/O, the read of the scripts and the write of the reports.
+         *
+         * @param executor the worker executor or {@code null} to run the blocking I/O on the calling thread
+         * @return the builder
+         */
+        public BarnConfigBuilder executor(Executor executor) {
+            config.executor = executor;
+            return this;
+        }
+
         public BarnConfigBuilder sorted() {
             if (config.versionedMigrations != null && !config.versionedMigrations.isEmpty()) {
                 config.versionedMigrations = config.versionedMigrations.stream().sorted().collect(Collectors.toList());
@@ -78,6 +429,17 @@ public class BarnConfig {
         }
 
         public BarnConfig build() {
+            // the pending migrations are found with binary search in the sorted versioned migrations
+            List<VersionedMigration> versions = config.versionedMigrations;
+            for (int i = 1; versions != null && i < versions.size(); i++) {
+                if (versions.get(i - 1).compareTo(versions.get(i)) > 0) {
+                    config.versionedMigrations = versions.stream().sorted().collect(Collectors.toList());
+                    break;
+                }
+            }
+            if (config.fingerprint == null) {
+                config.fingerprint = ResourceLoader.fingerprint(config.versionedMigrations, config.repeatableMigrations);
+            }
             return config;
         }
     }
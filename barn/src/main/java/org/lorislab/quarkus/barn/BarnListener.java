@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn;
+
+import org.lorislab.quarkus.barn.models.Migration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The listener of the migration events. The events are called on the thread of the database client
+ * and the listener should not block.
+ */
+public interface BarnListener {
+
+    /**
+     * The listener without action.
+     */
+    BarnListener NOOP = new BarnListener() { };
+
+    /**
+     * The phases of the database actions.
+     */
+    enum Phase {
+        MIGRATION,
+        CLEAN,
+        TEST_DATA,
+        DEFERRED
+    }
+
+    /**
+     * Creates the listener which forwards the events to all listeners.
+     *
+     * @param listeners the listeners, {@code null} and {@link #NOOP} listeners are ignored
+     * @return the listener
+     */
+    static BarnListener of(BarnListener... listeners) {
+        List<BarnListener> items = new ArrayList<>();
+        for (BarnListener listener : listeners) {
+            if (listener != null && listener != NOOP) {
+                items.add(listener);
+            }
+        }
+        if (items.isEmpty()) {
+            return NOOP;
+        }
+        if (items.size() == 1) {
+            return items.get(0);
+        }
+        return new CompositeListener(items);
+    }
+
+    /**
+     * Called before the phase starts.
+     *
+     * @param phase the phase
+     */
+    default void phaseStarted(Phase phase) {
+    }
+
+    /**
+     * Called after the phase finished.
+     *
+     * @param phase the phase
+     * @param duration the duration of the phase
+     * @param failure the failure or {@code null}
+     */
+    default void phaseFinished(Phase phase, Duration duration, Throwable failure) {
+    }
+
+    /**
+     * Called after the migration lock is acquired.
+     *
+     * @param wait the time waiting for the lock
+     * @param attempts the number of attempts
+     */
+    default void lockAcquired(Duration wait, int attempts) {
+    }
+
+    /**
+     * Called after the migration lock is released.
+     *
+     * @param hold the time the lock was held
+     */
+    default void lockReleased(Duration hold) {
+    }
+
+    /**
+     * Called after the history table is loaded.
+     *
+     * @param migrations the number of migrations in the history
+     * @param duration the duration of the read
+     */
+    default void historyLoaded(int migrations, Duration duration) {
+    }
+
+    /**
+     * Called before the migration or test data script is executed.
+     *
+     * @param script the script
+     */
+    default void scriptStarted(String script) {
+    }
+
+    /**
+     * Called after the script of the migration is executed.
+     *
+     * @param migration the migration
+     * @param size the size of the executed statements in characters
+     * @param duration the duration of the script
+     */
+    default void scriptExecuted(Migration migration, long size, Duration duration) {
+    }
+
+    /**
+     * Called after the test data script is executed.
+     *
+     * @param script the test data script
+     * @param size the size of the executed statements in characters
+     * @param duration the duration of the script
+     */
+    default void testDataExecuted(String script, long size, Duration duration) {
+    }
+
+    /**
+     * Called after the migrations are written to the history table.
+     *
+     * @param migrations the number of written migrations
+     * @param duration the duration of the write
+     */
+    default void historyWritten(int migrations, Duration duration) {
+    }
+
+    /**
+     * Called after the execution time of the repeatable script exceeded the baseline.
+     *
+     * @param migration the repeatable migration
+     * @param time the execution time of the script
+     * @param baseline the baseline execution time
+     */
+    default void scriptRegressed(Migration migration, Duration time, Duration baseline) {
+    }
+
+    /**
+     * Called for the scripts which are not executed, already applied or empty scripts.
+     *
+     * @param count the number of skipped scripts
+     */
+    default void scriptsSkipped(int count) {
+    }
+
+    /**
+     * Called with the current version of the database.
+     *
+     * @param version the version or {@code null} for the empty database
+     */
+    default void schemaVersion(String version) {
+    }
+}
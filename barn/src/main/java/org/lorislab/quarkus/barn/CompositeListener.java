@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn;
+
+import org.lorislab.quarkus.barn.models.Migration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The listener which forwards the events to the list of listeners.
+ */
+class CompositeListener implements BarnListener {
+
+    private final BarnListener[] listeners;
+
+    CompositeListener(List<BarnListener> listeners) {
+        this.listeners = listeners.toArray(new BarnListener[0]);
+    }
+
+    @Override
+    public void phaseStarted(Phase phase) {
+        for (BarnListener listener : listeners) {
+            listener.phaseStarted(phase);
+        }
+    }
+
+    @Override
+    public void phaseFinished(Phase phase, Duration duration, Throwable failure) {
+        for (BarnListener listener : listeners) {
+            listener.phaseFinished(phase, duration, failure);
+        }
+    }
+
+    @Override
+    public void lockAcquired(Duration wait, int attempts) {
+        for (BarnListener listener : listeners) {
+            listener.lockAcquired(wait, attempts);
+        }
+    }
+
+    @Override
+    public void lockReleased(Duration hold) {
+        for (BarnListener listener : listeners) {
+            listener.lockReleased(hold);
+        }
+    }
+
+    @Override
+    public void historyLoaded(int migrations, Duration duration) {
+        for (BarnListener listener : listeners) {
+            listener.historyLoaded(migrations, duration);
+        }
+    }
+
+    @Override
+    public void scriptStarted(String script) {
+        for (BarnListener listener : listeners) {
+            listener.scriptStarted(script);
+        }
+    }
+
+    @Override
+    public void scriptExecuted(Migration migration, long size, Duration duration) {
+        for (BarnListener listener : listeners) {
+            listener.scriptExecuted(migration, size, duration);
+        }
+    }
+
+    @Override
+    public void testDataExecuted(String script, long size, Duration duration) {
+        for (BarnListener listener : listeners) {
+            listener.testDataExecuted(script, size, duration);
+        }
+    }
+
+    @Override
+    public void historyWritten(int migrations, Duration duration) {
+        for (BarnListener listener : listeners) {
+            listener.historyWritten(migrations, duration);
+        }
+    }
+
+    @Override
+    public void scriptRegressed(Migration migration, Duration time, Duration baseline) {
+        for (BarnListener listener : listeners) {
+            listener.scriptRegressed(migration, time, baseline);
+        }
+    }
+
+    @Override
+    public void scriptsSkipped(int count) {
+        for (BarnListener listener : listeners) {
+            listener.scriptsSkipped(count);
+        }
+    }
+
+    @Override
+    public void schemaVersion(String version) {
+        for (BarnListener listener : listeners) {
+            listener.schemaVersion(version);
+        }
+    }
+}
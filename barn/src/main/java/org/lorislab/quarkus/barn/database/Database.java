@@ -1,253 +1,1560 @@
 package org.lorislab.quarkus.barn.database;
 
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
 import io.vertx.mutiny.sqlclient.*;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.BarnListener;
+import org.lorislab.quarkus.barn.jfr.CleanDropEvent;
+import org.lorislab.quarkus.barn.jfr.HistoryQueryEvent;
+import org.lorislab.quarkus.barn.jfr.LockWaitEvent;
+import org.lorislab.quarkus.barn.jfr.ScriptEvent;
 import org.lorislab.quarkus.barn.models.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public abstract class Database {
 
     private static Logger log = LoggerFactory.getLogger(Database.class);
 
+    /**
+     * The id of the history row with the fingerprint of the migration set.
+     */
+    public static final long FINGERPRINT_ID = -1L;
+
+    public static final String FINGERPRINT_TYPE = "FINGERPRINT";
+
+    /**
+     * The type of the versioned migration executed by the deferred phase.
+     */
+    public static final String DEFERRED_TYPE = Migration.DEFERRED_TYPE;
+
+    private static final int PIPELINING_LIMIT = 256;
+
+    private static final int SLOWEST_STATEMENTS = 3;
+
+    private static final int SNIPPET_LENGTH = 60;
+
+    private static final Pattern DURATION = Pattern.compile("(\\d+)\\s*(ms|s|m|h)?");
+
     protected final Pool client;
 
     protected final String table;
 
-    private String currentUser;
+    protected final BarnConfig config;
+
+    protected final BarnListener listener;
+
+    // the results of the last run for the reports, the state of the run is in the run context
+    private volatile Duration lockWaitTime = Duration.ZERO;
+
+    private volatile int lockAttempts;
+
+    private volatile ProfileReport profile;
+
+    private volatile RegressionReport regression;
 
     public Database(final String table, final Pool client) {
+        this(BarnConfig.builder().table(table).build(), client);
+    }
+
+    public Database(final BarnConfig config, final Pool client) {
         this.client = client;
-        this.table = table;
+        this.config = config;
+        this.table = config.getHistoryTable();
+        this.listener = config.getListener();
     }
 
-    protected abstract void cleanSchema();
+    protected abstract Uni<Void> cleanSchema(SqlConnection connection);
 
     protected abstract String historyTableSql();
 
-    protected abstract Boolean tryLock();
+    /**
+     * Tries to acquire the migration lock. The database blocks at most the wait time for the lock.
+     *
+     * @param connection the session connection
+     * @param wait the maximum server-side wait for the lock, zero to only try the lock.
+     * @return {@code true} if the lock was acquired.
+     */
+    protected abstract Uni<Boolean> tryLock(SqlConnection connection, Duration wait);
+
+    protected abstract Uni<Void> unlock(SqlConnection connection);
+
+    protected abstract Uni<Boolean> checkMigrationTable(SqlConnection connection);
+
+    protected abstract Uni<String> getCurrentUser(SqlConnection connection);
+
+    /**
+     * Gets the insert statement of the history table with the given number of rows.
+     *
+     * @param rows the number of rows
+     * @return the multi-row insert statement
+     */
+    protected abstract String getInsertMigrationSQL(int rows);
+
+    /**
+     * Gets the splitter of the SQL scripts for this database.
+     *
+     * @return the SQL splitter
+     */
+    protected abstract SqlSplitter getSqlSplitter();
+
+    /**
+     * Gets the query of the database statistics for the profiling. The columns of the query are
+     * the {@link ScriptProfile.Metric} in the order of the enum, {@code NULL} for unsupported metric.
+     *
+     * @return the profile query or {@code null} if the profiling is not supported
+     */
+    protected String getProfileSQL() {
+        return null;
+    }
+
+    /**
+     * Gets the parameter placeholder of the prepared query.
+     *
+     * @param index the index of the parameter starting with 1
+     * @return the placeholder
+     */
+    protected String param(int index) {
+        return "$" + index;
+    }
 
-    protected abstract void unlock();
+    /**
+     * Gets the table of the execution time baselines of the repeatable migrations.
+     *
+     * @return the baseline table
+     */
+    protected String getBaselineTable() {
+        return table + "_baseline";
+    }
 
-    protected abstract boolean checkMigrationTable();
+    /**
+     * Gets the query of the invalid indexes of the current schema. The invalid indexes are left by the failed
+     * index build outside of the transaction, the only column of the query is the qualified index name.
+     *
+     * @return the invalid indexes query or {@code null} if the database does not leave invalid indexes
+     */
+    protected String getInvalidIndexesSQL() {
+        return null;
+    }
 
-    protected abstract String getCurrentUser();
+    /**
+     * Gets the statement to drop the invalid index.
+     *
+     * @param index the qualified index name
+     * @return the drop statement
+     */
+    protected String getDropIndexSQL(String index) {
+        return "DROP INDEX " + index;
+    }
 
-    protected abstract String getInsertMigrationSQL();
+    /**
+     * Gets the statements which set the timeouts of the session before the migration script.
+     *
+     * @param lockTimeout the lock timeout or {@code null}
+     * @param statementTimeout the statement timeout or {@code null}
+     * @return the statements
+     */
+    protected List<String> getScriptTimeoutSQL(Duration lockTimeout, Duration statementTimeout) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Gets the statements which reset the timeouts of the session after the migration script.
+     *
+     * @param lockTimeout the lock timeout or {@code null}
+     * @param statementTimeout the statement timeout or {@code null}
+     * @return the statements
+     */
+    protected List<String> getResetScriptTimeoutSQL(Duration lockTimeout, Duration statementTimeout) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns {@code true} if the failure of the script is caused by the lock timeout.
+     *
+     * @param ex the failure of the script
+     * @return the lock timeout flag
+     */
+    protected boolean isScriptLockTimeout(Throwable ex) {
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the statements of the script could be sent pipelined on the connection.
+     *
+     * @return the pipelining flag
+     */
+    protected boolean isPipelining() {
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the DDL statements are part of the transaction and are rolled back with it.
+     * The versioned migrations are executed in batches only if the DDL is transactional.
+     *
+     * @return the transactional DDL flag
+     */
+    protected boolean isTransactionalDdl() {
+        return true;
+    }
+
+    protected String getInsertMigrationSQL() {
+        return getInsertMigrationSQL(1);
+    }
 
     public void testData(List<String> testDataScripts) {
+        testDataUni(testDataScripts).await().indefinitely();
+    }
+
+    public Uni<Void> testDataUni(List<String> testDataScripts) {
         if (testDataScripts == null || testDataScripts.isEmpty()) {
             log.warn("Test data scripts is empty!");
-            return;
+            return Uni.createFrom().voidItem();
         }
-        log.info("Execute test data scripts");
-        for (String resource : testDataScripts) {
-            String sql = ResourceLoader.loadResource(resource);
-            if (sql == null || sql.isBlank()) {
-                log.warn("Skip empty test data scripts. Resource: " + resource);
-            } else {
-                Transaction tx = null;
-                try {
-                    // create transaction
-                    tx = client.beginAndAwait();
+        return phase(BarnListener.Phase.TEST_DATA, () -> {
+            log.info("Execute test data scripts");
+            return session(connection -> forEach(testDataScripts, resource -> blocking(() -> testDataScript(connection, resource))));
+        });
+    }
 
+    protected Uni<Void> testDataScript(SqlConnection connection, String resource) {
+        Reader reader = openScript(resource);
+        if (reader == null) {
+            log.warn("Skip empty test data scripts. Resource: " + resource);
+            return Uni.createFrom().voidItem();
+        }
+        return transaction(connection, tx -> {
                     // execute SQL script
                     log.info("Script {}", resource);
-                    queryAndAwait(tx, sql);
-
-                    // commit
-                    tx.commitAndAwait();
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    if (tx != null) {
-                        tx.close();
-                    }
-                    throw new IllegalStateException("Error execute test data scripts! Resource:" + resource, ex);
-                }
-            }
-        }
+                    long start = System.nanoTime();
+                    return script(tx, resource, null, reader, null)
+                            .invoke(size -> listener.testDataExecuted(resource, size, Duration.ofNanos(System.nanoTime() - start)));
+                })
+                .onFailure().transform(ex -> new IllegalStateException("Error execute test data scripts! Resource:" + resource, ex));
     }
 
     public void doClean() {
-        log.info("Clean database");
-        cleanSchema();
+        doCleanUni().await().indefinitely();
+    }
+
+    public Uni<Void> doCleanUni() {
+        return phase(BarnListener.Phase.CLEAN, () -> {
+            log.info("Clean database");
+            return session(this::cleanSchema);
+        });
+    }
+
+    public void doMigration(List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations, Long fingerprint) {
+        doMigrationUni(versionedMigrations, repeatableMigrations, fingerprint).await().indefinitely();
     }
 
-    public void doMigration(List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations) {
+    public Uni<Void> doMigrationUni(List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations, Long migrationSet) {
         if (versionedMigrations == null || versionedMigrations.isEmpty()) {
-            return;
+            return Uni.createFrom().voidItem();
+        }
+
+        Long fingerprint = fingerprint(migrationSet);
+        return phase(BarnListener.Phase.MIGRATION, () -> session(connection -> checkFingerprint(connection, fingerprint).chain(match -> {
+            if (match) {
+                log.debug("Database is up to date. Fingerprint: {}", fingerprint);
+                return schemaVersion(connection);
+            }
+            return doMigration(connection, versionedMigrations, repeatableMigrations, fingerprint);
+        })));
+    }
+
+    /**
+     * Gets the fingerprint of the migration phase. The migration phase without the deferred migrations
+     * has a different fingerprint, the disabled deferred migrations have to check the history for the pending
+     * deferred migrations.
+     *
+     * @param fingerprint the fingerprint of the migration set
+     * @return the fingerprint of the migration phase or {@code null}
+     */
+    private Long fingerprint(Long fingerprint) {
+        if (fingerprint == null || !config.isDeferred()) {
+            return fingerprint;
+        }
+        return 31 * fingerprint + 1;
+    }
+
+    public void doDeferred(List<VersionedMigration> versionedMigrations) {
+        doDeferredUni(versionedMigrations).await().indefinitely();
+    }
+
+    /**
+     * Executes the deferred migrations which are not applied yet. Each migration is executed under the migration lock
+     * with the reload of the history, the lock is released between the migrations and the next migration is delayed
+     * by the deferred delay.
+     *
+     * @param versionedMigrations the sorted versioned migrations
+     * @return the uni completed after the last deferred migration
+     */
+    public Uni<Void> doDeferredUni(List<VersionedMigration> versionedMigrations) {
+        List<Resource> deferred = deferred(versionedMigrations);
+        if (deferred.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return phase(BarnListener.Phase.DEFERRED, () -> session(connection -> checkMigrationTable(connection).chain(te -> {
+            if (!te) {
+                log.warn("Skip the deferred migrations, the history table {} does not exist.", table);
+                return Uni.createFrom().voidItem();
+            }
+            Run run = new Run();
+            return getCurrentUser(connection)
+                    .invoke(user -> run.user = user)
+                    .chain(() -> forEach(deferred, resource -> deferredMigration(connection, run, resource)));
+        })));
+    }
+
+    /**
+     * Gets the deferred migrations which are not applied yet.
+     *
+     * @param versionedMigrations the sorted versioned migrations
+     * @return the scripts of the pending deferred migrations
+     */
+    public Uni<List<String>> pendingDeferredUni(List<VersionedMigration> versionedMigrations) {
+        List<Resource> deferred = deferred(versionedMigrations);
+        if (deferred.isEmpty()) {
+            return Uni.createFrom().item(Collections.emptyList());
         }
+        return session(connection -> checkMigrationTable(connection).chain(te -> {
+            if (!te) {
+                return Uni.createFrom().item(deferred.stream().map(r -> r.script).collect(Collectors.toList()));
+            }
+            return loadHistory(connection).map(history -> deferred.stream()
+                    .filter(r -> history.getVersion(r.version) == null)
+                    .map(r -> r.script)
+                    .collect(Collectors.toList()));
+        }));
+    }
+
+    private Uni<Void> deferredMigration(SqlConnection connection, Run run, Resource resource) {
+        boolean[] executed = { false };
+        return locked(connection, run, () -> loadHistory(connection)
+                // reload the history, other instance could execute the migration
+                .chain(history -> {
+                    if (history.getVersion(resource.version) != null) {
+                        log.debug("Deferred migration {} is already applied.", resource.script);
+                        return Uni.createFrom().voidItem();
+                    }
+                    executed[0] = true;
+                    log.info("Deferred migration {}", resource.script);
+                    return migration(connection, run, create(resource, history.nextId()));
+                }))
+                // rate limit of the deferred migrations
+                .chain(() -> executed[0] ? Uni.createFrom().voidItem().onItem().delayIt().by(config.getDeferredDelay())
+                        : Uni.createFrom().voidItem());
+    }
+
+    private List<Resource> deferred(List<VersionedMigration> versionedMigrations) {
+        if (!config.isDeferred() || versionedMigrations == null) {
+            return Collections.emptyList();
+        }
+        return versionedMigrations.stream()
+                .map(m -> m.resource)
+                .filter(r -> r.hasDirective(ResourceLoader.DIRECTIVE_DEFERRED))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the versioned migrations executed by the migration phase. The deferred migrations are excluded
+     * if the deferred migrations are enabled.
+     *
+     * @param versionedMigrations the sorted versioned migrations
+     * @return the sorted critical versioned migrations
+     */
+    private List<VersionedMigration> critical(List<VersionedMigration> versionedMigrations) {
+        if (!config.isDeferred()) {
+            return versionedMigrations;
+        }
+        return versionedMigrations.stream()
+                .filter(m -> !m.resource.hasDirective(ResourceLoader.DIRECTIVE_DEFERRED))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Executes the phase and reports the duration of the phase to the listener.
+     *
+     * @param phase the phase
+     * @param action the action of the phase
+     * @return the uni completed after the phase
+     */
+    private Uni<Void> phase(BarnListener.Phase phase, Supplier<Uni<Void>> action) {
+        return Uni.createFrom().deferred(() -> {
+            listener.phaseStarted(phase);
+            long start = System.nanoTime();
+            return action.get().onItemOrFailure()
+                    .invoke((x, failure) -> listener.phaseFinished(phase, Duration.ofNanos(System.nanoTime() - start), failure));
+        });
+    }
+
+    /**
+     * Reports the current version to the listener. The version is loaded only for the listener.
+     *
+     * @param connection the session connection
+     * @return the uni completed after the report
+     */
+    private Uni<Void> schemaVersion(SqlConnection connection) {
+        if (listener == BarnListener.NOOP) {
+            return Uni.createFrom().voidItem();
+        }
+        return lastVersionedMigration(connection)
+                .invoke(m -> listener.schemaVersion(m != null ? m.version : null))
+                .map(x -> null);
+    }
 
+    protected Uni<Void> doMigration(SqlConnection connection, List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations, Long fingerprint) {
+        Run run = new Run();
         // check table
-        boolean te = checkMigrationTable();
-        if (te) {
-            // load latest migration
-            Migration latest = lastVersionedMigration();
-            if (latest != null) {
-                // filter resources
-                Version ver = Version.of(latest.version);
-                boolean exists = versionedMigrations.stream().anyMatch(ver::isLessThan);
+        return checkMigrationTable(connection).chain(te -> {
+            if (!te) {
+                return migrate(connection, run, false, versionedMigrations, repeatableMigrations, fingerprint);
+            }
+            // load history
+            return loadHistory(connection).chain(history -> {
                 // check the migration
-                if (!exists) {
-                    return;
+                if (history.isUpToDate(critical(versionedMigrations))) {
+                    Migration latest = history.getLatest();
+                    listener.schemaVersion(latest != null ? latest.version : null);
+                    return updateFingerprint(connection, run, fingerprint);
                 }
-            }
+                return migrate(connection, run, true, versionedMigrations, repeatableMigrations, fingerprint);
+            });
+        });
+    }
+
+    /**
+     * Updates the fingerprint of the up-to-date database. The fingerprint row is replaced under the migration lock,
+     * the concurrent instances with the new fingerprint are serialized and the fingerprint is checked again after
+     * the lock.
+     *
+     * @param connection the session connection
+     * @param run the run context
+     * @param fingerprint the fingerprint of the migration set
+     * @return the uni completed after the release of the lock
+     */
+    private Uni<Void> updateFingerprint(SqlConnection connection, Run run, Long fingerprint) {
+        if (fingerprint == null) {
+            return Uni.createFrom().voidItem();
         }
+        return locked(connection, run, () -> checkFingerprint(connection, fingerprint).chain(match -> {
+            if (match) {
+                log.info("Fingerprint was updated by other instance. Fingerprint: {}", fingerprint);
+                return Uni.createFrom().voidItem();
+            }
+            return getCurrentUser(connection)
+                    .invoke(user -> run.user = user)
+                    .chain(() -> saveFingerprint(connection, fingerprint, run.user));
+        }));
+    }
 
-        try {
-            log.info("Migrate database");
+    private Uni<Void> migrate(SqlConnection connection, Run run, boolean te, List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations, Long fingerprint) {
+        log.info("Migrate database");
 
+        if (!config.isFollower() || fingerprint == null) {
             // create lock
-            lock();
+            return lock(connection, run).chain(() -> leader(connection, run, te, versionedMigrations, repeatableMigrations, fingerprint));
+        }
 
-            currentUser = getCurrentUser();
+        // follower mode, only one instance migrates the database
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        long start = System.nanoTime();
+        return tryLock(connection, Duration.ZERO).invoke(locked -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.attempts = 1;
+                event.outcome = locked ? LockWaitEvent.ACQUIRED : LockWaitEvent.BUSY;
+                event.commit();
+            }
+        }).chain(locked -> {
+            if (locked) {
+                acquired(run, start, 1);
+                log.info("Database lock acquired. Instance is the migration leader.");
+                return leader(connection, run, te, versionedMigrations, repeatableMigrations, fingerprint);
+            }
+            log.info("Database lock is held by other instance. Waiting for the migration leader.");
+            return awaitLeader(connection, fingerprint).chain(migrated -> {
+                if (migrated) {
+                    log.info("Database was migrated by the migration leader. Fingerprint: {}", fingerprint);
+                    return schemaVersion(connection);
+                }
+                log.warn("Migration leader did not finish the migration. Fallback to the migration lock.");
+                return lock(connection, run).chain(() -> leader(connection, run, te, versionedMigrations, repeatableMigrations, fingerprint));
+            });
+        });
+    }
 
-            Migration latest = null;
-            long id = 0;
+    private Uni<Void> leader(SqlConnection connection, Run run, boolean te, List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations, Long fingerprint) {
+        return migrateLocked(connection, run, te, versionedMigrations, repeatableMigrations)
+                .onItemOrFailure().call((x, failure) -> blocking(() -> {
+                    // publish the reports of the run
+                    profile = run.profile;
+                    regression = run.regression;
+                    writeProfile(run.profile);
+                    writeRegression(run.regression);
+                    return Uni.createFrom().voidItem();
+                }))
+                // store the fingerprint of the applied migrations
+                .call(() -> saveFingerprint(connection, fingerprint, run.user))
+                // notify the followers
+                .call(version -> notifyFollowers(connection, version))
+                .invoke(listener::schemaVersion)
+                // notify the followers about the failure, they fall back to the lock
+                .onFailure().call(failure -> notifyFailure(connection, failure)
+                        .onFailure().invoke(ex -> log.warn("Failure notification failed. Error: {}", ex.getMessage()))
+                        .onFailure().recoverWithNull())
+                // release lock
+                .onItemOrFailure().transformToUni((item, failure) -> release(connection, run)
+                        .chain(() -> failure != null ? Uni.createFrom().failure(failure) : Uni.createFrom().voidItem())
+                );
+    }
 
-            // check migration table
-            if (!te && !checkMigrationTable()) {
-                queryAndAwait(historyTableSql());
-            } else {
-                // load last migration
-                id = 1 + lastId();
-                latest = lastVersionedMigration();
-            }
-
-            // filter resources
-            List<Migration> migrations = createMigrations(versionedMigrations, latest, id);
-
-            // start migration
-            if (!migrations.isEmpty()) {
-                latest = migrations(migrations);
-
-                // repeatable migration
-                if (repeatableMigrations != null && !repeatableMigrations.isEmpty()) {
-                    Map<String, Migration> rms = getAllRepeatableMigration();
-                    List<Migration> executeRepeatableMigrations = createRepeatableMigrations(latest, repeatableMigrations, rms);
-                    if (!executeRepeatableMigrations.isEmpty()) {
-                        migrations(executeRepeatableMigrations);
-                    } else {
-                        log.debug("No repeatable migration to run!");
+    /**
+     * Executes the action under the migration lock. The release of the lock is attached only after the lock
+     * was acquired, the failed lock is not released.
+     *
+     * @param connection the session connection
+     * @param run the run context
+     * @param action the action under the lock
+     * @return the uni completed after the release of the lock
+     */
+    private Uni<Void> locked(SqlConnection connection, Run run, Supplier<Uni<Void>> action) {
+        return lock(connection, run).chain(() -> Uni.createFrom().deferred(() -> action.get())
+                .onItemOrFailure().transformToUni((item, failure) -> release(connection, run)
+                        .chain(() -> failure != null ? Uni.createFrom().<Void>failure(failure) : Uni.createFrom().voidItem())
+                ));
+    }
+
+    /**
+     * Releases the migration lock acquired by the run and reports the lock hold time to the listener.
+     *
+     * @param connection the session connection
+     * @param run the run context
+     * @return the uni completed after the release
+     */
+    private Uni<Void> release(SqlConnection connection, Run run) {
+        return unlock(connection)
+                .invoke(x -> listener.lockReleased(Duration.ofNanos(System.nanoTime() - run.lockAcquiredAt)))
+                .onFailure().transform(e -> new IllegalStateException("Unable to release database lock", e));
+    }
+
+    /**
+     * Waits until the migration leader finished the migration. The default implementation polls the fingerprint
+     * in the history table with the follower poll interval until the follower timeout.
+     *
+     * @param connection the session connection
+     * @param fingerprint the fingerprint of the migration set
+     * @return {@code true} if the database was migrated to the fingerprint by the leader.
+     */
+    protected Uni<Boolean> awaitLeader(SqlConnection connection, Long fingerprint) {
+        return pollFingerprint(connection, fingerprint, System.nanoTime());
+    }
+
+    private Uni<Boolean> pollFingerprint(SqlConnection connection, Long fingerprint, long start) {
+        return checkFingerprint(connection, fingerprint).chain(match -> {
+            if (match) {
+                return Uni.createFrom().item(true);
+            }
+            if (System.nanoTime() - start >= config.getFollowerTimeout().toNanos()) {
+                return Uni.createFrom().item(false);
+            }
+            return Uni.createFrom().voidItem()
+                    .onItem().delayIt().by(config.getFollowerPollInterval())
+                    .chain(() -> pollFingerprint(connection, fingerprint, start));
+        });
+    }
+
+    /**
+     * Notifies the followers about finished migration. The default implementation does nothing,
+     * the followers poll the fingerprint.
+     *
+     * @param connection the session connection
+     * @param version the database version after migration
+     * @return the uni completed after notification
+     */
+    protected Uni<Void> notifyFollowers(SqlConnection connection, String version) {
+        return Uni.createFrom().voidItem();
+    }
+
+    /**
+     * Notifies the followers about failed migration. The default implementation does nothing,
+     * the followers poll the fingerprint until the follower timeout.
+     *
+     * @param connection the session connection
+     * @param failure the failure of the migration
+     * @return the uni completed after notification
+     */
+    protected Uni<Void> notifyFailure(SqlConnection connection, Throwable failure) {
+        return Uni.createFrom().voidItem();
+    }
+
+    private Uni<String> migrateLocked(SqlConnection connection, Run run, boolean te, List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations) {
+        return getCurrentUser(connection)
+                .invoke(user -> run.user = user)
+                .chain(() -> startProfile(connection, run))
+                .chain(() -> startRegression(connection, run))
+                // check migration table
+                .chain(() -> te ? Uni.createFrom().item(true) : checkMigrationTable(connection))
+                .chain(exists -> {
+                    if (!exists) {
+                        return query(connection, historyTableSql())
+                                .chain(() -> migrations(connection, run, versionedMigrations, repeatableMigrations, new HistorySnapshot()));
                     }
+                    // reload the history, other instance could migrate the database before we got the lock
+                    return loadHistory(connection)
+                            .chain(history -> migrations(connection, run, versionedMigrations, repeatableMigrations, history));
+                });
+    }
+
+    private Uni<String> migrations(SqlConnection connection, Run run, List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations, HistorySnapshot history) {
+
+        // filter resources
+        List<Migration> migrations = createMigrations(versionedMigrations, history);
+        if (migrations.size() < versionedMigrations.size()) {
+            listener.scriptsSkipped(versionedMigrations.size() - migrations.size());
+        }
+
+        // start migration
+        if (migrations.isEmpty()) {
+            log.warn("No versioned migration to run!");
+            Migration latest = history.getLatest();
+            String version = latest != null ? latest.version : null;
+            log.info("Database version: {}", version);
+            return Uni.createFrom().item(version);
+        }
+
+        boolean batches = config.getBatchSize() > 1;
+        if (batches && !isTransactionalDdl()) {
+            log.warn("Batch size {} is ignored, the DDL statements of the database {} commit implicitly. Scripts are executed one by one.",
+                    config.getBatchSize(), getClass().getSimpleName());
+            batches = false;
+        }
+        Uni<Migration> versioned = batches
+                ? batches(connection, run, migrations, config.getBatchSize())
+                : migrations(connection, run, migrations);
+
+        return versioned.chain(last -> {
+            // repeatable migration
+            if (repeatableMigrations == null || repeatableMigrations.isEmpty()) {
+                return Uni.createFrom().item(last);
+            }
+            Uni<Void> checksums = updateChecksums(connection, createChecksumUpdates(repeatableMigrations, history));
+            List<Migration> executeRepeatableMigrations = createRepeatableMigrations(last, repeatableMigrations, history);
+            if (executeRepeatableMigrations.size() < repeatableMigrations.size()) {
+                listener.scriptsSkipped(repeatableMigrations.size() - executeRepeatableMigrations.size());
+            }
+            if (executeRepeatableMigrations.isEmpty()) {
+                log.debug("No repeatable migration to run!");
+                return checksums.map(x -> last);
+            }
+            return checksums.chain(() -> migrations(connection, run, executeRepeatableMigrations)).map(x -> last);
+        }).map(last -> last != null ? last.version : null)
+          .invoke(version -> log.info("Database version: {}", version));
+    }
+
+    protected Uni<Migration> migrations(SqlConnection connection, Run run, List<Migration> migrations) {
+        // start migration
+        return forEach(migrations, migration -> migration(connection, run, migration))
+                .map(x -> migrations.isEmpty() ? null : migrations.get(migrations.size() - 1));
+    }
+
+    /**
+     * Executes the versioned migrations in batches. Each batch is one transaction with one multi-row insert
+     * to the history table. If a script fails the whole batch is rolled back, the batches are used only
+     * for the database with the transactional DDL.
+     *
+     * @param connection the session connection
+     * @param run the run context
+     * @param migrations the versioned migrations
+     * @param size the batch size
+     * @return the last migration
+     */
+    protected Uni<Migration> batches(SqlConnection connection, Run run, List<Migration> migrations, int size) {
+        // the migrations outside of the transaction or with own timeouts are not part of any batch
+        List<List<Migration>> batches = new ArrayList<>();
+        List<Migration> current = new ArrayList<>();
+        for (Migration m : migrations) {
+            if (isSingle(m)) {
+                if (!current.isEmpty()) {
+                    batches.add(current);
+                    current = new ArrayList<>();
                 }
+                batches.add(List.of(m));
+                continue;
+            }
+            current.add(m);
+            if (current.size() == size) {
+                batches.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return forEach(batches, batch -> batch.size() == 1 && isSingle(batch.get(0))
+                        ? migration(connection, run, batch.get(0))
+                        : retry("batch " + batch.get(0).version, true, () -> timeouts(connection, null, () -> batch(connection, run, batch))))
+                .map(x -> migrations.get(migrations.size() - 1));
+    }
 
-            } else {
-                log.warn("No versioned migration to run!");
+    protected Uni<Void> batch(SqlConnection connection, Run run, List<Migration> batch) {
+        log.info("Batch {} - {} ({} scripts)", batch.get(0).version, batch.get(batch.size() - 1).version, batch.size());
+        List<Migration> executed = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        return transaction(connection, (tx, events) -> forEach(batch, migration -> blocking(() -> {
+                    Reader reader = openMigration(migration);
+                    if (reader == null) {
+                        return Uni.createFrom().voidItem();
+                    }
+                    log.info("Script {}", migration.script);
+                    long start = System.nanoTime();
+                    return migrationScript(tx, run, migration, reader, events)
+                            .invoke(size -> {
+                                Duration time = Duration.ofNanos(System.nanoTime() - start);
+                                executed.add(migration);
+                                times.add(time.toMillis());
+                                events.add(() -> listener.scriptExecuted(migration, size, time));
+                            })
+                            .onFailure().transform(ex -> new IllegalStateException("Error execute migration! Script: " + migration.script, ex))
+                            .map(x -> null);
+                }))
+                .chain(() -> insertMigrations(tx, executed, times, run.user))
+        );
+    }
+
+    protected Uni<Void> migration(SqlConnection connection, Run run, Migration migration) {
+        // the script outside of the transaction could be partially executed, it is not retried
+        return retry(migration.script, !isNoTransaction(migration),
+                () -> timeouts(connection, migration, () -> blocking(() -> executeMigration(connection, run, migration))));
+    }
+
+    private Uni<Void> executeMigration(SqlConnection connection, Run run, Migration migration) {
+        Reader reader = openMigration(migration);
+        if (reader == null) {
+            return Uni.createFrom().voidItem();
+        }
+        if (isNoTransaction(migration)) {
+            return noTransactionMigration(connection, run, migration, reader);
+        }
+        // begin transaction
+        return transaction(connection, (tx, events) -> {
+                    // start migration
+                    log.info("Script {}", migration.script);
+                    long start = System.nanoTime();
+                    return migrationScript(tx, run, migration, reader, events)
+                            .chain(size -> {
+                                Duration time = Duration.ofNanos(System.nanoTime() - start);
+                                events.add(() -> listener.scriptExecuted(migration, size, time));
+
+                                // insert or update executed migration
+                                Uni<RowSet<Row>> write = migration.exists
+                                        ? updateMigration(tx, migration, time.toMillis(), run.user)
+                                        : insertMigration(tx, migration, time.toMillis(), run.user);
+                                return write.call(() -> checkRegression(tx, run, migration, time, events));
+                            });
+                })
+                .onFailure().transform(ex -> new IllegalStateException("Error execute migration!", ex));
+    }
+
+    /**
+     * Executes the script of the migration outside of the transaction and writes the history in the separate
+     * transaction. If the script fails the invalid indexes created by the script are dropped.
+     *
+     * @param connection the session connection
+     * @param run the run context
+     * @param migration the migration
+     * @param reader the script reader, closed after the execution
+     * @return the uni completed after commit of the history
+     */
+    private Uni<Void> noTransactionMigration(SqlConnection connection, Run run, Migration migration, Reader reader) {
+        return invalidIndexes(connection)
+                .onFailure().invoke(ex -> close(reader))
+                .chain(invalid -> {
+                    log.info("Script {} (no transaction)", migration.script);
+                    long start = System.nanoTime();
+                    List<Runnable> events = new ArrayList<>();
+                    return migrationScript(connection, run, migration, reader, events)
+                            .onFailure().call(ex -> dropInvalidIndexes(connection, invalid))
+                            .chain(size -> {
+                                Duration time = Duration.ofNanos(System.nanoTime() - start);
+                                events.add(() -> listener.scriptExecuted(migration, size, time));
+                                return transaction(connection, (tx, historyEvents) -> (migration.exists
+                                        ? updateMigration(tx, migration, time.toMillis(), run.user)
+                                        : insertMigration(tx, migration, time.toMillis(), run.user))
+                                        .call(() -> checkRegression(tx, run, migration, time, events))
+                                        .invoke(() -> historyEvents.addAll(events)));
+                            });
+                })
+                .onFailure().transform(ex -> new IllegalStateException("Error execute migration!", ex));
+    }
+
+    private Uni<Set<String>> invalidIndexes(SqlClient client) {
+        String sql = getInvalidIndexesSQL();
+        if (sql == null) {
+            return Uni.createFrom().item(Collections.emptySet());
+        }
+        return query(client, sql).map(rows -> {
+            Set<String> result = new HashSet<>();
+            rows.forEach(row -> result.add(row.getString(0)));
+            return result;
+        });
+    }
+
+    /**
+     * Drops the invalid indexes which did not exist before the script. The failure of the drop is only logged.
+     *
+     * @param client the SQL client
+     * @param before the invalid indexes before the script
+     * @return the uni completed after the drop
+     */
+    private Uni<Void> dropInvalidIndexes(SqlClient client, Set<String> before) {
+        if (getInvalidIndexesSQL() == null) {
+            return Uni.createFrom().voidItem();
+        }
+        return invalidIndexes(client)
+                .chain(after -> forEach(after.stream().filter(i -> !before.contains(i)).collect(Collectors.toList()), index -> {
+                    log.warn("Drop the invalid index {} of the failed script", index);
+                    return query(client, getDropIndexSQL(index));
+                }))
+                .onFailure().recoverWithItem(ex -> {
+                    log.warn("Error drop the invalid indexes of the failed script. Error: {}", ex.getMessage());
+                    return null;
+                });
+    }
+
+    private static boolean isNoTransaction(Migration migration) {
+        return migration.hasDirective(ResourceLoader.DIRECTIVE_NO_TRANSACTION);
+    }
+
+    private static boolean isSingle(Migration migration) {
+        return isNoTransaction(migration)
+                || migration.hasDirective(ResourceLoader.DIRECTIVE_LOCK_TIMEOUT)
+                || migration.hasDirective(ResourceLoader.DIRECTIVE_STATEMENT_TIMEOUT);
+    }
+
+    /**
+     * Executes the action with the lock and statement timeouts of the migration. The timeouts are set on the session
+     * before the action and reset after the action.
+     *
+     * @param connection the session connection
+     * @param migration the migration with the timeout directives or {@code null} for the configured timeouts
+     * @param action the action
+     * @return the uni completed after the reset of the timeouts
+     */
+    private Uni<Void> timeouts(SqlConnection connection, Migration migration, Supplier<Uni<Void>> action) {
+        return Uni.createFrom().deferred(() -> {
+            Duration lockTimeout = timeout(migration, ResourceLoader.DIRECTIVE_LOCK_TIMEOUT, config.getScriptLockTimeout());
+            Duration statementTimeout = timeout(migration, ResourceLoader.DIRECTIVE_STATEMENT_TIMEOUT, config.getScriptStatementTimeout());
+            if (lockTimeout == null && statementTimeout == null) {
+                return action.get();
             }
+            return forEach(getScriptTimeoutSQL(lockTimeout, statementTimeout), sql -> query(connection, sql))
+                    .chain(() -> action.get())
+                    .onItemOrFailure().call((x, failure) -> forEach(getResetScriptTimeoutSQL(lockTimeout, statementTimeout), sql -> query(connection, sql)));
+        });
+    }
 
-            log.info("Database version: {}", latest != null ? latest.version : null);
-        } finally {
-            // release lock
-            try {
-                unlock();
-            } catch (Exception e) {
-                throw new IllegalStateException("Unable to release database lock", e);
-           }
+    /**
+     * Executes the action with the blocking I/O on the executor of the configuration. Without the executor
+     * the action is executed on the calling thread.
+     *
+     * @param action the action
+     * @param <T> the type of the item
+     * @return the uni of the action
+     */
+    private <T> Uni<T> blocking(Supplier<Uni<T>> action) {
+        Uni<T> result = Uni.createFrom().deferred(() -> action.get());
+        Executor executor = config.getExecutor();
+        return executor != null ? result.runSubscriptionOn(executor) : result;
+    }
+
+    private static Duration timeout(Migration migration, String directive, Duration value) {
+        String tmp = migration != null ? migration.directive(directive) : null;
+        if (tmp == null) {
+            return value;
+        }
+        try {
+            return duration(tmp);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Wrong directive " + directive + " of the script " + migration.script, ex);
         }
     }
 
-    protected Migration migrations(List<Migration> migrations) {
-        Migration result = null;
-        // start migration
-        for (Migration migration : migrations) {
-            migration(migration);
-            result = migration;
+    /**
+     * Parses the duration of the directive {@code <number>[ms|s|m|h]}, the number without unit are milliseconds.
+     *
+     * @param value the duration
+     * @return the duration
+     */
+    static Duration duration(String value) {
+        Matcher m = value != null ? DURATION.matcher(value.strip().toLowerCase()) : null;
+        if (m == null || !m.matches()) {
+            throw new IllegalArgumentException("Wrong duration '" + value + "'. Format: <number>[ms|s|m|h]");
+        }
+        long number = Long.parseLong(m.group(1));
+        String unit = m.group(2);
+        if (unit == null || "ms".equals(unit)) {
+            return Duration.ofMillis(number);
+        }
+        switch (unit) {
+            case "s":
+                return Duration.ofSeconds(number);
+            case "m":
+                return Duration.ofMinutes(number);
+            default:
+                return Duration.ofHours(number);
         }
-        return result;
     }
 
-    protected void migration(Migration migration) {
-        String sql = ResourceLoader.loadResource(migration.script);
-        if (sql == null || sql.isBlank()) {
+    /**
+     * Executes the action and retries the action after the lock timeout with exponential backoff and jitter.
+     *
+     * @param name the name of the action for the log
+     * @param retryable {@code true} if the action could be retried
+     * @param action the action
+     * @return the uni completed after the action
+     */
+    private Uni<Void> retry(String name, boolean retryable, Supplier<Uni<Void>> action) {
+        return retry(name, action, 1, retryable ? config.getScriptRetries() : 0, config.getScriptRetryBackoff());
+    }
+
+    private Uni<Void> retry(String name, Supplier<Uni<Void>> action, int attempt, int retries, Duration backoff) {
+        return Uni.createFrom().deferred(() -> action.get()).onFailure().recoverWithUni(ex -> {
+            if (attempt > retries || !isScriptLockTimeout(ex)) {
+                return Uni.createFrom().failure(ex);
+            }
+            Duration delay = jitter(backoff);
+            log.warn("Lock timeout of the script {}. Retry {} of {} in {}ms", name, attempt, retries, delay.toMillis());
+            return Uni.createFrom().voidItem()
+                    .onItem().delayIt().by(delay)
+                    .chain(() -> retry(name, action, attempt + 1, retries, min(backoff.multipliedBy(2), config.getScriptRetryMaxBackoff())));
+        });
+    }
+
+    /**
+     * Executes the script of the migration. In the profile mode the database statistics are loaded
+     * before and after the script.
+     *
+     * @param client the SQL client
+     * @param run the run context
+     * @param migration the migration
+     * @param reader the script reader, closed after the execution
+     * @param events the events executed after commit of the migration
+     * @return the size of the executed statements in characters
+     */
+    private Uni<Long> migrationScript(SqlClient client, Run run, Migration migration, Reader reader, List<Runnable> events) {
+        ProfileReport report = run.profile;
+        // the statements outside of the transaction are not pipelined, each statement runs on its own
+        boolean pipelining = isPipelining() && !isNoTransaction(migration);
+        if (report == null) {
+            return script(client, migration.script, migration.version, reader, migration.statements, pipelining);
+        }
+        return profileSnapshot(client)
+                .onFailure().invoke(ex -> close(reader))
+                .chain(before -> {
+                    long start = System.nanoTime();
+                    return script(client, migration.script, migration.version, reader, migration.statements, pipelining)
+                            .chain(size -> {
+                                long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                                return profileSnapshot(client)
+                                        .invoke(after -> events.add(() -> report.add(new ScriptProfile(migration.script, migration.version, before, after, time))))
+                                        .map(x -> size);
+                            });
+                });
+    }
+
+    /**
+     * Starts the profiling of the migration. The profile query is executed once outside of the migration
+     * transaction, if the query fails the profiling is disabled.
+     *
+     * @param connection the session connection
+     * @param run the run context
+     * @return the uni completed after the check
+     */
+    private Uni<Void> startProfile(SqlConnection connection, Run run) {
+        if (!config.isProfile()) {
+            return Uni.createFrom().voidItem();
+        }
+        if (getProfileSQL() == null) {
+            log.warn("Profiling is not supported by the database {}", getClass().getSimpleName());
+            return Uni.createFrom().voidItem();
+        }
+        return profileSnapshot(connection)
+                .invoke(x -> run.profile = new ProfileReport())
+                .onFailure().recoverWithItem(ex -> {
+                    log.warn("Profiling is disabled, the database statistics are not available. Error: {}", ex.getMessage());
+                    return null;
+                })
+                .map(x -> null);
+    }
+
+    private Uni<long[]> profileSnapshot(SqlClient client) {
+        return query(client, getProfileSQL()).map(rows -> {
+            long[] values = new long[ScriptProfile.Metric.values().length];
+            RowIterator<Row> it = rows.iterator();
+            Row row = it.hasNext() ? it.next() : null;
+            for (int i = 0; i < values.length; i++) {
+                Long value = row != null ? row.getLong(i) : null;
+                values[i] = value != null ? value : -1;
+            }
+            return values;
+        });
+    }
+
+    private void writeProfile(ProfileReport report) {
+        if (report == null) {
+            return;
+        }
+        String file = config.getProfileReport();
+        if (file == null) {
+            report.getProfiles().forEach(p -> log.info("Profile {}", p));
+            return;
+        }
+        try {
+            report.write(Paths.get(file));
+            log.info("Profile report of {} scripts written to {}", report.getProfiles().size(), file);
+        } catch (IOException ex) {
+            log.warn("Error write the profile report {}. Error: {}", file, ex.getMessage());
+        }
+    }
+
+    /**
+     * Gets the profile of the last migration.
+     *
+     * @return the profile report or {@code null} if the profiling was disabled
+     */
+    public ProfileReport getProfile() {
+        return profile;
+    }
+
+    /**
+     * Starts the regression detection. The baseline table is created if it does not exist
+     * and the baselines of the environment are loaded.
+     *
+     * @param connection the session connection
+     * @param run the run context
+     * @return the uni completed after the load of the baselines
+     */
+    private Uni<Void> startRegression(SqlConnection connection, Run run) {
+        if (!config.isRegression()) {
+            return Uni.createFrom().voidItem();
+        }
+        String environment = config.getEnvironment();
+        return query(connection, "CREATE TABLE IF NOT EXISTS " + getBaselineTable() + " (" +
+                "description VARCHAR(200) NOT NULL, environment VARCHAR(100) NOT NULL, script VARCHAR(1000) NOT NULL," +
+                " runs INT NOT NULL, baseline BIGINT NOT NULL, last_time BIGINT NOT NULL," +
+                " PRIMARY KEY (description, environment))")
+                .chain(() -> preparedQuery(connection, "SELECT description, runs, baseline FROM " + getBaselineTable()
+                        + " WHERE environment = " + param(1), Tuple.of(environment)))
+                .invoke(rows -> {
+                    Map<String, long[]> baselines = new HashMap<>();
+                    for (Row row : rows) {
+                        baselines.put(row.getString(0), new long[]{row.getInteger(1), row.getLong(2)});
+                    }
+                    run.baselines = baselines;
+                    run.regression = new RegressionReport(environment);
+                })
+                .map(x -> null);
+    }
+
+    /**
+     * Compares the execution time of the repeatable migration with the baseline and updates the baseline
+     * with the rolling average of the last runs. The baseline and the report are updated after commit.
+     *
+     * @param tx the migration transaction
+     * @param run the run context
+     * @param migration the executed migration
+     * @param time the execution time
+     * @param events the events executed after commit of the migration
+     * @return the uni completed after the update of the baseline
+     */
+    private Uni<Void> checkRegression(Transaction tx, Run run, Migration migration, Duration time, List<Runnable> events) {
+        RegressionReport report = run.regression;
+        Map<String, long[]> baselines = run.baselines;
+        if (report == null || migration.version != null) {
+            return Uni.createFrom().voidItem();
+        }
+        long ms = time.toMillis();
+        long[] previous = baselines.get(migration.description);
+        long baseline = previous != null ? previous[1] : -1;
+        RegressionCheck check = RegressionCheck.of(migration.script, migration.description, ms, baseline,
+                previous != null ? (int) previous[0] : 0, config.getRegressionFactor(), config.getRegressionThreshold().toMillis());
+        int runs = check.nextRuns(config.getRegressionWindow());
+        long average = check.nextBaseline(config.getRegressionWindow());
+
+        Uni<RowSet<Row>> write;
+        if (previous == null) {
+            write = preparedQuery(tx, "INSERT INTO " + getBaselineTable()
+                            + " (description, environment, script, runs, baseline, last_time) VALUES ("
+                            + param(1) + "," + param(2) + "," + param(3) + "," + param(4) + "," + param(5) + "," + param(6) + ")",
+                    Tuple.tuple(Arrays.asList(migration.description, report.getEnvironment(), migration.script, runs, average, ms)));
+        } else {
+            write = preparedQuery(tx, "UPDATE " + getBaselineTable() + " SET script = " + param(1) + ", runs = " + param(2)
+                            + ", baseline = " + param(3) + ", last_time = " + param(4)
+                            + " WHERE description = " + param(5) + " AND environment = " + param(6),
+                    Tuple.tuple(Arrays.asList(migration.script, runs, average, ms, migration.description, report.getEnvironment())));
+        }
+        return write.invoke(x -> events.add(() -> {
+            baselines.put(migration.description, new long[]{runs, average});
+            report.add(check);
+            if (check.isRegressed()) {
+                log.warn("Script {} execution time {}ms exceeds the baseline {}ms of the environment {}",
+                        migration.script, ms, baseline, report.getEnvironment());
+                listener.scriptRegressed(migration, time, Duration.ofMillis(baseline));
+            }
+        })).map(x -> null);
+    }
+
+    private void writeRegression(RegressionReport report) {
+        if (report == null) {
+            return;
+        }
+        List<RegressionCheck> regressions = report.getRegressions();
+        if (!regressions.isEmpty()) {
+            log.warn("Execution time regression of {} repeatable scripts: {}", regressions.size(),
+                    regressions.stream().map(RegressionCheck::getScript).collect(Collectors.joining(", ")));
+        }
+        String file = config.getRegressionReport();
+        if (file == null) {
+            return;
+        }
+        try {
+            report.write(Paths.get(file));
+            log.info("Regression report of {} scripts written to {}", report.getChecks().size(), file);
+        } catch (IOException ex) {
+            log.warn("Error write the regression report {}. Error: {}", file, ex.getMessage());
+        }
+    }
+
+    /**
+     * Gets the execution time checks of the repeatable migrations of the last migration.
+     *
+     * @return the regression report or {@code null} if the regression detection was disabled
+     */
+    public RegressionReport getRegression() {
+        return regression;
+    }
+
+    private Reader openMigration(Migration migration) {
+        Reader reader = null;
+        if (migration.statements == null || migration.statements.length > 0) {
+            reader = openScript(migration.script);
+        }
+        if (reader == null) {
             log.warn("Skip empty migration resources " + migration.script);
+            listener.scriptsSkipped(1);
+        }
+        return reader;
+    }
+
+    /**
+     * Opens the script from the migration bundle. If the script is not packed in the bundle
+     * the script is opened as classpath resource.
+     *
+     * @param script the script
+     * @return the script reader or {@code null} if the script does not exist.
+     */
+    protected Reader openScript(String script) {
+        MigrationBundle bundle = config.getBundle();
+        if (bundle != null) {
+            Reader reader = bundle.open(script);
+            if (reader != null) {
+                return reader;
+            }
+        }
+        return ResourceLoader.openResource(script);
+    }
+
+    /**
+     * Executes the statements of the script. The script is streamed from the reader and each statement
+     * is executed after it is read, only the current statements are kept in memory. The statements are
+     * read with the build time offsets, if the offsets are missing the script is split while reading.
+     * The duration of each statement is recorded and the slowest statements of the script are reported.
+     * For the pipelining databases the statements are sent without waiting for the previous result
+     * and the duration is the time between the completions.
+     *
+     * @param client the SQL client
+     * @param script the script name
+     * @param version the version of the versioned migration or {@code null}
+     * @param reader the script reader, closed after the execution
+     * @param offsets the offsets of the statements or {@code null}
+     * @return the size of the executed statements in characters
+     */
+    protected Uni<Long> script(SqlClient client, String script, String version, Reader reader, int[] offsets) {
+        return script(client, script, version, reader, offsets, isPipelining());
+    }
+
+    private Uni<Long> script(SqlClient client, String script, String version, Reader reader, int[] offsets, boolean pipelining) {
+        listener.scriptStarted(script);
+        ScriptEvent event = new ScriptEvent();
+        event.begin();
+        Iterator<String> statements = offsets != null ? SqlSplitter.statements(reader, offsets) : getSqlSplitter().statements(reader);
+        ScriptTimes times = new ScriptTimes();
+        Multi<String> items = Multi.createFrom().iterable(() -> statements);
+        if (config.getExecutor() != null) {
+            // the statements are read from the reader on the worker executor
+            items = items.runSubscriptionOn(config.getExecutor());
+        }
+
+        Uni<Void> result;
+        if (pipelining) {
+            long[] last = { System.nanoTime() };
+            result = items.onItem().transformToUni(sql -> {
+                        int index = times.next(sql);
+                        return statement(client, script, index, sql).invoke(x -> {
+                            long now = System.nanoTime();
+                            times.add(index, now - last[0], sql);
+                            last[0] = now;
+                        });
+                    })
+                    .merge(PIPELINING_LIMIT)
+                    .onItem().ignoreAsUni();
         } else {
-            Transaction tx = null;
-            try {
-                // begin transaction
-                tx = client.beginAndAwait();
-
-                // start migration
-                log.info("Script {}", migration.script);
-                long start = System.currentTimeMillis();
-                queryAndAwait(tx, sql);
-                long time = System.currentTimeMillis() - start;
-
-                // insert or update executed migration
-                if (migration.exists) {
-                    updateMigration(tx, migration, time);
-                } else {
-                    insertMigration(tx, migration, time);
-                }
+            result = items.onItem().transformToUniAndConcatenate(sql -> {
+                        int index = times.next(sql);
+                        long start = System.nanoTime();
+                        return statement(client, script, index, sql).invoke(x -> times.add(index, System.nanoTime() - start, sql));
+                    })
+                    .onItem().ignoreAsUni();
+        }
+        return result
+                .invoke(x -> times.log(script))
+                .onItemOrFailure().invoke((x, failure) -> {
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.script = script;
+                        event.version = version;
+                        event.size = times.chars;
+                        event.statements = times.count;
+                        event.success = failure == null;
+                        event.commit();
+                    }
+                })
+                .map(x -> times.chars)
+                .eventually(() -> close(reader));
+    }
 
-                // commit
-                tx.commitAndAwait();
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                if (tx != null) {
-                    tx.close();
-                }
-                throw new IllegalStateException("Error execute migration!", ex);
+    private static Uni<RowSet<Row>> statement(SqlClient client, String script, int index, String sql) {
+        return query(client, sql)
+                .onFailure().transform(ex -> new IllegalStateException("Error execute statement " + (index + 1)
+                        + " of script " + script + ". Statement: " + snippet(sql), ex));
+    }
+
+    private static void close(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException ex) {
+            log.warn("Error close the script reader. Error: {}", ex.getMessage());
+        }
+    }
+
+    private static String snippet(String statement) {
+        String tmp = statement.substring(0, Math.min(statement.length(), SNIPPET_LENGTH * 4)).replaceAll("\\s+", " ");
+        return tmp.length() > SNIPPET_LENGTH ? tmp.substring(0, SNIPPET_LENGTH) + "..." : tmp;
+    }
+
+    /**
+     * The statement times of the script. Only the slowest statements are kept.
+     */
+    private static class ScriptTimes {
+
+        private int count;
+
+        private final long[] times = new long[SLOWEST_STATEMENTS];
+
+        private final int[] indexes = new int[SLOWEST_STATEMENTS];
+
+        private final String[] snippets = new String[SLOWEST_STATEMENTS];
+
+        private int size;
+
+        private long chars;
+
+        int next(String sql) {
+            chars += sql.length();
+            return count++;
+        }
+
+        void add(int index, long time, String sql) {
+            int i = size;
+            if (size < SLOWEST_STATEMENTS) {
+                size++;
+            } else if (time <= times[size - 1]) {
+                return;
+            } else {
+                i = size - 1;
             }
+            while (i > 0 && times[i - 1] < time) {
+                times[i] = times[i - 1];
+                indexes[i] = indexes[i - 1];
+                snippets[i] = snippets[i - 1];
+                i--;
+            }
+            times[i] = time;
+            indexes[i] = index;
+            snippets[i] = snippet(sql);
+        }
+
+        void log(String script) {
+            if (count <= 1) {
+                return;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                sb.append(i == 0 ? "" : ", ").append('#').append(indexes[i] + 1).append(' ')
+                        .append(TimeUnit.NANOSECONDS.toMillis(times[i])).append("ms ").append(snippets[i]);
+            }
+            log.info("Script {} statements: {} slowest: [{}]", script, count, sb);
         }
     }
 
-    protected void updateMigration(Transaction tx, Migration migration, Long time) {
-        preparedQueryAndAwait(tx,
-                "UPDATE " + table + " SET checksum = $1, execution_time = $2, installed_by = $3 WHERE id=$4",
-                Tuple.of(migration.checksum, time, currentUser, migration.id));
+    protected Uni<RowSet<Row>> updateMigration(Transaction tx, Migration migration, Long time, String user) {
+        return historyWrite(1, () -> preparedQuery(tx,
+                "UPDATE " + table + " SET checksum = " + param(1) + ", script = " + param(2) + ", execution_time = " + param(3)
+                        + ", installed_by = " + param(4) + " WHERE id = " + param(5),
+                Tuple.tuple(Arrays.asList(migration.checksum, migration.script, time, user, migration.id))));
     }
 
 
-    protected void insertMigration(Transaction tx, Migration migration, Long time) {
-        preparedQueryAndAwait(tx, getInsertMigrationSQL(), Tuple.tuple(Arrays.asList(
+    protected Uni<RowSet<Row>> insertMigration(Transaction tx, Migration migration, Long time, String user) {
+        return historyWrite(1, () -> preparedQuery(tx, getInsertMigrationSQL(), Tuple.tuple(Arrays.asList(
                 migration.id, migration.version, migration.description, migration.type,
-                migration.script, migration.checksum, time, true, currentUser
+                migration.script, migration.checksum, time, true, user
                 ))
-        );
+        ));
     }
 
-    protected void lock() {
-        int retries = 0;
-        while (!tryLock()) {
-            try {
-                Thread.sleep(100L);
-            } catch (InterruptedException e) {
-                throw new IllegalStateException("Interrupted lock", e);
-            }
+    protected Uni<Void> insertMigrations(Transaction tx, List<Migration> migrations, List<Long> times, String user) {
+        if (migrations.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        List<Object> params = new ArrayList<>(migrations.size() * 9);
+        for (int i = 0; i < migrations.size(); i++) {
+            Migration migration = migrations.get(i);
+            params.addAll(Arrays.asList(
+                    migration.id, migration.version, migration.description, migration.type,
+                    migration.script, migration.checksum, times.get(i), true, user
+            ));
+        }
+        return historyWrite(migrations.size(), () -> preparedQuery(tx, getInsertMigrationSQL(migrations.size()), Tuple.tuple(params)))
+                .map(x -> null);
+    }
 
-            if (++retries >= 50) {
-                throw new IllegalStateException("Number of retries exceeded while attempting to acquire lock");
-            }
+    /**
+     * Executes the write to the history table and reports the duration of the write to the listener.
+     *
+     * @param migrations the number of written migrations
+     * @param write the write action
+     * @return the result of the write
+     */
+    private <T> Uni<T> historyWrite(int migrations, Supplier<Uni<T>> write) {
+        if (listener == BarnListener.NOOP) {
+            return write.get();
         }
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            return write.get().invoke(x -> listener.historyWritten(migrations, Duration.ofNanos(System.nanoTime() - start)));
+        });
+    }
+
+    /**
+     * Gets the time the last migration waited for the lock.
+     *
+     * @return the lock wait time
+     */
+    public Duration getLockWaitTime() {
+        return lockWaitTime;
     }
 
-    protected Map<String, Migration> getAllRepeatableMigration() {
-        RowIterator<Row> it = queryAndAwait("SELECT * FROM " + table + " WHERE version IS NULL").iterator();
-        Map<String, Migration> result = new HashMap<>();
-        while (it.hasNext()) {
-            Migration m = map(it.next());
-            result.put(m.description, m);
+    /**
+     * Gets the number of attempts of the last migration to acquire the lock.
+     *
+     * @return the number of lock attempts
+     */
+    public int getLockAttempts() {
+        return lockAttempts;
+    }
+
+    /**
+     * Acquires the migration lock. Each attempt waits server-side at most the lock wait time,
+     * between the attempts is an exponential backoff with jitter. The lock fails after the lock timeout.
+     *
+     * @param connection the session connection
+     * @param run the run context
+     * @return the uni completed when the lock is acquired
+     */
+    protected Uni<Void> lock(SqlConnection connection, Run run) {
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        long start = System.nanoTime();
+        return lock(connection, run, start, 1, config.getLockBackoff())
+                .onItemOrFailure().invoke((x, failure) -> lockWait(event, run, failure == null));
+    }
+
+    private void lockWait(LockWaitEvent event, Run run, boolean acquired) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.attempts = run.lockAttempts;
+            event.outcome = acquired ? LockWaitEvent.ACQUIRED : LockWaitEvent.FAILED;
+            event.commit();
         }
-        return result;
     }
 
-    protected long lastId() {
-        RowIterator<Row> it = queryAndAwait("SELECT id FROM " + table + " ORDER BY id DESC LIMIT 1").iterator();
-        if (it.hasNext()) {
-            return it.next().getLong("id");
+    private Uni<Void> lock(SqlConnection connection, Run run, long start, int attempt, Duration backoff) {
+        Duration remaining = config.getLockTimeout().minusNanos(System.nanoTime() - start);
+        if (remaining.isNegative() || remaining.isZero()) {
+            return Uni.createFrom().failure(new IllegalStateException("Timeout while attempting to acquire lock. Attempts: "
+                    + (attempt - 1) + " timeout: " + config.getLockTimeout()));
         }
-        return -1;
+        Duration wait = min(config.getLockWait(), remaining);
+        run.lockAttempts = attempt;
+        return tryLock(connection, wait).chain(locked -> {
+            if (locked) {
+                Duration waitTime = acquired(run, start, attempt);
+                log.info("Database lock acquired. Attempts: {} wait: {}ms", attempt, waitTime.toMillis());
+                return Uni.createFrom().voidItem();
+            }
+            Duration delay = jitter(backoff);
+            log.debug("Database lock is not available. Attempt: {} next attempt in {}ms", attempt, delay.toMillis());
+            return Uni.createFrom().voidItem()
+                    .onItem().delayIt().by(delay)
+                    .chain(() -> lock(connection, run, start, attempt + 1, min(backoff.multipliedBy(2), config.getLockMaxBackoff())));
+        });
     }
 
-    public Migration lastVersionedMigration() {
-        RowIterator<Row> it = queryAndAwait("SELECT * FROM " + table + " WHERE version IS NOT NULL ORDER BY id DESC LIMIT 1").iterator();
-        if (it.hasNext()) {
-            return map(it.next());
+    private Duration acquired(Run run, long start, int attempts) {
+        run.lockAcquiredAt = System.nanoTime();
+        run.lockAttempts = attempts;
+        Duration waitTime = Duration.ofNanos(run.lockAcquiredAt - start);
+        // publish the lock statistics of the last run
+        lockWaitTime = waitTime;
+        lockAttempts = attempts;
+        listener.lockAcquired(waitTime, attempts);
+        return waitTime;
+    }
+
+    private static Duration jitter(Duration backoff) {
+        long millis = Math.max(backoff.toMillis(), 1);
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(millis / 2, millis + 1));
+    }
+
+    private static Duration min(Duration d1, Duration d2) {
+        return d1.compareTo(d2) <= 0 ? d1 : d2;
+    }
+
+    /**
+     * Checks the fingerprint of the migration set with the fingerprint stored in the history table.
+     * The check is one primary key lookup. If the history table does not exist the fingerprint does not match.
+     *
+     * @param connection the session connection
+     * @param fingerprint the fingerprint of the migration set
+     * @return {@code true} if the database is migrated to the migration set with this fingerprint.
+     */
+    protected Uni<Boolean> checkFingerprint(SqlConnection connection, Long fingerprint) {
+        if (fingerprint == null) {
+            return Uni.createFrom().item(false);
         }
-        return null;
+        return historyQuery(connection, "fingerprint", "SELECT checksum FROM " + table + " WHERE id = " + FINGERPRINT_ID)
+                .map(rows -> {
+                    RowIterator<Row> it = rows.iterator();
+                    return it.hasNext() && fingerprint.equals(it.next().getLong(0));
+                })
+                .onFailure().recoverWithItem(ex -> {
+                    log.debug("Fingerprint check failed. Error: {}", ex.getMessage());
+                    return false;
+                });
+    }
+
+    /**
+     * Stores the fingerprint of the migration set in the history table.
+     *
+     * @param connection the session connection
+     * @param fingerprint the fingerprint of the migration set
+     * @param user the current database user
+     * @return the uni completed after commit
+     */
+    protected Uni<Void> saveFingerprint(SqlConnection connection, Long fingerprint, String user) {
+        if (fingerprint == null) {
+            return Uni.createFrom().voidItem();
+        }
+        Migration m = new Migration();
+        m.id = FINGERPRINT_ID;
+        m.description = "Migration fingerprint";
+        m.type = FINGERPRINT_TYPE;
+        m.script = "";
+        m.checksum = fingerprint;
+        return transaction(connection, tx -> query(tx, "DELETE FROM " + table + " WHERE id = " + FINGERPRINT_ID)
+                .chain(() -> insertMigration(tx, m, 0L, user)));
+    }
+
+    /**
+     * Loads the history table in one query.
+     *
+     * @param connection the session connection
+     * @return the history snapshot
+     */
+    protected Uni<HistorySnapshot> loadHistory(SqlConnection connection) {
+        long start = System.nanoTime();
+        return historyQuery(connection, "history", "SELECT id, version, description, script, checksum, type FROM " + table + " WHERE id >= 0").map(rows -> {
+            HistorySnapshot history = new HistorySnapshot();
+            for (Row row : rows) {
+                Migration m = new Migration();
+                m.exists = true;
+                m.id = row.getLong(0);
+                m.version = row.getString(1);
+                m.description = row.getString(2);
+                m.script = row.getString(3);
+                m.checksum = row.getLong(4);
+                m.type = row.getString(5);
+                history.add(m);
+            }
+            log.debug("History loaded. Migrations: {}", history.size());
+            listener.historyLoaded(history.size(), Duration.ofNanos(System.nanoTime() - start));
+            return history;
+        });
+    }
+
+    public Migration lastVersionedMigration() {
+        return lastVersionedMigrationUni().await().indefinitely();
+    }
+
+    public Uni<Migration> lastVersionedMigrationUni() {
+        return session(this::lastVersionedMigration);
+    }
+
+    /**
+     * Loads the last applied versioned migration. The deferred migrations are ignored,
+     * they are applied after the migrations with higher versions.
+     *
+     * @param connection the session connection
+     * @return the last versioned migration or {@code null}
+     */
+    protected Uni<Migration> lastVersionedMigration(SqlConnection connection) {
+        return historyQuery(connection, "latest", "SELECT * FROM " + table + " WHERE version IS NOT NULL AND type <> '" + DEFERRED_TYPE + "' ORDER BY id DESC LIMIT 1").map(rows -> {
+            RowIterator<Row> it = rows.iterator();
+            if (it.hasNext()) {
+                return map(it.next());
+            }
+            return null;
+        });
     }
 
     public static Migration map(Row row) {
@@ -266,27 +1573,36 @@ public abstract class Database {
         return m;
     }
 
-    protected List<Migration> createMigrations(List<VersionedMigration> resources, Migration latest, long id) {
-        List<VersionedMigration> versions = resources;
-        if (latest != null) {
-            Version ver = Version.of(latest.version);
-            versions = resources.stream().filter(ver::isLessThan).collect(Collectors.toList());
-        }
+    protected List<Migration> createMigrations(List<VersionedMigration> resources, HistorySnapshot history) {
+        // the versioned migrations after the latest version and the not applied deferred migrations
+        List<VersionedMigration> versions = critical(history.pending(resources));
 
+        Version latest = history.getLatestVersion();
+        long id = history.nextId();
         List<Migration> result = new ArrayList<>();
         for (VersionedMigration m : versions) {
-            result.add(create(m.resource, id++));
+            Migration migration = create(m.resource, id++);
+            if (latest != null && m.isLessThan(latest)) {
+                // deferred migration which was not executed by the deferred phase
+                migration.type = DEFERRED_TYPE;
+            }
+            result.add(migration);
         }
         return result;
     }
 
-    protected List<Migration> createRepeatableMigrations(Migration latest, List<Resource> repeatableMigrations, Map<String, Migration> rms) {
+    protected List<Migration> createRepeatableMigrations(Migration latest, List<Resource> repeatableMigrations, HistorySnapshot history) {
         long id = latest.id + 1;
         List<Migration> result = new ArrayList<>();
         for (Resource rm : repeatableMigrations) {
-            Migration m = rms.get(rm.description);
+            Migration m = history.getRepeatable(rm.description);
             if (m != null) {
-                if (!m.checksum.equals(rm.checksum)) {
+                if (!rm.checksum.equals(m.checksum)) {
+                    // update the history with the changed script
+                    m.checksum = rm.checksum;
+                    m.script = rm.script;
+                    m.statements = rm.statements;
+                    m.directives = rm.directives;
                     result.add(m);
                 }
             } else {
@@ -297,29 +1613,218 @@ public abstract class Database {
         return result;
     }
 
+    /**
+     * Finds the repeatable migrations stored with the legacy checksum. The content of these migrations
+     * did not change, only the checksum algorithm or the normalization. The checksum of the history
+     * snapshot is updated to the new checksum.
+     *
+     * @param repeatableMigrations the repeatable migrations
+     * @param history the history snapshot
+     * @return the migrations with the updated checksum
+     */
+    protected List<Migration> createChecksumUpdates(List<Resource> repeatableMigrations, HistorySnapshot history) {
+        List<Migration> result = new ArrayList<>();
+        for (Resource rm : repeatableMigrations) {
+            if (rm.legacyChecksum == null) {
+                continue;
+            }
+            Migration m = history.getRepeatable(rm.description);
+            if (m != null && !rm.checksum.equals(m.checksum) && rm.legacyChecksum.equals(m.checksum)) {
+                m.checksum = rm.checksum;
+                result.add(m);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rewrites the legacy checksums in the history table without the execution of the scripts.
+     *
+     * @param connection the session connection
+     * @param migrations the migrations with the new checksum
+     * @return the uni completed after commit
+     */
+    protected Uni<Void> updateChecksums(SqlConnection connection, List<Migration> migrations) {
+        if (migrations.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        log.info("Update the legacy checksum of {} repeatable migrations", migrations.size());
+        return transaction(connection, tx -> forEach(migrations,
+                m -> historyWrite(1, () -> preparedQuery(tx, getUpdateChecksumSQL(), Tuple.of(m.checksum, m.id)))));
+    }
+
+    protected String getUpdateChecksumSQL() {
+        return "UPDATE " + table + " SET checksum = " + param(1) + " WHERE id = " + param(2);
+    }
+
     protected Migration create(Resource resource, long id) {
         Migration r = new Migration();
         r.exists = false;
         r.id = id;
         r.version = resource.version;
         r.description = resource.description;
-        r.type = "SQL";
+        r.type = config.isDeferred() && resource.hasDirective(ResourceLoader.DIRECTIVE_DEFERRED) ? DEFERRED_TYPE : "SQL";
         r.script = resource.script;
         r.checksum = resource.checksum;
+        r.statements = resource.statements;
+        r.directives = resource.directives;
         return r;
     }
 
-    protected void preparedQueryAndAwait(Transaction tx, String sql, io.vertx.mutiny.sqlclient.Tuple arguments) {
-        log.debug("SQL:\n" + sql);
-        tx.preparedQuery(sql).executeAndAwait(arguments);
+    /**
+     * Executes the action for each item sequentially. The next action is subscribed
+     * after the previous one completed.
+     *
+     * @param items the items
+     * @param action the action for the item
+     * @param <T> the type of the item
+     * @return the uni completed after the last action
+     */
+    protected static <T> Uni<Void> forEach(Iterable<T> items, Function<T, Uni<?>> action) {
+        return Multi.createFrom().iterable(items)
+                .onItem().transformToUniAndConcatenate(item -> action.apply(item).map(x -> item))
+                .onItem().ignoreAsUni();
+    }
+
+    /**
+     * Executes the query and the action for each row of the result sequentially.
+     *
+     * @param sql the SQL query
+     * @param action the action for the row
+     * @return the uni completed after the last action
+     */
+    protected static Uni<Void> forEachRow(SqlClient client, String sql, Function<Row, Uni<?>> action) {
+        return query(client, sql).chain(rows -> forEach(rows, action));
+    }
+
+    /**
+     * Executes the action in one session. The session pins one connection of the pool
+     * for all statements of the action and release the connection at the end.
+     *
+     * @param action the action for the session connection
+     * @param <T> the type of the result
+     * @return the result of the action
+     */
+    protected <T> Uni<T> session(Function<SqlConnection, Uni<T>> action) {
+        return client.getConnection()
+                .chain(connection -> action.apply(connection).eventually(connection::close));
+    }
+
+    /**
+     * Executes the action in the transaction of the connection. The transaction is committed
+     * after the action completes or rolled back on failure.
+     *
+     * @param connection the session connection
+     * @param action the action for the transaction
+     * @return the uni completed after commit
+     */
+    protected static Uni<Void> transaction(SqlConnection connection, Function<Transaction, Uni<?>> action) {
+        return Uni.createFrom().item(connection::begin)
+                .chain(tx -> action.apply(tx)
+                        .chain(tx::commit)
+                        .onFailure().call(tx::rollback)
+                );
     }
 
-    protected RowSet<Row> queryAndAwait(String sql) {
-        return queryAndAwait(client, sql);
+    /**
+     * Executes the action in the transaction. The events collected by the action are executed after commit,
+     * the events of the rolled back transaction are dropped.
+     *
+     * @param connection the session connection
+     * @param action the action with the transaction and the list of events
+     * @return the uni completed after the events
+     */
+    protected static Uni<Void> transaction(SqlConnection connection, BiFunction<Transaction, List<Runnable>, Uni<?>> action) {
+        List<Runnable> events = new ArrayList<>();
+        return transaction(connection, tx -> action.apply(tx, events))
+                .invoke(x -> events.forEach(Runnable::run));
     }
 
-    private static RowSet<Row> queryAndAwait(SqlClient client, String sql) {
+    protected Uni<RowSet<Row>> preparedQuery(SqlClient client, String sql, Tuple arguments) {
         log.debug("SQL:\n" + sql);
-        return client.query(sql).executeAndAwait();
+        return client.preparedQuery(sql).execute(arguments);
+    }
+
+    /**
+     * Executes the query of the history table and records the flight recorder event.
+     *
+     * @param client the SQL client
+     * @param name the name of the query
+     * @param sql the query
+     * @return the result of the query
+     */
+    private static Uni<RowSet<Row>> historyQuery(SqlClient client, String name, String sql) {
+        return Uni.createFrom().deferred(() -> {
+            HistoryQueryEvent event = new HistoryQueryEvent();
+            if (!event.isEnabled()) {
+                return query(client, sql);
+            }
+            event.begin();
+            return query(client, sql).onItemOrFailure().invoke((rows, failure) -> {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.query = name;
+                    event.rows = rows != null ? rows.size() : 0;
+                    event.success = failure == null;
+                    event.commit();
+                }
+            });
+        });
+    }
+
+    /**
+     * Executes the drop statement of the clean phase and records the flight recorder event.
+     *
+     * @param client the SQL client
+     * @param sql the drop statement
+     * @return the result of the statement
+     */
+    protected static Uni<RowSet<Row>> drop(SqlClient client, String sql) {
+        return Uni.createFrom().deferred(() -> {
+            CleanDropEvent event = new CleanDropEvent();
+            if (!event.isEnabled()) {
+                return query(client, sql);
+            }
+            event.begin();
+            return query(client, sql).onItemOrFailure().invoke((rows, failure) -> {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.statement = sql;
+                    event.success = failure == null;
+                    event.commit();
+                }
+            });
+        });
+    }
+
+    protected static Uni<RowSet<Row>> query(SqlClient client, String sql) {
+        return Uni.createFrom().deferred(() -> {
+            log.debug("SQL:\n" + sql);
+            return client.query(sql).execute();
+        });
+    }
+
+    /**
+     * The context of one run of the migration or the deferred migrations. The state of the run is passed
+     * through the chain of the run, the concurrent runs of the database do not share any state. The chain
+     * hands the context over between the event loop and the worker threads in sequence.
+     */
+    protected static final class Run {
+
+        private String user;
+
+        private int lockAttempts;
+
+        private long lockAcquiredAt;
+
+        private ProfileReport profile;
+
+        private RegressionReport regression;
+
+        private Map<String, long[]> baselines;
+
+        public Run() {
+            // the state is set by the run
+        }
     }
 }
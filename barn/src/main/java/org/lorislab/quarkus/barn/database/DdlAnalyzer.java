@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.database;
+
+import org.lorislab.quarkus.barn.models.DdlFinding;
+import org.lorislab.quarkus.barn.models.DdlReport;
+
+import java.io.Reader;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The build time analyzer of the migration scripts. The analyzer finds the DDL operations which rewrite the table
+ * or block the writes of the table for the whole operation. The tables created in the same script are ignored.
+ */
+public class DdlAnalyzer {
+
+    /**
+     * The rules of the analyzer.
+     */
+    public enum Rule {
+        ALTER_COLUMN_TYPE("alter-column-type",
+                "The change of the column type rewrites the table under the ACCESS EXCLUSIVE lock"),
+        VOLATILE_DEFAULT("volatile-default",
+                "The new column with the volatile default rewrites the table under the ACCESS EXCLUSIVE lock"),
+        CREATE_INDEX("create-index",
+                "The index build without CONCURRENTLY blocks the writes of the table"),
+        FOREIGN_KEY("foreign-key",
+                "The foreign key without NOT VALID validates all rows under the lock of both tables"),
+        COPY_ALGORITHM("copy-algorithm",
+                "The DDL with the COPY algorithm rebuilds the table and blocks the writes, use ALGORITHM=INPLACE or INSTANT");
+
+        private final String id;
+
+        private final String message;
+
+        Rule(String id, String message) {
+            this.id = id;
+            this.message = message;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public static Rule of(String id) {
+            for (Rule rule : values()) {
+                if (rule.id.equals(id)) {
+                    return rule;
+                }
+            }
+            throw new IllegalArgumentException("Unknown rule of the DDL analyzer: " + id + ". Values: "
+                    + Arrays.stream(values()).map(Rule::getId).collect(Collectors.toList()));
+        }
+    }
+
+    private static final int SNIPPET_LENGTH = 80;
+
+    private static final String NAME = "([\\w.\"`]+)";
+
+    private static final Pattern CREATE_TABLE = Pattern.compile("^CREATE\\s+(?:(?:GLOBAL\\s+|LOCAL\\s+)?(?:TEMPORARY|TEMP|UNLOGGED)\\s+)?TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?" + NAME);
+
+    private static final Pattern ALTER_TABLE = Pattern.compile("^ALTER\\s+TABLE\\s+(?:IF\\s+EXISTS\\s+)?(?:ONLY\\s+)?" + NAME);
+
+    private static final Pattern CREATE_INDEX = Pattern.compile("^CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(CONCURRENTLY\\s+)?.*?\\bON\\s+(?:ONLY\\s+)?" + NAME);
+
+    private static final Pattern ALTER_TYPE = Pattern.compile("\\bALTER\\s+(?:COLUMN\\s+)?[\\w\"]+\\s+(?:SET\\s+DATA\\s+)?TYPE\\b");
+
+    private static final Pattern ADD_COLUMN = Pattern.compile("\\bADD\\s+(?:COLUMN\\s+)?(?!CONSTRAINT\\b|FOREIGN\\b|PRIMARY\\b|UNIQUE\\b|CHECK\\b|INDEX\\b|KEY\\b)");
+
+    private static final Pattern VOLATILE = Pattern.compile("\\bDEFAULT\\s+[^,]*\\b(?:RANDOM|CLOCK_TIMESTAMP|TIMEOFDAY|GEN_RANDOM_UUID|UUID_GENERATE_V[14]|NEXTVAL)\\s*\\(|\\b(?:SMALL|BIG)?SERIAL\\b");
+
+    private static final Pattern FOREIGN_KEY = Pattern.compile("\\bFOREIGN\\s+KEY\\b|\\bREFERENCES\\b");
+
+    private static final Pattern NOT_VALID = Pattern.compile("\\bNOT\\s+VALID\\b");
+
+    private static final Pattern COPY = Pattern.compile("\\bALGORITHM\\s*=\\s*COPY\\b");
+
+    private static final Pattern ONLINE = Pattern.compile("\\bALGORITHM\\s*=\\s*(?:INPLACE|INSTANT)\\b");
+
+    private static final Pattern COPY_OPERATION = Pattern.compile("\\b(?:MODIFY|CHANGE)\\s+(?:COLUMN\\s+)?[\\w`]+|\\bCONVERT\\s+TO\\s+CHARACTER\\s+SET\\b|\\bDROP\\s+PRIMARY\\s+KEY\\b");
+
+    private final SqlSplitter splitter;
+
+    private final boolean mysql;
+
+    private final Map<Rule, DdlFinding.Severity> severities = new EnumMap<>(Rule.class);
+
+    /**
+     * Creates the analyzer for the database of the splitter.
+     *
+     * @param splitter the SQL splitter of the database
+     * @param severities the severities {@code off, warn, error} of the rules by the rule id, the default severity is {@code warn}
+     */
+    public DdlAnalyzer(SqlSplitter splitter, Map<String, String> severities) {
+        this.splitter = splitter;
+        this.mysql = splitter == SqlSplitter.MYSQL;
+        for (Rule rule : Rule.values()) {
+            this.severities.put(rule, DdlFinding.Severity.WARN);
+        }
+        if (severities != null) {
+            severities.forEach((id, value) -> {
+                Rule rule = Rule.of(id);
+                try {
+                    this.severities.put(rule, DdlFinding.Severity.valueOf(value.strip().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException("Wrong severity of the rule " + id + ": " + value + ". Values: [off, warn, error]");
+                }
+            });
+        }
+    }
+
+    /**
+     * Analyzes the statements of the script and adds the findings to the report.
+     *
+     * @param script the script name
+     * @param reader the script reader
+     * @param report the report
+     */
+    public void analyze(String script, Reader reader, DdlReport report) {
+        List<DdlFinding> findings = new ArrayList<>();
+        splitter.split(reader, statements(script, findings));
+        findings.forEach(report::add);
+        report.analyzed();
+    }
+
+    /**
+     * Creates the consumer of the statements without comments of the script, see {@link SqlSplitter#split(Reader, Consumer)}.
+     * The script is analyzed in the same pass as the split of the script.
+     *
+     * @param script the script name
+     * @param findings the findings of the script
+     * @return the consumer of the statements
+     */
+    public Consumer<String> statements(String script, List<DdlFinding> findings) {
+        Set<String> created = new HashSet<>();
+        int[] index = { 0 };
+        return code -> {
+            index[0]++;
+            String sql = code.replaceAll("\\s+", " ").strip();
+            for (Rule rule : check(sql, created)) {
+                DdlFinding.Severity severity = severities.get(rule);
+                if (severity != DdlFinding.Severity.OFF) {
+                    findings.add(new DdlFinding(script, index[0], rule.id, severity, rule.message, snippet(sql)));
+                }
+            }
+        };
+    }
+
+    /**
+     * Checks the statement with the rules of the database.
+     *
+     * @param sql the statement without comments
+     * @param created the tables created by the previous statements of the script
+     * @return the violated rules
+     */
+    List<Rule> check(String sql, Set<String> created) {
+        String statement = sql.toUpperCase(Locale.ROOT);
+        List<Rule> result = new ArrayList<>();
+
+        Matcher m = CREATE_TABLE.matcher(statement);
+        if (m.find()) {
+            created.add(table(m.group(1)));
+            return result;
+        }
+
+        m = CREATE_INDEX.matcher(statement);
+        if (m.find()) {
+            if (!mysql && m.group(1) == null && !created.contains(table(m.group(2)))) {
+                result.add(Rule.CREATE_INDEX);
+            }
+            return result;
+        }
+
+        m = ALTER_TABLE.matcher(statement);
+        if (!m.find() || created.contains(table(m.group(1)))) {
+            return result;
+        }
+        if (mysql) {
+            if (COPY.matcher(statement).find() || (COPY_OPERATION.matcher(statement).find() && !ONLINE.matcher(statement).find())) {
+                result.add(Rule.COPY_ALGORITHM);
+            }
+            return result;
+        }
+        if (ALTER_TYPE.matcher(statement).find()) {
+            result.add(Rule.ALTER_COLUMN_TYPE);
+        }
+        if (ADD_COLUMN.matcher(statement).find() && VOLATILE.matcher(statement).find()) {
+            result.add(Rule.VOLATILE_DEFAULT);
+        }
+        if (FOREIGN_KEY.matcher(statement).find() && !NOT_VALID.matcher(statement).find()) {
+            result.add(Rule.FOREIGN_KEY);
+        }
+        return result;
+    }
+
+    private static String table(String name) {
+        return name.replace("\"", "").replace("`", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String snippet(String sql) {
+        return sql.length() > SNIPPET_LENGTH ? sql.substring(0, SNIPPET_LENGTH) + "..." : sql;
+    }
+}
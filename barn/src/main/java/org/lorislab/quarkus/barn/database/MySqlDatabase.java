@@ -1,11 +1,15 @@
 package org.lorislab.quarkus.barn.database;
 
+import io.smallrye.mutiny.Uni;
+import io.vertx.mysqlclient.MySQLException;
 import io.vertx.mutiny.sqlclient.Pool;
 import io.vertx.mutiny.sqlclient.Row;
 import io.vertx.mutiny.sqlclient.RowIterator;
-import org.lorislab.quarkus.barn.database.Database;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import org.lorislab.quarkus.barn.BarnConfig;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 public class MySqlDatabase extends Database {
@@ -14,24 +18,35 @@ public class MySqlDatabase extends Database {
 
     private static final String LOCK_NAME = "BarnLock_";
 
+    // ER_LOCK_WAIT_TIMEOUT
+    private static final int LOCK_TIMEOUT_CODE = 1205;
+
     private final String lockName;
 
     public MySqlDatabase(String table, Pool client) {
-        super(table, client);
+        this(BarnConfig.builder().table(table).build(), client);
+    }
+
+    public MySqlDatabase(BarnConfig config, Pool client) {
+        super(config, client);
         this.lockName = LOCK_NAME + table;
     }
 
     @Override
-    protected String getCurrentUser() {
-        RowIterator<Row> it = queryAndAwait("SELECT USER()").iterator();
-        return it.hasNext() ? it.next().getString(0) : "";
+    protected Uni<String> getCurrentUser(SqlConnection connection) {
+        return query(connection, "SELECT USER()").map(rows -> {
+            RowIterator<Row> it = rows.iterator();
+            return it.hasNext() ? it.next().getString(0) : "";
+        });
     }
 
     @Override
-    protected boolean checkMigrationTable() {
-        RowIterator<Row> it = queryAndAwait(checkIfTableExistsQuery(table)).iterator();
-        int tmp = it.hasNext() ? it.next().getInteger(0) : 0;
-        return tmp > 0;
+    protected Uni<Boolean> checkMigrationTable(SqlConnection connection) {
+        return query(connection, checkIfTableExistsQuery(table)).map(rows -> {
+            RowIterator<Row> it = rows.iterator();
+            int tmp = it.hasNext() ? it.next().getInteger(0) : 0;
+            return tmp > 0;
+        });
     }
 
     public static String checkIfTableExistsQuery(String table) {
@@ -40,15 +55,18 @@ public class MySqlDatabase extends Database {
     }
 
     @Override
-    protected Boolean tryLock() {
-        RowIterator<Row> it = queryAndAwait("SELECT GET_LOCK('" + lockName + "',10)").iterator();
-        int r = it.hasNext() ? it.next().getInteger(0) : 0;
-        return r == 1;
+    protected Uni<Boolean> tryLock(SqlConnection connection, Duration wait) {
+        // GET_LOCK blocks at most the remaining budget in seconds, 0 only tries the lock
+        return query(connection, "SELECT GET_LOCK('" + lockName + "'," + wait.getSeconds() + ")").map(rows -> {
+            RowIterator<Row> it = rows.iterator();
+            int r = it.hasNext() ? it.next().getInteger(0) : 0;
+            return r == 1;
+        });
     }
 
     @Override
-    protected void unlock() {
-        queryAndAwait("SELECT RELEASE_LOCK('" + lockName + "')");
+    protected Uni<Void> unlock(SqlConnection connection) {
+        return query(connection, "SELECT RELEASE_LOCK('" + lockName + "')").map(x -> null);
     }
 
     private String sc(String name) {
@@ -58,42 +76,118 @@ public class MySqlDatabase extends Database {
     }
 
     @Override
-    protected void cleanSchema() {
+    protected Uni<Void> cleanSchema(SqlConnection connection) {
 
         // clean all events
-        for (Row row : queryAndAwait("SELECT event_name FROM information_schema.events WHERE event_schema=DATABASE()")) {
-            queryAndAwait("DROP EVENT " + sc(row.getString(0)));
-        }
+        return forEachRow(connection, "SELECT event_name FROM information_schema.events WHERE event_schema=DATABASE()",
+                row -> drop(connection, "DROP EVENT " + sc(row.getString(0))))
 
         // delete all routines
-        for (Row row : queryAndAwait("SELECT routine_name as 'N', routine_type as 'T' " +
-                "FROM information_schema.routines WHERE routine_schema=DATABASE()")) {
-            queryAndAwait("DROP " + row.getString(0) + " " + sc(row.getString(1)));
-        }
+        .chain(() -> forEachRow(connection, "SELECT routine_name as 'N', routine_type as 'T' " +
+                "FROM information_schema.routines WHERE routine_schema=DATABASE()",
+                row -> drop(connection, "DROP " + row.getString(0) + " " + sc(row.getString(1)))))
 
         // delete all views
-        for (Row row : queryAndAwait("SELECT table_name FROM information_schema.views WHERE table_schema=DATABASE()")) {
-            queryAndAwait("DROP VIEW " + sc(row.getString(0)));
-        }
+        .chain(() -> forEachRow(connection, "SELECT table_name FROM information_schema.views WHERE table_schema=DATABASE()",
+                row -> drop(connection, "DROP VIEW " + sc(row.getString(0)))))
 
         // delete all tables
-        for (Row row : queryAndAwait("SELECT table_name FROM information_schema.tables" +
-                " WHERE table_schema=DATABASE() AND table_type IN ('BASE TABLE', 'SYSTEM VERSIONED')")) {
-            queryAndAwait("DROP TABLE IF EXISTS " + sc(row.getString(0)));
-        }
-        queryAndAwait("SET FOREIGN_KEY_CHECKS = 1");
+        .chain(() -> forEachRow(connection, "SELECT table_name FROM information_schema.tables" +
+                " WHERE table_schema=DATABASE() AND table_type IN ('BASE TABLE', 'SYSTEM VERSIONED')",
+                row -> drop(connection, "DROP TABLE IF EXISTS " + sc(row.getString(0)))))
+        .chain(() -> query(connection, "SET FOREIGN_KEY_CHECKS = 1"))
 
          // delete all sequences
-        for (Row row : queryAndAwait("SELECT table_name FROM information_schema.tables" +
-                " WHERE table_schema=DATABASE() AND table_type='SEQUENCE'")) {
-            queryAndAwait(" DROP SEQUENCE " + sc(row.getString(0)));
+        .chain(() -> forEachRow(connection, "SELECT table_name FROM information_schema.tables" +
+                " WHERE table_schema=DATABASE() AND table_type='SEQUENCE'",
+                row -> drop(connection, "DROP SEQUENCE " + sc(row.getString(0)))));
+    }
+
+    @Override
+    protected SqlSplitter getSqlSplitter() {
+        return SqlSplitter.MYSQL;
+    }
+
+    /**
+     * The statistics from the {@code performance_schema}. The rows are the statements of the current connection,
+     * the buffer pool reads, temporary file and redo log writes are global statistics of the server.
+     */
+    @Override
+    protected String getProfileSQL() {
+        return "SELECT " + status("Innodb_buffer_pool_reads") + ", " +
+                status("Innodb_buffer_pool_read_requests") + " - " + status("Innodb_buffer_pool_reads") + ", NULL, NULL," +
+                " (SELECT CAST(SUM(ROWS_AFFECTED + ROWS_SENT) AS SIGNED) FROM performance_schema.events_statements_summary_by_thread_by_event_name" +
+                " WHERE THREAD_ID = (SELECT THREAD_ID FROM performance_schema.threads WHERE PROCESSLIST_ID = CONNECTION_ID()))," +
+                " (SELECT CAST(SUM(SUM_NUMBER_OF_BYTES_WRITE) AS SIGNED) FROM performance_schema.file_summary_by_event_name" +
+                " WHERE EVENT_NAME IN ('wait/io/file/innodb/innodb_temp_file', 'wait/io/file/sql/io_cache'))," +
+                " " + status("Innodb_os_log_written");
+    }
+
+    private static String status(String name) {
+        return "(SELECT CAST(VARIABLE_VALUE AS SIGNED) FROM performance_schema.global_status WHERE VARIABLE_NAME = '" + name + "')";
+    }
+
+    protected String getInsertMigrationSQL(int rows) {
+        StringBuilder sb = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (id,version,description,type,script,checksum,execution_time,success,installed_by) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sb.append(i == 0 ? "" : ",").append("(?,?,?,?,?,?,?,?,?)");
         }
+        return sb.toString();
     }
 
-    protected String getInsertMigrationSQL() {
-        return "INSERT INTO " + table +
-                " (id,version,description,type,script,checksum,execution_time,success,installed_by)" +
-                " VALUES (?,?,?,?,?,?,?,?,?)";
+    /**
+     * The lock timeout is set for the metadata locks and the InnoDB row locks in seconds. The statement timeout
+     * {@code max_execution_time} is applied only to the {@code SELECT} statements.
+     */
+    @Override
+    protected List<String> getScriptTimeoutSQL(Duration lockTimeout, Duration statementTimeout) {
+        List<String> result = new ArrayList<>(3);
+        if (lockTimeout != null) {
+            long seconds = Math.max(1, (lockTimeout.toMillis() + 999) / 1000);
+            result.add("SET SESSION lock_wait_timeout = " + seconds);
+            result.add("SET SESSION innodb_lock_wait_timeout = " + seconds);
+        }
+        if (statementTimeout != null) {
+            result.add("SET SESSION max_execution_time = " + statementTimeout.toMillis());
+        }
+        return result;
+    }
+
+    @Override
+    protected List<String> getResetScriptTimeoutSQL(Duration lockTimeout, Duration statementTimeout) {
+        List<String> result = new ArrayList<>(3);
+        if (lockTimeout != null) {
+            result.add("SET SESSION lock_wait_timeout = DEFAULT");
+            result.add("SET SESSION innodb_lock_wait_timeout = DEFAULT");
+        }
+        if (statementTimeout != null) {
+            result.add("SET SESSION max_execution_time = DEFAULT");
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean isScriptLockTimeout(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof MySQLException && ((MySQLException) t).getErrorCode() == LOCK_TIMEOUT_CODE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The DDL statements commit the transaction implicitly.
+     */
+    @Override
+    protected boolean isTransactionalDdl() {
+        return false;
+    }
+
+    @Override
+    protected String param(int index) {
+        return "?";
     }
 
     @Override
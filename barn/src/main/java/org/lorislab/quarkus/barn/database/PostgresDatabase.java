@@ -1,37 +1,66 @@
 package org.lorislab.quarkus.barn.database;
 
+import io.smallrye.mutiny.Uni;
+import io.vertx.pgclient.PgConnection;
+import io.vertx.pgclient.PgException;
 import io.vertx.mutiny.sqlclient.Pool;
 import io.vertx.mutiny.sqlclient.Row;
 import io.vertx.mutiny.sqlclient.RowIterator;
-import org.lorislab.quarkus.barn.models.ResourceLoader;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class PostgresDatabase extends Database {
 
+    private static Logger log = LoggerFactory.getLogger(PostgresDatabase.class);
+
     public static final String POOL = "io.vertx.mutiny.pgclient.PgPool";
 
     // b + a + r + n + d + b
     private static final long LOCK_NUM = + (0x62L << 48) + (0x61L << 32) + (0x72L << 24) + (0x6E << 16) + (0x64 << 8) + 0x62;
 
+    // lock_not_available
+    private static final String LOCK_TIMEOUT_CODE = "55P03";
+
+    private static final String CHANNEL_PREFIX = "barn_";
+
+    // the payload of the failed migration, the version could not start with '!'
+    static final String FAILURE_PAYLOAD = "!failed";
+
     private final long lockNum;
 
+    private final String channel;
+
     public PostgresDatabase(String table, Pool client) {
-        super(table, client);
+        this(BarnConfig.builder().table(table).build(), client);
+    }
+
+    public PostgresDatabase(BarnConfig config, Pool client) {
+        super(config, client);
         this.lockNum = LOCK_NUM + table.hashCode();
+        this.channel = CHANNEL_PREFIX + table;
     }
 
     @Override
-    protected String getCurrentUser() {
-        RowIterator<Row> it = queryAndAwait("SELECT CURRENT_USER").iterator();
-        return it.hasNext() ? it.next().getString(0) : "";
+    protected Uni<String> getCurrentUser(SqlConnection connection) {
+        return query(connection, "SELECT CURRENT_USER").map(rows -> {
+            RowIterator<Row> it = rows.iterator();
+            return it.hasNext() ? it.next().getString(0) : "";
+        });
     }
 
-    protected boolean checkMigrationTable() {
-        RowIterator<Row> it = queryAndAwait(checkIfTableExistsQuery( table)).iterator();
-        int tmp = it.hasNext() ? it.next().getInteger(0) : 0;
-        return tmp > 0;
+    protected Uni<Boolean> checkMigrationTable(SqlConnection connection) {
+        return query(connection, checkIfTableExistsQuery(table)).map(rows -> {
+            RowIterator<Row> it = rows.iterator();
+            int tmp = it.hasNext() ? it.next().getInteger(0) : 0;
+            return tmp > 0;
+        });
     }
 
     public static String checkIfTableExistsQuery(String table) {
@@ -39,21 +68,165 @@ public class PostgresDatabase extends Database {
     }
 
     @Override
-    protected Boolean tryLock() {
-        RowIterator<Row> it = queryAndAwait("SELECT pg_try_advisory_lock(" + lockNum + ")").iterator();
-        return it.hasNext() ? it.next().getBoolean("pg_try_advisory_lock") : false;
+    protected Uni<Boolean> tryLock(SqlConnection connection, Duration wait) {
+        if (wait.isZero()) {
+            return query(connection, "SELECT pg_try_advisory_lock(" + lockNum + ")").map(rows -> {
+                RowIterator<Row> it = rows.iterator();
+                return it.hasNext() ? it.next().getBoolean("pg_try_advisory_lock") : false;
+            });
+        }
+        // blocking lock limited by the lock_timeout of the session
+        return query(connection, "SET lock_timeout = " + Math.max(wait.toMillis(), 1))
+                .chain(() -> query(connection, "SELECT pg_advisory_lock(" + lockNum + ")"))
+                .map(rows -> true)
+                .onFailure(PostgresDatabase::isLockTimeout).recoverWithItem(false)
+                .onItemOrFailure().call((locked, ex) -> query(connection, "RESET lock_timeout"));
+    }
+
+    @Override
+    protected Uni<Boolean> awaitLeader(SqlConnection connection, Long fingerprint) {
+        if (!(connection.getDelegate() instanceof PgConnection)) {
+            return super.awaitLeader(connection, fingerprint);
+        }
+        PgConnection pg = (PgConnection) connection.getDelegate();
+
+        // register the handler before LISTEN to not miss the notification
+        CompletableFuture<String> notification = new CompletableFuture<>();
+        pg.notificationHandler(n -> {
+            if (channel.equals(n.getChannel())) {
+                notification.complete(n.getPayload());
+            }
+        });
+
+        return query(connection, "LISTEN \"" + channel + "\"")
+                // the leader could finish before LISTEN
+                .chain(() -> checkFingerprint(connection, fingerprint))
+                .chain(match -> {
+                    if (match) {
+                        return Uni.createFrom().item(true);
+                    }
+                    return Uni.createFrom().completionStage(notification)
+                            .ifNoItem().after(config.getFollowerTimeout()).recoverWithItem(() -> null)
+                            .chain(version -> {
+                                if (version == null) {
+                                    return Uni.createFrom().item(false);
+                                }
+                                if (FAILURE_PAYLOAD.equals(version)) {
+                                    log.warn("Migration leader failed.");
+                                    return Uni.createFrom().item(false);
+                                }
+                                log.info("Migration leader finished. Database version: {}", version);
+                                return checkFingerprint(connection, fingerprint);
+                            });
+                })
+                .onItemOrFailure().call((migrated, ex) -> {
+                    pg.notificationHandler(null);
+                    return query(connection, "UNLISTEN \"" + channel + "\"");
+                });
+    }
+
+    @Override
+    protected Uni<Void> notifyFollowers(SqlConnection connection, String version) {
+        return query(connection, "SELECT pg_notify('" + channel + "', '" + (version != null ? version : "") + "')")
+                .map(x -> null);
+    }
+
+    @Override
+    protected Uni<Void> notifyFailure(SqlConnection connection, Throwable failure) {
+        return query(connection, "SELECT pg_notify('" + channel + "', '" + FAILURE_PAYLOAD + "')")
+                .map(x -> null);
+    }
+
+    static boolean isLockTimeout(Throwable ex) {
+        return ex instanceof PgException && LOCK_TIMEOUT_CODE.equals(((PgException) ex).getCode());
+    }
+
+    @Override
+    protected Uni<Void> unlock(SqlConnection connection) {
+        return query(connection, "SELECT pg_advisory_unlock(" + lockNum + ")").map(x -> null);
+    }
+
+    @Override
+    protected SqlSplitter getSqlSplitter() {
+        return SqlSplitter.POSTGRES;
+    }
+
+    @Override
+    protected boolean isPipelining() {
+        return true;
+    }
+
+    /**
+     * The statistics of the current database from the {@code pg_stat_statements} extension and the WAL position.
+     * The statistics contain the statements of all sessions of the database.
+     */
+    @Override
+    protected String getProfileSQL() {
+        return "SELECT sum(s.shared_blks_read)::bigint, sum(s.shared_blks_hit)::bigint," +
+                " sum(s.local_blks_read)::bigint, sum(s.local_blks_hit)::bigint, sum(s.rows)::bigint," +
+                " (sum(s.temp_blks_written) * current_setting('block_size')::bigint)::bigint," +
+                " pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')::bigint" +
+                " FROM pg_stat_statements s WHERE s.dbid = (SELECT oid FROM pg_database WHERE datname = current_database())";
+    }
+
+    @Override
+    protected List<String> getScriptTimeoutSQL(Duration lockTimeout, Duration statementTimeout) {
+        List<String> result = new ArrayList<>(2);
+        if (lockTimeout != null) {
+            result.add("SET lock_timeout = " + lockTimeout.toMillis());
+        }
+        if (statementTimeout != null) {
+            result.add("SET statement_timeout = " + statementTimeout.toMillis());
+        }
+        return result;
+    }
+
+    @Override
+    protected List<String> getResetScriptTimeoutSQL(Duration lockTimeout, Duration statementTimeout) {
+        List<String> result = new ArrayList<>(2);
+        if (lockTimeout != null) {
+            result.add("RESET lock_timeout");
+        }
+        if (statementTimeout != null) {
+            result.add("RESET statement_timeout");
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean isScriptLockTimeout(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (isLockTimeout(t)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
-    protected void unlock() {
-        queryAndAwait("SELECT pg_advisory_unlock(" + lockNum + ")");
+    protected String getInvalidIndexesSQL() {
+        return "SELECT quote_ident(n.nspname) || '.' || quote_ident(c.relname) FROM pg_index i" +
+                " JOIN pg_class c ON c.oid = i.indexrelid JOIN pg_namespace n ON n.oid = c.relnamespace" +
+                " WHERE NOT i.indisvalid AND n.nspname = current_schema()";
     }
 
     @Override
-    protected String getInsertMigrationSQL() {
-        return "INSERT INTO " + table +
-                " (id,version,description,type,script,checksum,execution_time,success,installed_by)" +
-                " VALUES ($1,$2,$3,$4,$5,$6,$7,$8,$9)";
+    protected String getDropIndexSQL(String index) {
+        return "DROP INDEX CONCURRENTLY IF EXISTS " + index;
+    }
+
+    @Override
+    protected String getInsertMigrationSQL(int rows) {
+        StringBuilder sb = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (id,version,description,type,script,checksum,execution_time,success,installed_by) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sb.append(i == 0 ? "(" : ",(");
+            for (int j = 1; j <= 9; j++) {
+                sb.append(j == 1 ? "$" : ",$").append(i * 9 + j);
+            }
+            sb.append(")");
+        }
+        return sb.toString();
     }
 
     @Override
@@ -78,89 +251,82 @@ public class PostgresDatabase extends Database {
         return value;
     }
 
-    public void cleanSchema() {
+    public Uni<Void> cleanSchema(SqlConnection connection) {
 
         // drop all materialized views
-        for (Row row : queryAndAwait("SELECT relname FROM pg_catalog.pg_class c " +
+        return forEachRow(connection, "SELECT relname FROM pg_catalog.pg_class c " +
                 " JOIN pg_namespace n ON n.oid = c.relnamespace " +
-                " WHERE c.relkind = 'm' AND n.nspname = current_schema()")) {
-            queryAndAwait("DROP MATERIALIZED VIEW IF EXISTS " + sc(row.getString(0)) + " CASCADE");
-        }
+                " WHERE c.relkind = 'm' AND n.nspname = current_schema()",
+                row -> drop(connection, "DROP MATERIALIZED VIEW IF EXISTS " + sc(row.getString(0)) + " CASCADE"))
 
         // drop all statement views
-        for (Row row : queryAndAwait("SELECT relname FROM pg_catalog.pg_class c " +
+        .chain(() -> forEachRow(connection, "SELECT relname FROM pg_catalog.pg_class c " +
                 " JOIN pg_namespace n ON n.oid = c.relnamespace" +
                 " LEFT JOIN pg_depend dep ON dep.objid = c.oid AND dep.deptype = 'e' " +
-                " WHERE c.relkind = 'v' AND  n.nspname = current_schema() AND  dep.objid IS NULL")) {
-            queryAndAwait("DROP VIEW IF EXISTS " + sc(row.getString(0)) + " CASCADE");
-        }
+                " WHERE c.relkind = 'v' AND  n.nspname = current_schema() AND  dep.objid IS NULL",
+                row -> drop(connection, "DROP VIEW IF EXISTS " + sc(row.getString(0)) + " CASCADE")))
 
         // drop all tables
-        for (Row row : queryAndAwait("SELECT t.table_name FROM information_schema.tables t" +
+        .chain(() -> forEachRow(connection, "SELECT t.table_name FROM information_schema.tables t" +
                 " LEFT JOIN pg_depend dep ON dep.objid = (quote_ident(t.table_schema)||'.'||quote_ident(t.table_name))::regclass::oid AND dep.deptype = 'e'" +
                 " WHERE t.table_schema=current_schema() AND table_type='BASE TABLE' AND dep.objid IS NULL" +
                 " AND NOT (SELECT EXISTS (SELECT inhrelid FROM pg_catalog.pg_inherits" +
-                " WHERE inhrelid = (quote_ident(t.table_schema)||'.'||quote_ident(t.table_name))::regclass::oid))")) {
-            queryAndAwait("DROP TABLE " + sc(row.getString(0)) + " CASCADE");
-        }
+                " WHERE inhrelid = (quote_ident(t.table_schema)||'.'||quote_ident(t.table_name))::regclass::oid))",
+                row -> drop(connection, "DROP TABLE " + sc(row.getString(0)) + " CASCADE")))
 
         // drop all statements for base types and created user types
-        for (Row row : queryAndAwait("SELECT typname, typcategory FROM pg_catalog.pg_type t LEFT JOIN pg_depend dep ON dep.objid = t.oid AND dep.deptype = 'e'" +
+        .chain(() -> forEachRow(connection, "SELECT typname, typcategory FROM pg_catalog.pg_type t LEFT JOIN pg_depend dep ON dep.objid = t.oid AND dep.deptype = 'e'" +
                 " WHERE (t.typrelid = 0 OR (SELECT c.relkind = 'c' FROM pg_catalog.pg_class c WHERE c.oid = t.typrelid))" +
                 " AND NOT EXISTS(SELECT 1 FROM pg_catalog.pg_type el WHERE el.oid = t.typelem AND el.typarray = t.oid)" +
                 " AND t.typnamespace IN (SELECT oid FROM pg_catalog.pg_namespace WHERE nspname = current_schema())" +
-                " AND dep.objid IS NULL AND t.typtype != 'd'")) {
+                " AND dep.objid IS NULL AND t.typtype != 'd'",
+                row -> {
+                    String typename = row.getString(0);
+                    String t = row.getString(1);
+                    Uni<?> drop = drop(connection, "DROP TYPE IF EXISTS  " + sc(typename) + " CASCADE");
 
-            String typename = row.getString(0);
-            queryAndAwait("DROP TYPE IF EXISTS  " + sc(typename) + " CASCADE");
-            String t = row.getString(1);
-
-            // Only recreate Pseudo-types (P) and User-defined types (U)
-            if ("P".equals(t) || "U".equals(t)) {
-                queryAndAwait("CREATE TYPE " + sc(typename) + " CASCADE");
-            }
-        }
+                    // Only recreate Pseudo-types (P) and User-defined types (U)
+                    if ("P".equals(t) || "U".equals(t)) {
+                        return drop.chain(() -> query(connection, "CREATE TYPE " + sc(typename) + " CASCADE"));
+                    }
+                    return drop;
+                }))
 
         // dropping all routines in this schema
-        for (Row row : queryAndAwait("SELECT proname, oidvectortypes(proargtypes) AS args," +
+        .chain(() -> forEachRow(connection, "SELECT proname, oidvectortypes(proargtypes) AS args," +
                 " CASE WHEN pg_proc.prokind='p' THEN 'PROCEDURE'" +
                 "   WHEN pg_proc.prokind='a' THEN 'AGGREGATE'" +
                 "   ELSE 'FUNCTION'" +
                 " END as type" +
                 " FROM pg_proc INNER JOIN pg_namespace ns ON (pg_proc.pronamespace = ns.oid)\n" +
                 " LEFT JOIN pg_depend dep ON dep.objid = pg_proc.oid AND dep.deptype = 'e'\n" +
-                " WHERE ns.nspname = current_schema() AND dep.objid IS NULL")) {
-            queryAndAwait("DROP " + row.getString(2) + " IF EXISTS " + sc(row.getString(0))
-                    + "(" + row.getString(1) + ")  CASCADE"
-            );
-        }
+                " WHERE ns.nspname = current_schema() AND dep.objid IS NULL",
+                row -> drop(connection, "DROP " + row.getString(2) + " IF EXISTS " + sc(row.getString(0))
+                        + "(" + row.getString(1) + ")  CASCADE"
+                )))
 
         // dropping the enums in this schema
-        for (Row row : queryAndAwait("SELECT t.typname FROM pg_catalog.pg_type t INNER JOIN pg_catalog.pg_namespace n ON n.oid = t.typnamespace" +
-                " WHERE n.nspname = current_schema() AND t.typtype = 'e'")) {
-            queryAndAwait("DROP TYPE  " + sc(row.getString(0)));
-        }
+        .chain(() -> forEachRow(connection, "SELECT t.typname FROM pg_catalog.pg_type t INNER JOIN pg_catalog.pg_namespace n ON n.oid = t.typnamespace" +
+                " WHERE n.nspname = current_schema() AND t.typtype = 'e'",
+                row -> drop(connection, "DROP TYPE  " + sc(row.getString(0)))))
 
         // dropping the domains in this schema
-        for (Row row : queryAndAwait("SELECT t.typname as domain_name FROM pg_catalog.pg_type t " +
+        .chain(() -> forEachRow(connection, "SELECT t.typname as domain_name FROM pg_catalog.pg_type t " +
                 " LEFT JOIN pg_catalog.pg_namespace n ON n.oid = t.typnamespace" +
                 " LEFT JOIN pg_depend dep ON dep.objid = t.oid AND dep.deptype = 'e'" +
-                " WHERE t.typtype = 'd'  AND n.nspname = current_schema()  AND dep.objid IS NULL")) {
-            queryAndAwait("DROP DOMAIN  " + sc(row.getString(0)));
-        }
+                " WHERE t.typtype = 'd'  AND n.nspname = current_schema()  AND dep.objid IS NULL",
+                row -> drop(connection, "DROP DOMAIN  " + sc(row.getString(0)))))
 
         // dropping the sequences in this schema
-        for (Row row : queryAndAwait("SELECT sequence_name FROM information_schema.sequences WHERE sequence_schema=current_schema()")) {
-            queryAndAwait("DROP TYPE " + sc(row.getString(0)) + " CASCADE");
-        }
+        .chain(() -> forEachRow(connection, "SELECT sequence_name FROM information_schema.sequences WHERE sequence_schema=current_schema()",
+                row -> drop(connection, "DROP TYPE " + sc(row.getString(0)) + " CASCADE")))
 
         // drop all statements for base types
-        for (Row row : queryAndAwait("SELECT typname, typcategory FROM pg_catalog.pg_type t LEFT JOIN pg_depend dep ON dep.objid = t.oid AND dep.deptype = 'e'" +
+        .chain(() -> forEachRow(connection, "SELECT typname, typcategory FROM pg_catalog.pg_type t LEFT JOIN pg_depend dep ON dep.objid = t.oid AND dep.deptype = 'e'" +
                 " WHERE (t.typrelid = 0 OR (SELECT c.relkind = 'c' FROM pg_catalog.pg_class c WHERE c.oid = t.typrelid))" +
                 " AND NOT EXISTS(SELECT 1 FROM pg_catalog.pg_type el WHERE el.oid = t.typelem AND el.typarray = t.oid)" +
                 " AND t.typnamespace IN (SELECT oid FROM pg_catalog.pg_namespace WHERE nspname = current_schema())" +
-                " AND dep.objid IS NULL AND t.typtype != 'd'")) {
-            queryAndAwait("DROP TYPE IF EXISTS " + sc(row.getString(0)) + " CASCADE");
-        }
+                " AND dep.objid IS NULL AND t.typtype != 'd'",
+                row -> drop(connection, "DROP TYPE IF EXISTS " + sc(row.getString(0)) + " CASCADE")));
     }
 }
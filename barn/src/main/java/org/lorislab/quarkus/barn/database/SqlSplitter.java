@@ -0,0 +1,533 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.database;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * The dialect-aware splitter of the SQL scripts. The splitter skips string literals, quoted identifiers
+ * and comments, supports the Postgres dollar quoting and the Mysql {@code DELIMITER} command.
+ * The script is read in chunks and only the current statement is kept in memory.
+ * The result of the split are the offsets {@code [start, end)} of the statements in the script
+ * or the statements itself.
+ */
+public class SqlSplitter {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    public static final SqlSplitter POSTGRES = new SqlSplitter(false, CHUNK_SIZE);
+
+    public static final SqlSplitter MYSQL = new SqlSplitter(true, CHUNK_SIZE);
+
+    private static final String DEFAULT_DELIMITER = ";";
+
+    private static final String DELIMITER = "DELIMITER";
+
+    private final boolean mysql;
+
+    private final int chunkSize;
+
+    private SqlSplitter(boolean mysql, int chunkSize) {
+        this.mysql = mysql;
+        this.chunkSize = chunkSize;
+    }
+
+    SqlSplitter withChunkSize(int chunkSize) {
+        return new SqlSplitter(mysql, chunkSize);
+    }
+
+    /**
+     * Gets the splitter for the pool class.
+     *
+     * @param pool the pool class name
+     * @return the splitter or {@code null} for not supported pool.
+     */
+    public static SqlSplitter forPool(String pool) {
+        if (PostgresDatabase.POOL.equals(pool)) {
+            return POSTGRES;
+        }
+        if (MySqlDatabase.POOL.equals(pool)) {
+            return MYSQL;
+        }
+        return null;
+    }
+
+    /**
+     * Splits the SQL script to the statements.
+     *
+     * @param sql the SQL script
+     * @return the offsets of the statements, two items {@code start, end} for each statement.
+     */
+    public int[] split(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return new int[0];
+        }
+        return split(new StringReader(sql));
+    }
+
+    /**
+     * Splits the SQL script to the statements. The reader is read to the end of the script.
+     *
+     * @param reader the SQL script reader
+     * @return the offsets of the statements, two items {@code start, end} for each statement.
+     */
+    public int[] split(Reader reader) {
+        return split(reader, null);
+    }
+
+    /**
+     * Splits the SQL script to the statements and passes the statements without comments to the consumer
+     * in the same pass. The comment markers in the string literals and quoted identifiers are not comments.
+     *
+     * @param reader the SQL script reader
+     * @param code the consumer of the statements without comments or {@code null}
+     * @return the offsets of the statements, two items {@code start, end} for each statement.
+     */
+    public int[] split(Reader reader, Consumer<String> code) {
+        Scanner scanner = new Scanner(reader);
+        int[] result = new int[16];
+        int size = 0;
+        while (scanner.next()) {
+            if (size + 2 > result.length) {
+                result = Arrays.copyOf(result, result.length * 2);
+            }
+            result[size++] = scanner.begin;
+            result[size++] = scanner.end;
+            if (code != null) {
+                code.accept(scanner.code());
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Parses the statements of the script while iterating.
+     *
+     * @param reader the SQL script reader
+     * @return the iterator of the statements
+     */
+    public Iterator<String> statements(Reader reader) {
+        Scanner scanner = new Scanner(reader);
+        return new StatementIterator() {
+            @Override
+            protected String read() {
+                return scanner.next() ? scanner.text() : null;
+            }
+        };
+    }
+
+    /**
+     * Reads the statements of the script with the offsets created by the split of the script.
+     *
+     * @param reader the SQL script reader
+     * @param offsets the offsets of the statements
+     * @return the iterator of the statements
+     */
+    public static Iterator<String> statements(Reader reader, int[] offsets) {
+        return new StatementIterator() {
+
+            private int index;
+
+            private long position;
+
+            @Override
+            protected String read() throws IOException {
+                if (index + 1 >= offsets.length) {
+                    return null;
+                }
+                int start = offsets[index];
+                int end = offsets[index + 1];
+                index += 2;
+                while (position < start) {
+                    long skip = reader.skip(start - position);
+                    if (skip <= 0) {
+                        throw new IOException("Unexpected end of the script at offset " + position);
+                    }
+                    position += skip;
+                }
+                char[] data = new char[end - start];
+                int read = 0;
+                while (read < data.length) {
+                    int count = reader.read(data, read, data.length - read);
+                    if (count < 0) {
+                        throw new IOException("Unexpected end of the script at offset " + (position + read));
+                    }
+                    read += count;
+                }
+                position = end;
+                return new String(data);
+            }
+        };
+    }
+
+    /**
+     * Gets the statements of the script.
+     *
+     * @param sql the SQL script
+     * @param offsets the offsets of the statements
+     * @return the list of statements
+     */
+    public static List<String> statements(String sql, int[] offsets) {
+        List<String> result = new ArrayList<>(offsets.length / 2);
+        for (int i = 0; i + 1 < offsets.length; i += 2) {
+            result.add(sql.substring(offsets[i], offsets[i + 1]));
+        }
+        return result;
+    }
+
+    private abstract static class StatementIterator implements Iterator<String> {
+
+        private String next;
+
+        private boolean done;
+
+        protected abstract String read() throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    next = read();
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Error read the SQL script", ex);
+                }
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    /**
+     * The scanner of the script. The buffer contains the text from the start of the current statement,
+     * the text of the previous statements is discarded.
+     */
+    private class Scanner {
+
+        private final Reader reader;
+
+        private final char[] chunk = new char[chunkSize];
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        // absolute offset of the first char in the buffer
+        private int base;
+
+        private boolean eof;
+
+        private int position;
+
+        private String delimiter = DEFAULT_DELIMITER;
+
+        private boolean lineStart = true;
+
+        private int begin;
+
+        private int end;
+
+        // absolute offsets [start, end) of the comments of the current statement
+        private int[] comments = new int[8];
+
+        private int commentCount;
+
+        Scanner(Reader reader) {
+            this.reader = reader;
+        }
+
+        String text() {
+            return buffer.substring(begin - base, end - base);
+        }
+
+        /**
+         * Gets the text of the current statement, the comments are replaced by a space.
+         *
+         * @return the statement without comments
+         */
+        String code() {
+            StringBuilder sb = new StringBuilder(end - begin);
+            int from = begin;
+            for (int k = 0; k < commentCount; k += 2) {
+                int start = Math.max(comments[k], from);
+                int stop = Math.min(comments[k + 1], end);
+                if (start < stop) {
+                    sb.append(buffer, from - base, start - base).append(' ');
+                    from = stop;
+                }
+            }
+            return sb.append(buffer, from - base, end - base).toString();
+        }
+
+        boolean next() {
+            int start = position;
+            boolean content = false;
+            int i = position;
+            commentCount = 0;
+            discard(start);
+            while (more(i)) {
+                char c = at(i);
+
+                // line start and whitespaces
+                if (c == '\n') {
+                    lineStart = true;
+                    i++;
+                    continue;
+                }
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+
+                // mysql client command: DELIMITER <delimiter>
+                if (mysql && lineStart && !content && isDelimiterCommand(i)) {
+                    int eol = lineEnd(i);
+                    String value = buffer.substring(i + DELIMITER.length() - base, eol - base).trim();
+                    if (!value.isEmpty()) {
+                        delimiter = value;
+                    }
+                    i = eol;
+                    start = eol;
+                    discard(start);
+                    continue;
+                }
+                lineStart = false;
+
+                // comments
+                int next = peek(i + 1);
+                if ((c == '-' && next == '-') || (mysql && c == '#')) {
+                    int eol = lineEnd(i);
+                    comment(i, eol);
+                    i = eol;
+                    continue;
+                }
+                if (c == '/' && next == '*') {
+                    int stop = skipBlockComment(i);
+                    if (mysql && peek(i + 2) == '!') {
+                        // mysql executable comment
+                        content = true;
+                    } else {
+                        comment(i, stop);
+                    }
+                    i = stop;
+                    continue;
+                }
+
+                // statement delimiter
+                if (startsWith(delimiter, i)) {
+                    if (content) {
+                        statement(start, i);
+                        position = i + delimiter.length();
+                        return true;
+                    }
+                    i += delimiter.length();
+                    start = i;
+                    discard(start);
+                    continue;
+                }
+
+                content = true;
+                if (c == '\'') {
+                    i = skipQuoted(i, '\'', mysql || isEscapeString(i));
+                } else if (c == '"') {
+                    i = skipQuoted(i, '"', mysql);
+                } else if (mysql && c == '`') {
+                    i = skipQuoted(i, '`', false);
+                } else if (!mysql && c == '$') {
+                    i = skipDollarQuoted(i);
+                } else {
+                    i++;
+                }
+            }
+            position = i;
+            if (content) {
+                statement(start, i);
+                return true;
+            }
+            return false;
+        }
+
+        private void comment(int start, int stop) {
+            if (commentCount + 2 > comments.length) {
+                comments = Arrays.copyOf(comments, comments.length * 2);
+            }
+            comments[commentCount++] = start;
+            comments[commentCount++] = stop;
+        }
+
+        private void statement(int start, int stop) {
+            while (start < stop && Character.isWhitespace(at(start))) {
+                start++;
+            }
+            while (stop > start && Character.isWhitespace(at(stop - 1))) {
+                stop--;
+            }
+            begin = start;
+            end = stop;
+        }
+
+        private boolean more(int index) {
+            while (!eof && index >= base + buffer.length()) {
+                try {
+                    int count = reader.read(chunk);
+                    if (count < 0) {
+                        eof = true;
+                    } else {
+                        buffer.append(chunk, 0, count);
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Error read the SQL script", ex);
+                }
+            }
+            return index < base + buffer.length();
+        }
+
+        private void discard(int index) {
+            int count = Math.min(index - base, buffer.length());
+            if (count > 0) {
+                buffer.delete(0, count);
+                base += count;
+            }
+        }
+
+        private char at(int index) {
+            return buffer.charAt(index - base);
+        }
+
+        private int peek(int index) {
+            if (index < base) {
+                return ' ';
+            }
+            return more(index) ? at(index) : -1;
+        }
+
+        private boolean startsWith(String value, int index) {
+            for (int k = 0; k < value.length(); k++) {
+                if (!more(index + k) || at(index + k) != value.charAt(k)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int lineEnd(int index) {
+            while (more(index) && at(index) != '\n') {
+                index++;
+            }
+            return index;
+        }
+
+        private boolean isDelimiterCommand(int index) {
+            for (int k = 0; k < DELIMITER.length(); k++) {
+                if (!more(index + k) || Character.toUpperCase(at(index + k)) != DELIMITER.charAt(k)) {
+                    return false;
+                }
+            }
+            int c = peek(index + DELIMITER.length());
+            return c != -1 && c != '\n' && Character.isWhitespace(c);
+        }
+
+        private int skipBlockComment(int index) {
+            int depth = 0;
+            while (more(index)) {
+                if (startsWith("/*", index)) {
+                    // postgres supports nested comments
+                    depth = mysql ? 1 : depth + 1;
+                    index += 2;
+                } else if (startsWith("*/", index)) {
+                    depth--;
+                    index += 2;
+                    if (depth == 0) {
+                        return index;
+                    }
+                } else {
+                    index++;
+                }
+            }
+            return index;
+        }
+
+        private boolean isEscapeString(int index) {
+            // postgres E'...' string constant with C-style escapes
+            int prefix = peek(index - 1);
+            return (prefix == 'E' || prefix == 'e') && !isIdentifierPart(peek(index - 2));
+        }
+
+        private int skipQuoted(int index, char quote, boolean backslash) {
+            index++;
+            while (more(index)) {
+                char c = at(index);
+                if (backslash && c == '\\') {
+                    index += 2;
+                } else if (c == quote) {
+                    if (peek(index + 1) == quote) {
+                        index += 2;
+                    } else {
+                        return index + 1;
+                    }
+                } else {
+                    index++;
+                }
+            }
+            return index;
+        }
+
+        private int skipDollarQuoted(int index) {
+            if (isIdentifierPart(peek(index - 1))) {
+                return index + 1;
+            }
+            int j = index + 1;
+            if (more(j) && Character.isDigit(at(j))) {
+                // positional parameter $1
+                return j;
+            }
+            while (more(j) && (Character.isLetterOrDigit(at(j)) || at(j) == '_')) {
+                j++;
+            }
+            if (!more(j) || at(j) != '$') {
+                return index + 1;
+            }
+            String tag = buffer.substring(index - base, j + 1 - base);
+            j++;
+            while (more(j)) {
+                if (startsWith(tag, j)) {
+                    return j + tag.length();
+                }
+                j++;
+            }
+            return j;
+        }
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return c >= 0 && (Character.isLetterOrDigit(c) || c == '_' || c == '$');
+    }
+}
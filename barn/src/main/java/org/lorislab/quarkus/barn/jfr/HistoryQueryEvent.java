@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The query of the history table.
+ */
+@Name(HistoryQueryEvent.NAME)
+@Label("History Query")
+@Category("Barn")
+@Description("Query of the history table")
+@Enabled(false)
+@StackTrace(false)
+public class HistoryQueryEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "org.lorislab.barn.HistoryQuery";
+
+    @Label("Query")
+    @Description("The query: history, latest or fingerprint")
+    public String query;
+
+    @Label("Rows")
+    @Description("The number of returned rows")
+    public int rows;
+
+    @Label("Success")
+    public boolean success;
+}
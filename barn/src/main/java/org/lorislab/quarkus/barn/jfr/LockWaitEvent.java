@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The wait for the migration lock.
+ */
+@Name(LockWaitEvent.NAME)
+@Label("Lock Wait")
+@Category("Barn")
+@Description("Wait for the migration lock")
+@Enabled(false)
+@StackTrace(false)
+public class LockWaitEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "org.lorislab.barn.LockWait";
+
+    public static final String ACQUIRED = "acquired";
+
+    public static final String BUSY = "busy";
+
+    public static final String FAILED = "failed";
+
+    @Label("Attempts")
+    @Description("The number of attempts to acquire the lock")
+    public int attempts;
+
+    @Label("Outcome")
+    @Description("The outcome of the wait: acquired, busy or failed")
+    public String outcome;
+}
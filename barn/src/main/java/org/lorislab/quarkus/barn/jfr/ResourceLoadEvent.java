@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The load of the script resource. The duration is the time from the open to the close of the resource.
+ */
+@Name(ResourceLoadEvent.NAME)
+@Label("Resource Load")
+@Category("Barn")
+@Description("Load of the script resource from the bundle or the classpath")
+@Enabled(false)
+@StackTrace(false)
+public class ResourceLoadEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "org.lorislab.barn.ResourceLoad";
+
+    public static final String BUNDLE = "bundle";
+
+    public static final String CLASSPATH = "classpath";
+
+    @Label("Resource")
+    public String resource;
+
+    @Label("Source")
+    @Description("The source of the resource: bundle or classpath")
+    public String source;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The execution of the migration or test data script.
+ */
+@Name(ScriptEvent.NAME)
+@Label("Script Execution")
+@Category("Barn")
+@Description("Execution of the migration or test data script")
+@Enabled(false)
+@StackTrace(false)
+public class ScriptEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "org.lorislab.barn.Script";
+
+    @Label("Script")
+    public String script;
+
+    @Label("Version")
+    @Description("The version of the versioned migration")
+    public String version;
+
+    @Label("Size")
+    @Description("The size of the executed statements in characters")
+    public long size;
+
+    @Label("Statements")
+    @Description("The number of executed statements")
+    public int statements;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * The checksum algorithm of the migration scripts.
+ */
+public enum ChecksumAlgorithm {
+
+    /**
+     * The CRC32 checksum, the default and legacy algorithm.
+     */
+    CRC32 {
+        @Override
+        public Checksum create() {
+            return new CRC32();
+        }
+    },
+
+    /**
+     * The CRC32C checksum, hardware accelerated on most platforms.
+     */
+    CRC32C {
+        @Override
+        public Checksum create() {
+            return new CRC32C();
+        }
+    },
+
+    /**
+     * The 64-bit xxHash, less collisions for large migration sets.
+     */
+    XXHASH64 {
+        @Override
+        public Checksum create() {
+            return new XxHash64();
+        }
+    };
+
+    /**
+     * Creates the checksum of this algorithm.
+     *
+     * @return the checksum
+     */
+    public abstract Checksum create();
+
+    /**
+     * Creates the checksum of this algorithm.
+     *
+     * @param normalize {@code true} to ignore the line endings and the trailing whitespace
+     * @return the checksum
+     */
+    public Checksum create(boolean normalize) {
+        Checksum checksum = create();
+        return normalize ? new NormalizedChecksum(checksum) : checksum;
+    }
+
+    /**
+     * Returns {@code true} if the checksum is the legacy CRC32 checksum of the raw content.
+     *
+     * @param normalize the normalize flag
+     * @return the legacy flag
+     */
+    public boolean isLegacy(boolean normalize) {
+        return this == CRC32 && !normalize;
+    }
+}
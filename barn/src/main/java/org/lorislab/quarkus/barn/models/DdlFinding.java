@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+/**
+ * The blocking DDL operation found in the statement of the migration script.
+ */
+public class DdlFinding {
+
+    /**
+     * The severity of the rule.
+     */
+    public enum Severity {
+        OFF,
+        WARN,
+        ERROR
+    }
+
+    private final String script;
+
+    private final int statement;
+
+    private final String rule;
+
+    private final Severity severity;
+
+    private final String message;
+
+    private final String snippet;
+
+    /**
+     * Creates the finding.
+     *
+     * @param script the script
+     * @param statement the number of the statement in the script starting with 1
+     * @param rule the id of the rule
+     * @param severity the severity of the rule
+     * @param message the description of the operation
+     * @param snippet the beginning of the statement
+     */
+    public DdlFinding(String script, int statement, String rule, Severity severity, String message, String snippet) {
+        this.script = script;
+        this.statement = statement;
+        this.rule = rule;
+        this.severity = severity;
+        this.message = message;
+        this.snippet = snippet;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public int getStatement() {
+        return statement;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    @Override
+    public String toString() {
+        return script + " #" + statement + " [" + rule + "] " + message + ". Statement: " + snippet;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The blocking DDL operations found by the build time analysis of the migration scripts.
+ */
+public class DdlReport {
+
+    private final List<DdlFinding> findings = Collections.synchronizedList(new ArrayList<>());
+
+    private int scripts;
+
+    public void add(DdlFinding finding) {
+        findings.add(finding);
+    }
+
+    /**
+     * Counts the analyzed script.
+     */
+    public synchronized void analyzed() {
+        scripts++;
+    }
+
+    public synchronized int getScripts() {
+        return scripts;
+    }
+
+    public List<DdlFinding> getFindings() {
+        return Collections.unmodifiableList(findings);
+    }
+
+    public List<DdlFinding> getErrors() {
+        synchronized (findings) {
+            return findings.stream().filter(f -> f.getSeverity() == DdlFinding.Severity.ERROR).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Creates the JSON report.
+     *
+     * @return the JSON report
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"scripts\": ").append(getScripts()).append(",\n  \"findings\": [");
+        synchronized (findings) {
+            for (int i = 0; i < findings.size(); i++) {
+                DdlFinding finding = findings.get(i);
+                sb.append(i == 0 ? "\n" : ",\n")
+                        .append("    {\"script\": ").append(ProfileReport.string(finding.getScript()))
+                        .append(", \"statement\": ").append(finding.getStatement())
+                        .append(", \"rule\": ").append(ProfileReport.string(finding.getRule()))
+                        .append(", \"severity\": ").append(ProfileReport.string(finding.getSeverity().name().toLowerCase()))
+                        .append(", \"message\": ").append(ProfileReport.string(finding.getMessage()))
+                        .append(", \"snippet\": ").append(ProfileReport.string(finding.getSnippet()))
+                        .append('}');
+            }
+        }
+        return sb.append("\n  ]\n}\n").toString();
+    }
+
+    /**
+     * Writes the JSON report to the file.
+     *
+     * @param file the report file
+     * @throws IOException if the write fails
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The in-memory snapshot of the history table. The snapshot is loaded with one query
+ * and indexes the applied migrations by version and the repeatable migrations by description.
+ * The deferred migrations are indexed by version but they do not move the latest version,
+ * they could be applied after the migrations with higher versions.
+ */
+public class HistorySnapshot {
+
+    private final Map<String, Migration> versions = new HashMap<>();
+
+    private final Map<String, Migration> repeatables = new HashMap<>();
+
+    private long maxId = -1;
+
+    private Migration latest;
+
+    private Version latestVersion;
+
+    /**
+     * Adds the applied migration to the snapshot.
+     *
+     * @param migration the applied migration
+     */
+    public void add(Migration migration) {
+        if (migration.id != null && migration.id > maxId) {
+            maxId = migration.id;
+        }
+        if (migration.version == null) {
+            repeatables.put(migration.description, migration);
+            return;
+        }
+        versions.put(migration.version, migration);
+        if (Migration.DEFERRED_TYPE.equals(migration.type)) {
+            return;
+        }
+        Version version = Version.of(migration.version);
+        if (latestVersion == null || latestVersion.isLessThan(version)) {
+            latestVersion = version;
+            latest = migration;
+        }
+    }
+
+    /**
+     * Gets the applied migration with the highest version.
+     *
+     * @return the latest versioned migration or {@code null}
+     */
+    public Migration getLatest() {
+        return latest;
+    }
+
+    /**
+     * Gets the highest applied version.
+     *
+     * @return the latest version or {@code null}
+     */
+    public Version getLatestVersion() {
+        return latestVersion;
+    }
+
+    /**
+     * Gets the next free id of the history table.
+     *
+     * @return the next id
+     */
+    public long nextId() {
+        return maxId + 1;
+    }
+
+    public Migration getVersion(String version) {
+        return versions.get(version);
+    }
+
+    public Migration getRepeatable(String description) {
+        return repeatables.get(description);
+    }
+
+    public int size() {
+        return versions.size() + repeatables.size();
+    }
+
+    /**
+     * Checks if all versioned migrations are already applied.
+     *
+     * @param migrations the sorted versioned migrations
+     * @return {@code true} if there is no pending migration.
+     * @see #pending(List)
+     */
+    public boolean isUpToDate(List<VersionedMigration> migrations) {
+        return pending(migrations).isEmpty();
+    }
+
+    /**
+     * Gets the versioned migrations which are not applied yet. These are the migrations with higher version
+     * than the latest version and the deferred migrations with lower version which were not executed
+     * by the deferred phase.
+     *
+     * @param migrations the sorted versioned migrations
+     * @return the sorted pending migrations
+     */
+    public List<VersionedMigration> pending(List<VersionedMigration> migrations) {
+        List<VersionedMigration> result = new ArrayList<>();
+        if (migrations == null) {
+            return result;
+        }
+        // the versioned migrations are sorted
+        int index = Version.indexAfter(migrations, latestVersion);
+        for (int i = 0; i < index; i++) {
+            VersionedMigration m = migrations.get(i);
+            if (m.resource.hasDirective(ResourceLoader.DIRECTIVE_DEFERRED) && !versions.containsKey(m.resource.version)) {
+                result.add(m);
+            }
+        }
+        for (int i = index; i < migrations.size(); i++) {
+            VersionedMigration m = migrations.get(i);
+            if (!versions.containsKey(m.resource.version)) {
+                result.add(m);
+            }
+        }
+        return result;
+    }
+}
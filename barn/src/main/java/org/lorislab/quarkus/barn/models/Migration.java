@@ -16,9 +16,15 @@
 package org.lorislab.quarkus.barn.models;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 public class Migration {
 
+    /**
+     * The type of the versioned migration executed by the deferred phase.
+     */
+    public static final String DEFERRED_TYPE = "DEFERRED";
+
     public Long id;
 
     public String version;
@@ -40,4 +46,19 @@ public class Migration {
     public Boolean success;
 
     public Boolean exists;
+
+    public int[] statements;
+
+    /**
+     * The directives of the script header or {@code null}.
+     */
+    public Map<String, String> directives;
+
+    public boolean hasDirective(String name) {
+        return directives != null && directives.containsKey(name);
+    }
+
+    public String directive(String name) {
+        return directives != null ? directives.get(name) : null;
+    }
 }
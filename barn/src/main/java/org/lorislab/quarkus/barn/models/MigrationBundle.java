@@ -0,0 +1,328 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import org.lorislab.quarkus.barn.jfr.ResourceLoadEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The packed migration bundle created at build time. The bundle contains the index of the migrations
+ * (script, version, description, checksums, statement offsets, directives and content offset) and the concatenated
+ * content of the scripts. Scripts bigger than the maximal size are not packed and stay as classpath resources.
+ * The bundle is memory-mapped if it is a file, otherwise the bundle resource (jar entry) is read once in the buffer
+ * and each script is a view of the buffer at its offset.
+ */
+public class MigrationBundle {
+
+    public static final String DEFAULT_NAME = "META-INF/barn/migrations.bundle";
+
+    private static final int MAGIC = 0x4241524E;
+
+    private static final int FORMAT_VERSION = 3;
+
+    private static final long EXTERNAL = -1;
+
+    private final ByteBuffer data;
+
+    private final Map<String, Entry> entries;
+
+    private final List<VersionedMigration> versionedMigrations;
+
+    private final List<Resource> repeatableMigrations;
+
+    private MigrationBundle(ByteBuffer data, Index index) {
+        this.data = data;
+        this.entries = index.entries;
+        this.versionedMigrations = Collections.unmodifiableList(index.versioned);
+        this.repeatableMigrations = Collections.unmodifiableList(index.repeatable);
+    }
+
+    public List<VersionedMigration> getVersionedMigrations() {
+        return versionedMigrations;
+    }
+
+    public List<Resource> getRepeatableMigrations() {
+        return repeatableMigrations;
+    }
+
+    /**
+     * Returns {@code true} if the content of the script is packed in the bundle.
+     *
+     * @param script the script
+     * @return the packed flag
+     */
+    public boolean contains(String script) {
+        Entry entry = entries.get(script);
+        return entry != null && entry.offset != EXTERNAL;
+    }
+
+    /**
+     * Opens the UTF-8 reader of the packed script. The reader is a view of the bundle content at the offset
+     * of the script, the content of the bundle is not copied.
+     *
+     * @param script the script
+     * @return the reader or {@code null} if the script is not packed in the bundle.
+     */
+    public Reader open(String script) {
+        Entry entry = entries.get(script);
+        if (entry == null || entry.offset == EXTERNAL) {
+            return null;
+        }
+        ResourceLoadEvent event = new ResourceLoadEvent();
+        event.begin();
+        ByteBuffer buffer = data.duplicate();
+        buffer.position((int) entry.offset);
+        buffer.limit((int) entry.offset + entry.length);
+        InputStream in = new ByteBufferInputStream(buffer.slice());
+        return new InputStreamReader(ResourceLoader.record(in, event, script, ResourceLoadEvent.BUNDLE), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates the bundle. The versioned and repeatable migrations are written in the order of the lists.
+     *
+     * @param versionedMigrations the sorted versioned migrations
+     * @param repeatableMigrations the sorted repeatable migrations
+     * @param content the content of the script
+     * @param maxScriptSize the maximal size of the packed script
+     * @return the bundle content
+     * @throws IOException if the read of the script content fails
+     */
+    public static byte[] create(List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations,
+                                Function<String, InputStream> content, long maxScriptSize) throws IOException {
+        List<Resource> resources = new ArrayList<>();
+        if (versionedMigrations != null) {
+            versionedMigrations.forEach(m -> resources.add(m.resource));
+        }
+        if (repeatableMigrations != null) {
+            resources.addAll(repeatableMigrations);
+        }
+
+        ByteArrayOutputStream scripts = new ByteArrayOutputStream();
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(index)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(resources.size());
+            for (Resource r : resources) {
+                long offset = EXTERNAL;
+                int length = 0;
+                try (InputStream in = content.apply(r.script)) {
+                    if (in != null) {
+                        byte[] tmp = in.readNBytes((int) Math.min(maxScriptSize, Integer.MAX_VALUE - 9) + 1);
+                        if (tmp.length <= maxScriptSize) {
+                            offset = scripts.size();
+                            length = tmp.length;
+                            scripts.write(tmp);
+                        }
+                    }
+                }
+                out.writeUTF(r.script);
+                out.writeBoolean(r.repeatable);
+                writeString(out, r.version);
+                writeString(out, r.description);
+                out.writeLong(r.checksum != null ? r.checksum : 0);
+                out.writeBoolean(r.legacyChecksum != null);
+                out.writeLong(r.legacyChecksum != null ? r.legacyChecksum : 0);
+                out.writeLong(offset);
+                out.writeInt(length);
+                if (r.statements == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(r.statements.length);
+                    for (int s : r.statements) {
+                        out.writeInt(s);
+                    }
+                }
+                writeString(out, ResourceLoader.formatDirectives(r.directives));
+            }
+        }
+        byte[] result = new byte[index.size() + scripts.size()];
+        System.arraycopy(index.toByteArray(), 0, result, 0, index.size());
+        System.arraycopy(scripts.toByteArray(), 0, result, index.size(), scripts.size());
+        return result;
+    }
+
+    /**
+     * Loads the bundle from the classpath.
+     *
+     * @param name the bundle resource name
+     * @return the bundle or {@code null} if the bundle does not exist.
+     */
+    public static MigrationBundle load(String name) {
+        URL url = MigrationBundle.class.getClassLoader().getResource(name);
+        if (url == null) {
+            url = Thread.currentThread().getContextClassLoader().getResource(name);
+        }
+        if (url == null) {
+            return null;
+        }
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return of(map(url));
+            }
+            // jar or other resource, the (deflated) entry is read once and the scripts are read by offset
+            try (InputStream in = url.openStream()) {
+                return of(ByteBuffer.wrap(in.readAllBytes()));
+            }
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error load the migration bundle " + name, ex);
+        }
+    }
+
+    private static ByteBuffer map(URL url) throws Exception {
+        Path path = Paths.get(url.toURI());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Reads the bundle index from the bundle content.
+     *
+     * @param buffer the bundle content
+     * @return the bundle
+     * @throws IOException if the bundle is not valid
+     */
+    public static MigrationBundle of(ByteBuffer buffer) throws IOException {
+        ByteBuffer tmp = buffer.duplicate();
+        Index index = readIndex(new DataInputStream(new ByteBufferInputStream(tmp)));
+        // the content starts after the index
+        return new MigrationBundle(tmp.slice(), index);
+    }
+
+    private static Index readIndex(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not valid migration bundle");
+        }
+        int format = in.readInt();
+        if (format != FORMAT_VERSION) {
+            throw new IOException("Not supported migration bundle format " + format);
+        }
+        int size = in.readInt();
+        Index index = new Index(size);
+        for (int i = 0; i < size; i++) {
+            Resource r = new Resource();
+            r.script = in.readUTF();
+            r.repeatable = in.readBoolean();
+            r.version = readString(in);
+            r.description = readString(in);
+            r.checksum = in.readLong();
+            boolean legacy = in.readBoolean();
+            long legacyChecksum = in.readLong();
+            if (legacy) {
+                r.legacyChecksum = legacyChecksum;
+            }
+            Entry entry = new Entry();
+            entry.offset = in.readLong();
+            entry.length = in.readInt();
+            int statements = in.readInt();
+            if (statements >= 0) {
+                r.statements = new int[statements];
+                for (int s = 0; s < statements; s++) {
+                    r.statements[s] = in.readInt();
+                }
+            }
+            r.directives = ResourceLoader.parseDirectives(readString(in));
+            index.entries.put(r.script, entry);
+            if (r.repeatable) {
+                index.repeatable.add(r);
+            } else {
+                index.versioned.add(new VersionedMigration(r));
+            }
+        }
+        return index;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static class Entry {
+
+        long offset;
+
+        int length;
+    }
+
+    private static class Index {
+
+        final Map<String, Entry> entries;
+
+        final List<VersionedMigration> versioned = new ArrayList<>();
+
+        final List<Resource> repeatable = new ArrayList<>();
+
+        Index(int size) {
+            entries = new HashMap<>(size * 2);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
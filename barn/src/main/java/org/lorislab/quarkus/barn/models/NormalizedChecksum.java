@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
+/**
+ * The checksum of the normalized content. The line endings {@code \r\n} and {@code \r} are replaced
+ * with {@code \n}, the trailing spaces and tabs of the lines and the trailing whitespace of the content
+ * are ignored. The content is normalized while streaming.
+ */
+final class NormalizedChecksum implements Checksum {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Checksum checksum;
+
+    private final byte[] out = new byte[BUFFER_SIZE];
+
+    private int size;
+
+    private byte[] spaces = new byte[16];
+
+    private int pendingSpaces;
+
+    private int pendingLines;
+
+    private boolean cr;
+
+    NormalizedChecksum(Checksum checksum) {
+        this.checksum = checksum;
+    }
+
+    @Override
+    public void update(int b) {
+        byte c = (byte) b;
+        if (c == '\n' && cr) {
+            cr = false;
+            return;
+        }
+        cr = c == '\r';
+        if (c == '\n' || c == '\r') {
+            // the trailing whitespace of the line is ignored
+            pendingSpaces = 0;
+            pendingLines++;
+            return;
+        }
+        if (c == ' ' || c == '\t') {
+            if (pendingSpaces == spaces.length) {
+                spaces = Arrays.copyOf(spaces, spaces.length * 2);
+            }
+            spaces[pendingSpaces++] = c;
+            return;
+        }
+        for (; pendingLines > 0; pendingLines--) {
+            write((byte) '\n');
+        }
+        for (int i = 0; i < pendingSpaces; i++) {
+            write(spaces[i]);
+        }
+        pendingSpaces = 0;
+        write(c);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            update(b[i]);
+        }
+    }
+
+    @Override
+    public long getValue() {
+        flush();
+        return checksum.getValue();
+    }
+
+    @Override
+    public void reset() {
+        checksum.reset();
+        size = 0;
+        pendingSpaces = 0;
+        pendingLines = 0;
+        cr = false;
+    }
+
+    private void write(byte c) {
+        if (size == out.length) {
+            flush();
+        }
+        out[size++] = c;
+    }
+
+    private void flush() {
+        checksum.update(out, 0, size);
+        size = 0;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The profiles of the executed migration scripts.
+ */
+public class ProfileReport {
+
+    private final List<ScriptProfile> profiles = Collections.synchronizedList(new ArrayList<>());
+
+    public void add(ScriptProfile profile) {
+        profiles.add(profile);
+    }
+
+    public List<ScriptProfile> getProfiles() {
+        return Collections.unmodifiableList(profiles);
+    }
+
+    /**
+     * Creates the JSON report. The unsupported metrics are {@code null}.
+     *
+     * @return the JSON report
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"scripts\": [");
+        synchronized (profiles) {
+            for (int i = 0; i < profiles.size(); i++) {
+                ScriptProfile profile = profiles.get(i);
+                sb.append(i == 0 ? "\n" : ",\n")
+                        .append("    {\"script\": ").append(string(profile.getScript()))
+                        .append(", \"version\": ").append(string(profile.getVersion()))
+                        .append(", \"executionTime\": ").append(profile.getExecutionTime());
+                for (ScriptProfile.Metric metric : ScriptProfile.Metric.values()) {
+                    long value = profile.get(metric);
+                    sb.append(", \"").append(metric.getKey()).append("\": ").append(value < 0 ? "null" : Long.toString(value));
+                }
+                sb.append('}');
+            }
+        }
+        return sb.append("\n  ]\n}\n").toString();
+    }
+
+    /**
+     * Writes the JSON report to the file.
+     *
+     * @param file the report file
+     * @throws IOException if the write fails
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String string(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+/**
+ * The comparison of the execution time of the repeatable script with the baseline of the previous runs.
+ */
+public class RegressionCheck {
+
+    private final String script;
+
+    private final String description;
+
+    private final long time;
+
+    private final long baseline;
+
+    private final int runs;
+
+    private final boolean regressed;
+
+    /**
+     * Creates the check of the script.
+     *
+     * @param script the script
+     * @param description the description of the repeatable migration
+     * @param time the execution time in milliseconds
+     * @param baseline the baseline execution time in milliseconds or {@code -1} for the first run
+     * @param runs the number of runs of the baseline
+     * @param regressed {@code true} if the execution time exceeds the baseline
+     */
+    public RegressionCheck(String script, String description, long time, long baseline, int runs, boolean regressed) {
+        this.script = script;
+        this.description = description;
+        this.time = time;
+        this.baseline = baseline;
+        this.runs = runs;
+        this.regressed = regressed;
+    }
+
+    /**
+     * Compares the execution time of the script with the baseline. The script regressed if the execution time
+     * exceeds the baseline multiplied by the factor and the difference is at least the threshold.
+     *
+     * @param script the script
+     * @param description the description of the repeatable migration
+     * @param time the execution time in milliseconds
+     * @param baseline the baseline execution time in milliseconds or {@code -1} for the first run
+     * @param runs the number of runs of the baseline or {@code 0} for the first run
+     * @param factor the regression factor
+     * @param threshold the minimal difference to the baseline in milliseconds
+     * @return the check of the script
+     */
+    public static RegressionCheck of(String script, String description, long time, long baseline, int runs,
+                                     double factor, long threshold) {
+        boolean regressed = runs > 0 && time > baseline * factor && time - baseline >= threshold;
+        return new RegressionCheck(script, description, time, baseline, runs, regressed);
+    }
+
+    /**
+     * Gets the number of runs of the updated baseline.
+     *
+     * @param window the maximal number of runs of the rolling average
+     * @return the number of runs including this run
+     */
+    public int nextRuns(int window) {
+        return runs > 0 ? Math.min(runs + 1, window) : 1;
+    }
+
+    /**
+     * Gets the updated baseline, the rolling average of the last runs including this run.
+     *
+     * @param window the maximal number of runs of the rolling average
+     * @return the updated baseline in milliseconds
+     */
+    public long nextBaseline(int window) {
+        return runs > 0 ? baseline + (time - baseline) / nextRuns(window) : time;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public long getBaseline() {
+        return baseline;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public boolean isRegressed() {
+        return regressed;
+    }
+
+    /**
+     * Gets the ratio of the execution time to the baseline.
+     *
+     * @return the ratio or {@code -1} without the baseline
+     */
+    public double getRatio() {
+        if (baseline < 0) {
+            return -1;
+        }
+        return (double) time / Math.max(baseline, 1);
+    }
+}
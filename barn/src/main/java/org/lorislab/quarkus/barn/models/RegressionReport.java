@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * The execution time checks of the repeatable scripts of one migration.
+ */
+public class RegressionReport {
+
+    private final String environment;
+
+    private final List<RegressionCheck> checks = Collections.synchronizedList(new ArrayList<>());
+
+    public RegressionReport(String environment) {
+        this.environment = environment;
+    }
+
+    public String getEnvironment() {
+        return environment;
+    }
+
+    public void add(RegressionCheck check) {
+        checks.add(check);
+    }
+
+    public List<RegressionCheck> getChecks() {
+        return Collections.unmodifiableList(checks);
+    }
+
+    public List<RegressionCheck> getRegressions() {
+        synchronized (checks) {
+            return checks.stream().filter(RegressionCheck::isRegressed).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Creates the JSON report.
+     *
+     * @return the JSON report
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"environment\": ").append(ProfileReport.string(environment))
+                .append(",\n  \"scripts\": [");
+        synchronized (checks) {
+            for (int i = 0; i < checks.size(); i++) {
+                RegressionCheck check = checks.get(i);
+                sb.append(i == 0 ? "\n" : ",\n")
+                        .append("    {\"script\": ").append(ProfileReport.string(check.getScript()))
+                        .append(", \"description\": ").append(ProfileReport.string(check.getDescription()))
+                        .append(", \"executionTime\": ").append(check.getTime())
+                        .append(", \"baseline\": ").append(check.getBaseline() < 0 ? "null" : Long.toString(check.getBaseline()))
+                        .append(", \"runs\": ").append(check.getRuns())
+                        .append(", \"ratio\": ").append(check.getRatio() < 0 ? "null" : String.format(Locale.ROOT, "%.2f", check.getRatio()))
+                        .append(", \"regressed\": ").append(check.isRegressed())
+                        .append('}');
+            }
+        }
+        return sb.append("\n  ]\n}\n").toString();
+    }
+
+    /**
+     * Writes the JSON report to the file.
+     *
+     * @param file the report file
+     * @throws IOException if the write fails
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.lorislab.quarkus.barn.models;
 
+import java.util.Map;
+
 public class Resource implements Comparable<Resource> {
 
     public String version;
@@ -25,8 +27,44 @@ public class Resource implements Comparable<Resource> {
 
     public Long checksum;
 
+    /**
+     * The CRC32 checksum of the raw content if the checksum is created with other algorithm
+     * or from the normalized content, otherwise {@code null}.
+     */
+    public Long legacyChecksum;
+
     public boolean repeatable;
 
+    /**
+     * The offsets of the statements created by the build time split of the script.
+     */
+    public int[] statements;
+
+    /**
+     * The directives of the script header {@code -- barn:<name>[=<value>]} or {@code null}.
+     */
+    public Map<String, String> directives;
+
+    /**
+     * Checks if the script header contains the directive.
+     *
+     * @param name the name of the directive
+     * @return {@code true} if the directive exists
+     */
+    public boolean hasDirective(String name) {
+        return directives != null && directives.containsKey(name);
+    }
+
+    /**
+     * Gets the value of the directive of the script header.
+     *
+     * @param name the name of the directive
+     * @return the value of the directive or {@code null}
+     */
+    public String directive(String name) {
+        return directives != null ? directives.get(name) : null;
+    }
+
     @Override
     public String toString() {
         return "Resource{" +
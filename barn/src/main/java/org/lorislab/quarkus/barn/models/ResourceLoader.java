@@ -15,13 +15,25 @@
  */
 package org.lorislab.quarkus.barn.models;
 
+import org.lorislab.quarkus.barn.jfr.ResourceLoadEvent;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
 
 public class ResourceLoader {
 
@@ -31,6 +43,34 @@ public class ResourceLoader {
 
     public static final String PREFIX_REPEATABLE_MIG = "R";
 
+    /**
+     * The prefix of the directive in the comment of the script header, for example {@code -- barn:deferred}.
+     */
+    public static final String DIRECTIVE_PREFIX = "barn:";
+
+    /**
+     * The directive of the versioned migration which is executed after the start of the application.
+     */
+    public static final String DIRECTIVE_DEFERRED = "deferred";
+
+    /**
+     * The directive of the migration which is executed outside of the transaction, for example
+     * {@code CREATE INDEX CONCURRENTLY}. The history is written in the separate transaction.
+     */
+    public static final String DIRECTIVE_NO_TRANSACTION = "no-transaction";
+
+    /**
+     * The directive of the lock timeout of the migration, for example {@code -- barn:lock-timeout=5s}.
+     */
+    public static final String DIRECTIVE_LOCK_TIMEOUT = "lock-timeout";
+
+    /**
+     * The directive of the statement timeout of the migration, for example {@code -- barn:statement-timeout=10m}.
+     */
+    public static final String DIRECTIVE_STATEMENT_TIMEOUT = "statement-timeout";
+
+    private static final int BUFFER_SIZE = 8192;
+
     public static void validateResources(List<Resource> resources) {
         Set<String> version = new HashSet<>();
         for (Resource r : resources) {
@@ -102,6 +142,175 @@ public class ResourceLoader {
         return crc.getValue();
     }
 
+    /**
+     * Creates the checksum of the content.
+     *
+     * @param value the content
+     * @param algorithm the checksum algorithm
+     * @param normalize {@code true} to ignore the line endings and the trailing whitespace
+     * @return the checksum of the content
+     */
+    public static long checksum(byte[] value, ChecksumAlgorithm algorithm, boolean normalize) {
+        Checksum checksum = algorithm.create(normalize);
+        if (value != null) {
+            checksum.update(value, 0, value.length);
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * Creates the input stream which computes the checksum of the content while reading.
+     *
+     * @param in the input stream
+     * @return the checked input stream
+     */
+    public static CheckedInputStream checksumStream(InputStream in) {
+        return new CheckedInputStream(in, new CRC32());
+    }
+
+    /**
+     * Creates the input stream which computes the checksum of the content with the algorithm while reading.
+     *
+     * @param in the input stream
+     * @param algorithm the checksum algorithm
+     * @param normalize {@code true} to ignore the line endings and the trailing whitespace
+     * @return the checked input stream
+     */
+    public static CheckedInputStream checksumStream(InputStream in, ChecksumAlgorithm algorithm, boolean normalize) {
+        return new CheckedInputStream(in, algorithm.create(normalize));
+    }
+
+    /**
+     * Reads the rest of the stream and returns the checksum of the whole content.
+     * The stream is read in chunks, the content is not kept in memory.
+     *
+     * @param in the checked input stream
+     * @return the checksum of the content
+     * @throws IOException if the read of the stream fails
+     */
+    public static long checksum(CheckedInputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (in.read(buffer) >= 0) {
+            // read to the end of the stream
+        }
+        return in.getChecksum().getValue();
+    }
+
+    /**
+     * Creates the fingerprint of the whole migration set. The fingerprint depends on the order,
+     * versions, descriptions and checksums of the versioned and repeatable migrations.
+     *
+     * @param versionedMigrations the sorted versioned migrations
+     * @param repeatableMigrations the sorted repeatable migrations
+     * @return the fingerprint of the migrations
+     */
+    public static long fingerprint(List<VersionedMigration> versionedMigrations, List<Resource> repeatableMigrations) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (versionedMigrations != null) {
+                for (VersionedMigration m : versionedMigrations) {
+                    update(digest, PREFIX_VERSION_MIG, m.resource.version, m.resource.description, m.resource.checksum);
+                }
+            }
+            if (repeatableMigrations != null) {
+                for (Resource r : repeatableMigrations) {
+                    update(digest, PREFIX_REPEATABLE_MIG, r.version, r.description, r.checksum);
+                }
+            }
+            byte[] hash = digest.digest();
+            long result = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                result = (result << 8) | (hash[i] & 0xFF);
+            }
+            return result;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Error create the fingerprint of the migrations", ex);
+        }
+    }
+
+    private static void update(MessageDigest digest, String prefix, String version, String description, Long checksum) {
+        String item = prefix + "|" + version + "|" + description + "|" + checksum + "\n";
+        digest.update(item.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the directives of the script header. The header are the comment lines before the first statement,
+     * each directive is one line {@code -- barn:<name>} or {@code -- barn:<name>=<value>}.
+     *
+     * @param reader the script reader
+     * @return the directives or {@code null} if the header does not contain any directive
+     * @throws IOException if the read of the script fails
+     */
+    public static Map<String, String> directives(Reader reader) throws IOException {
+        Map<String, String> result = null;
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (!line.startsWith("--")) {
+                break;
+            }
+            line = line.substring(2).strip();
+            if (!line.startsWith(DIRECTIVE_PREFIX)) {
+                continue;
+            }
+            if (result == null) {
+                result = new LinkedHashMap<>();
+            }
+            directive(result, line.substring(DIRECTIVE_PREFIX.length()));
+        }
+        return result;
+    }
+
+    /**
+     * Formats the directives to the string {@code name[=value],...}.
+     *
+     * @param directives the directives
+     * @return the directives string or {@code null} if there is no directive
+     */
+    public static String formatDirectives(Map<String, String> directives) {
+        if (directives == null || directives.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        directives.forEach((name, value) -> {
+            sb.append(sb.length() == 0 ? "" : ",").append(name);
+            if (value != null) {
+                sb.append('=').append(value);
+            }
+        });
+        return sb.toString();
+    }
+
+    /**
+     * Parses the directives string created by {@link #formatDirectives(Map)}.
+     *
+     * @param value the directives string
+     * @return the directives or {@code null} if there is no directive
+     */
+    public static Map<String, String> parseDirectives(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String item : value.split(",")) {
+            directive(result, item);
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    private static void directive(Map<String, String> directives, String item) {
+        int index = item.indexOf('=');
+        String name = (index < 0 ? item : item.substring(0, index)).strip();
+        if (name.isEmpty()) {
+            return;
+        }
+        directives.put(name, index < 0 ? null : item.substring(index + 1).strip());
+    }
+
     public static byte[] loadResourceContent(String path) {
         try {
             String tmp = path;
@@ -119,6 +328,44 @@ public class ResourceLoader {
         }
     }
 
+    /**
+     * Opens the UTF-8 reader of the resource.
+     *
+     * @param path the resource path
+     * @return the reader or {@code null} if the resource does not exist.
+     */
+    public static Reader openResource(String path) {
+        String tmp = path;
+        if (!tmp.startsWith("/")) {
+            tmp = "/" + tmp;
+        }
+        ResourceLoadEvent event = new ResourceLoadEvent();
+        event.begin();
+        InputStream in = createResourceStream(tmp);
+        if (in == null) {
+            return null;
+        }
+        return new InputStreamReader(record(in, event, path, ResourceLoadEvent.CLASSPATH), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records the load of the resource as flight recorder event if the event is enabled.
+     *
+     * @param in the resource stream
+     * @param event the started event
+     * @param path the resource path
+     * @param source the source of the resource
+     * @return the resource stream which commits the event on close
+     */
+    static InputStream record(InputStream in, ResourceLoadEvent event, String path, String source) {
+        if (!event.isEnabled()) {
+            return in;
+        }
+        event.resource = path;
+        event.source = source;
+        return new RecordedInputStream(in, event);
+    }
+
     private static InputStream createResourceStream(String path) {
         InputStream in = ResourceLoader.class.getResourceAsStream(path);
         if (in == null) {
@@ -134,4 +381,59 @@ public class ResourceLoader {
         }
         return new String(data, StandardCharsets.UTF_8);
     }
+
+    /**
+     * The input stream which counts the read bytes and commits the load event on close.
+     */
+    private static class RecordedInputStream extends FilterInputStream {
+
+        private final ResourceLoadEvent event;
+
+        private long bytes;
+
+        private boolean closed;
+
+        RecordedInputStream(InputStream in, ResourceLoadEvent event) {
+            super(in);
+            this.event = event;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                bytes += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            if (!closed) {
+                closed = true;
+                event.end();
+                if (event.shouldCommit()) {
+                    event.bytes = bytes;
+                    event.commit();
+                }
+            }
+        }
+    }
 }
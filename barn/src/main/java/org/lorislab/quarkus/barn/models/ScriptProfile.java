@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+/**
+ * The database resources used by the migration script. The metrics are the difference of the database
+ * statistics before and after the script, the metric is {@code -1} if the database does not support it.
+ */
+public class ScriptProfile {
+
+    /**
+     * The profiled metrics. The order of the metrics is the order of the columns of the profile query.
+     */
+    public enum Metric {
+        SHARED_BLOCKS_READ("sharedBlocksRead"),
+        SHARED_BLOCKS_HIT("sharedBlocksHit"),
+        LOCAL_BLOCKS_READ("localBlocksRead"),
+        LOCAL_BLOCKS_HIT("localBlocksHit"),
+        ROWS("rows"),
+        TEMP_BYTES("tempBytes"),
+        WAL_BYTES("walBytes");
+
+        private final String key;
+
+        Metric(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final String script;
+
+    private final String version;
+
+    private final long[] values;
+
+    private final long executionTime;
+
+    /**
+     * Creates the profile of the script.
+     *
+     * @param script the script
+     * @param version the version or {@code null} for repeatable migration
+     * @param before the statistics before the script
+     * @param after the statistics after the script
+     * @param executionTime the execution time in milliseconds
+     */
+    public ScriptProfile(String script, String version, long[] before, long[] after, long executionTime) {
+        this.script = script;
+        this.version = version;
+        this.executionTime = executionTime;
+        this.values = new long[Metric.values().length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = before[i] < 0 || after[i] < 0 ? -1 : Math.max(after[i] - before[i], 0);
+        }
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    public long get(Metric metric) {
+        return values[metric.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ScriptProfile{script='").append(script).append("', time=").append(executionTime);
+        for (Metric metric : Metric.values()) {
+            if (get(metric) >= 0) {
+                sb.append(", ").append(metric.getKey()).append('=').append(get(metric));
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -19,12 +19,36 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * The migration version. The version is parsed once to the primitive array of numbers, the public list
+ * of numbers is kept for the API and the recorder. The hash code and the packed sort key are computed
+ * on the first use. The packed key contains up to four numbers in the range {@code 0 - 65534} and is used
+ * for the comparison if both versions have the packed key.
+ */
 public class Version implements Comparable<Version> {
 
+    private static final int PACKED_NUMBERS = 4;
+
+    private static final int PACKED_BITS = 16;
+
+    private static final int PACKED_MAX = (1 << PACKED_BITS) - 2;
+
+    // not packable version
+    private static final long NO_KEY = -1L;
+
     public String value;
 
     public List<Integer> numbers;
 
+    // the lazy computed values, the numbers could be set by the recorder
+    private transient volatile boolean init;
+
+    private transient int[] parts;
+
+    private transient int hash;
+
+    private transient long key;
+
     public Version() {
     }
 
@@ -33,19 +57,108 @@ public class Version implements Comparable<Version> {
             throw new IllegalArgumentException("The migration version value is null!");
         }
         this.value = value;
-        this.numbers = Arrays.stream(value.split("\\.")).map(Integer::valueOf).collect(Collectors.toList());
+        this.parts = parse(value);
+        this.numbers = Arrays.stream(parts).boxed().collect(Collectors.toList());
+        init();
     }
 
     public static Version of(String value) {
         return new Version(value);
     }
 
+    /**
+     * Parses the version numbers separated by dot. The trailing empty parts are ignored.
+     *
+     * @param value the version value
+     * @return the version numbers
+     */
+    static int[] parse(String value) {
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end == 0) {
+            return new int[0];
+        }
+        int size = 1;
+        for (int i = 0; i < end; i++) {
+            if (value.charAt(i) == '.') {
+                size++;
+            }
+        }
+        int[] result = new int[size];
+        int start = 0;
+        for (int i = 0; i < size; i++) {
+            int dot = value.indexOf('.', start);
+            int stop = dot < 0 || dot > end ? end : dot;
+            result[i] = Integer.parseInt(value, start, stop, 10);
+            start = stop + 1;
+        }
+        return result;
+    }
+
+    private void init() {
+        if (init) {
+            return;
+        }
+        if (parts == null) {
+            parts = numbers.stream().mapToInt(Integer::intValue).toArray();
+        }
+        hash = Arrays.hashCode(parts);
+        key = pack(parts);
+        init = true;
+    }
+
+    private static long pack(int[] numbers) {
+        if (numbers == null || numbers.length > PACKED_NUMBERS) {
+            return NO_KEY;
+        }
+        long result = 0;
+        for (int i = 0; i < PACKED_NUMBERS; i++) {
+            long item = 0;
+            if (i < numbers.length) {
+                if (numbers[i] < 0 || numbers[i] > PACKED_MAX) {
+                    return NO_KEY;
+                }
+                // the missing number is less than any number
+                item = numbers[i] + 1;
+            }
+            result = (result << PACKED_BITS) | item;
+        }
+        return result;
+    }
+
+    /**
+     * Finds the index of the first version bigger than the version in the sorted list.
+     *
+     * @param sorted the sorted list of versions
+     * @param version the version
+     * @return the index of the first bigger version or the size of the list.
+     */
+    public static int indexAfter(List<? extends Version> sorted, Version version) {
+        if (version == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted.get(mid).compareTo(version) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     @Override
     public int hashCode() {
         if (numbers == null) {
             return 0;
         }
-        return numbers.hashCode();
+        init();
+        return hash;
     }
 
     @Override
@@ -76,9 +189,14 @@ public class Version implements Comparable<Version> {
         if (version == null) {
             return 1;
         }
-        int size = Math.max(numbers.size(), version.numbers.size());
+        init();
+        version.init();
+        if (key != NO_KEY && version.key != NO_KEY) {
+            return Long.compareUnsigned(key, version.key);
+        }
+        int size = Math.max(parts.length, version.parts.length);
         for (int i = 0; i < size; i++) {
-            int result = get(numbers, i).compareTo(get(version.numbers, i));
+            int result = Integer.compare(get(parts, i), get(version.parts, i));
             if (result != 0) {
                 return result;
             }
@@ -86,8 +204,8 @@ public class Version implements Comparable<Version> {
         return 0;
     }
 
-    private static Integer get(List<Integer> items, int i) {
-        return i < items.size() ? items.get(i) : Integer.MIN_VALUE;
+    private static int get(int[] items, int i) {
+        return i < items.length ? items[i] : Integer.MIN_VALUE;
     }
 
     @Override
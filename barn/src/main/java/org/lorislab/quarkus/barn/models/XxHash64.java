@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * The streaming 64-bit xxHash with seed {@code 0}.
+ */
+final class XxHash64 implements Checksum {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final int STRIPE = 32;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] buffer = new byte[STRIPE];
+
+    private int size;
+
+    private long total;
+
+    private long v1;
+
+    private long v2;
+
+    private long v3;
+
+    private long v4;
+
+    XxHash64() {
+        reset();
+    }
+
+    @Override
+    public void update(int b) {
+        buffer[size++] = (byte) b;
+        total++;
+        if (size == STRIPE) {
+            stripe(buffer, 0);
+            size = 0;
+        }
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        total += len;
+        if (size + len < STRIPE) {
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+            return;
+        }
+        if (size > 0) {
+            int fill = STRIPE - size;
+            System.arraycopy(b, off, buffer, size, fill);
+            stripe(buffer, 0);
+            off += fill;
+            len -= fill;
+            size = 0;
+        }
+        while (len >= STRIPE) {
+            stripe(b, off);
+            off += STRIPE;
+            len -= STRIPE;
+        }
+        System.arraycopy(b, off, buffer, 0, len);
+        size = len;
+    }
+
+    @Override
+    public long getValue() {
+        long h;
+        if (total >= STRIPE) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = PRIME5;
+        }
+        h += total;
+
+        int i = 0;
+        for (; i + Long.BYTES <= size; i += Long.BYTES) {
+            h ^= round(0, (long) LONG.get(buffer, i));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        }
+        if (i + Integer.BYTES <= size) {
+            h ^= ((int) INT.get(buffer, i) & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            i += Integer.BYTES;
+        }
+        for (; i < size; i++) {
+            h ^= (buffer[i] & 0xFFL) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    @Override
+    public void reset() {
+        v1 = PRIME1 + PRIME2;
+        v2 = PRIME2;
+        v3 = 0;
+        v4 = -PRIME1;
+        size = 0;
+        total = 0;
+    }
+
+    private void stripe(byte[] b, int off) {
+        v1 = round(v1, (long) LONG.get(b, off));
+        v2 = round(v2, (long) LONG.get(b, off + 8));
+        v3 = round(v3, (long) LONG.get(b, off + 16));
+        v4 = round(v4, (long) LONG.get(b, off + 24));
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long merge(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME1 + PRIME4;
+    }
+}
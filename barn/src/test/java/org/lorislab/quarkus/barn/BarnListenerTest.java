@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BarnListenerTest {
+
+    @Test
+    public void noopListenerTest() {
+        Assertions.assertSame(BarnListener.NOOP, BarnListener.of());
+        Assertions.assertSame(BarnListener.NOOP, BarnListener.of(null, BarnListener.NOOP));
+    }
+
+    @Test
+    public void singleListenerTest() {
+        BarnListener listener = new BarnListener() { };
+        Assertions.assertSame(listener, BarnListener.of(null, listener, BarnListener.NOOP));
+    }
+
+    @Test
+    public void compositeListenerTest() {
+        List<String> events = new ArrayList<>();
+        BarnListener listener = BarnListener.of(new TestListener("a", events), null, new TestListener("b", events));
+
+        listener.phaseStarted(BarnListener.Phase.MIGRATION);
+        listener.historyWritten(2, Duration.ZERO);
+        listener.phaseFinished(BarnListener.Phase.MIGRATION, Duration.ZERO, null);
+
+        Assertions.assertEquals(List.of("a:MIGRATION", "b:MIGRATION", "a:2", "b:2", "a:finished", "b:finished"), events);
+    }
+
+    private static class TestListener implements BarnListener {
+
+        private final String name;
+
+        private final List<String> events;
+
+        TestListener(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public void phaseStarted(Phase phase) {
+            events.add(name + ":" + phase);
+        }
+
+        @Override
+        public void phaseFinished(Phase phase, Duration duration, Throwable failure) {
+            events.add(name + ":finished");
+        }
+
+        @Override
+        public void historyWritten(int migrations, Duration duration) {
+            events.add(name + ":" + migrations);
+        }
+    }
+}
@@ -18,13 +18,15 @@ package org.lorislab.quarkus.barn;
 import io.vertx.mutiny.sqlclient.Pool;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.database.Database;
 
 public class BarnTest {
 
     @Test
     public void barnConstructorTest() {
-        Assertions.assertThrows(NullPointerException.class, () -> new Barn(null, null));
+        Assertions.assertThrows(NullPointerException.class, () -> new Barn((Pool) null, null));
         Assertions.assertThrows(NullPointerException.class, () -> new Barn(new Pool(null), null));
         Assertions.assertThrows(IllegalStateException.class, () -> new Barn(new Pool(null), BarnConfig.builder().build()));
+        Assertions.assertThrows(NullPointerException.class, () -> new Barn((Database) null, BarnConfig.builder().build()));
     }
 }
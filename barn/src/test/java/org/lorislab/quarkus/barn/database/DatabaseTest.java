@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.database;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+public class DatabaseTest {
+
+    @Test
+    public void durationTest() {
+        Assertions.assertEquals(Duration.ofMillis(500), Database.duration("500"));
+        Assertions.assertEquals(Duration.ofMillis(500), Database.duration("500ms"));
+        Assertions.assertEquals(Duration.ofSeconds(5), Database.duration(" 5s "));
+        Assertions.assertEquals(Duration.ofMinutes(10), Database.duration("10 M"));
+        Assertions.assertEquals(Duration.ofHours(1), Database.duration("1h"));
+        Assertions.assertEquals(Duration.ZERO, Database.duration("0"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Database.duration(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Database.duration("5d"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Database.duration("-1s"));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.database;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.models.DdlFinding;
+import org.lorislab.quarkus.barn.models.DdlReport;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class DdlAnalyzerTest {
+
+    @Test
+    public void postgresRulesTest() {
+        DdlAnalyzer analyzer = new DdlAnalyzer(SqlSplitter.POSTGRES, null);
+        Set<String> created = new HashSet<>();
+
+        assertRules(analyzer, created, "ALTER TABLE model ALTER COLUMN ref TYPE TEXT", DdlAnalyzer.Rule.ALTER_COLUMN_TYPE);
+        assertRules(analyzer, created, "alter table model alter ref set data type bigint", DdlAnalyzer.Rule.ALTER_COLUMN_TYPE);
+        assertRules(analyzer, created, "ALTER TABLE model ADD COLUMN uid UUID DEFAULT gen_random_uuid()", DdlAnalyzer.Rule.VOLATILE_DEFAULT);
+        assertRules(analyzer, created, "ALTER TABLE model ADD COLUMN seq BIGSERIAL", DdlAnalyzer.Rule.VOLATILE_DEFAULT);
+        assertRules(analyzer, created, "ALTER TABLE model ADD COLUMN created TIMESTAMP DEFAULT now()");
+        assertRules(analyzer, created, "CREATE INDEX model_ref_idx ON model (ref)", DdlAnalyzer.Rule.CREATE_INDEX);
+        assertRules(analyzer, created, "CREATE UNIQUE INDEX CONCURRENTLY model_ref_idx ON model (ref)");
+        assertRules(analyzer, created, "ALTER TABLE model ADD CONSTRAINT model_fk FOREIGN KEY (parent) REFERENCES parent (id)", DdlAnalyzer.Rule.FOREIGN_KEY);
+        assertRules(analyzer, created, "ALTER TABLE model ADD CONSTRAINT model_fk FOREIGN KEY (parent) REFERENCES parent (id) NOT VALID");
+        assertRules(analyzer, created, "ALTER TABLE model ALTER COLUMN ref SET DEFAULT 'x'");
+
+        // the new table is empty
+        assertRules(analyzer, created, "CREATE TABLE IF NOT EXISTS \"item\" (id INT, ref VARCHAR(10))");
+        assertRules(analyzer, created, "CREATE INDEX item_ref_idx ON item (ref)");
+        assertRules(analyzer, created, "ALTER TABLE item ALTER COLUMN ref TYPE TEXT");
+    }
+
+    @Test
+    public void mysqlRulesTest() {
+        DdlAnalyzer analyzer = new DdlAnalyzer(SqlSplitter.MYSQL, null);
+        Set<String> created = new HashSet<>();
+
+        assertRules(analyzer, created, "ALTER TABLE model MODIFY COLUMN ref VARCHAR(100)", DdlAnalyzer.Rule.COPY_ALGORITHM);
+        assertRules(analyzer, created, "ALTER TABLE model ADD COLUMN ref INT, ALGORITHM=COPY", DdlAnalyzer.Rule.COPY_ALGORITHM);
+        assertRules(analyzer, created, "ALTER TABLE model CONVERT TO CHARACTER SET utf8mb4", DdlAnalyzer.Rule.COPY_ALGORITHM);
+        assertRules(analyzer, created, "ALTER TABLE model MODIFY COLUMN ref VARCHAR(100), ALGORITHM=INPLACE, LOCK=NONE");
+        assertRules(analyzer, created, "CREATE INDEX model_ref_idx ON model (ref)");
+        assertRules(analyzer, created, "ALTER TABLE model ALTER COLUMN ref TYPE TEXT");
+    }
+
+    @Test
+    public void analyzeTest() {
+        DdlAnalyzer analyzer = new DdlAnalyzer(SqlSplitter.POSTGRES, Map.of("create-index", "error", "foreign-key", "off"));
+        DdlReport report = new DdlReport();
+        String script = "-- barn:deferred\nCREATE INDEX model_ref_idx ON model (ref);\n"
+                + "/* type */ ALTER TABLE model ALTER COLUMN ref TYPE TEXT;\n"
+                + "ALTER TABLE model ADD FOREIGN KEY (parent) REFERENCES parent (id);";
+        analyzer.analyze("db/migration/V1__Test.sql", new StringReader(script), report);
+
+        Assertions.assertEquals(1, report.getScripts());
+        List<DdlFinding> findings = report.getFindings();
+        Assertions.assertEquals(2, findings.size());
+        Assertions.assertEquals(1, findings.get(0).getStatement());
+        Assertions.assertEquals("create-index", findings.get(0).getRule());
+        Assertions.assertEquals("CREATE INDEX model_ref_idx ON model (ref)", findings.get(0).getSnippet());
+        Assertions.assertEquals(DdlFinding.Severity.WARN, findings.get(1).getSeverity());
+        Assertions.assertEquals(findings.subList(0, 1), report.getErrors());
+
+        String json = report.toJson();
+        Assertions.assertTrue(json.contains("\"scripts\": 1"));
+        Assertions.assertTrue(json.contains("{\"script\": \"db/migration/V1__Test.sql\", \"statement\": 2, \"rule\": \"alter-column-type\", \"severity\": \"warn\""));
+    }
+
+    @Test
+    public void commentInLiteralTest() {
+        DdlAnalyzer analyzer = new DdlAnalyzer(SqlSplitter.POSTGRES, null);
+        DdlReport report = new DdlReport();
+        // the comment markers in the string literal are not comments
+        String script = "ALTER TABLE model ADD COLUMN note TEXT DEFAULT '--', -- note\n"
+                + "  ADD CONSTRAINT /* parent */ model_fk FOREIGN KEY (parent) REFERENCES parent (id);\n"
+                + "ALTER TABLE model ALTER COLUMN ref SET DEFAULT '/*';\n"
+                + "CREATE INDEX model_ref_idx ON model (ref) /* */;";
+        analyzer.analyze("db/migration/V1__Test.sql", new StringReader(script), report);
+
+        List<DdlFinding> findings = report.getFindings();
+        Assertions.assertEquals(2, findings.size());
+        Assertions.assertEquals(1, findings.get(0).getStatement());
+        Assertions.assertEquals("foreign-key", findings.get(0).getRule());
+        Assertions.assertEquals("ALTER TABLE model ADD COLUMN note TEXT DEFAULT '--', ADD CONSTRAINT model_fk FOR...",
+                findings.get(0).getSnippet());
+        Assertions.assertEquals(3, findings.get(1).getStatement());
+        Assertions.assertEquals("create-index", findings.get(1).getRule());
+    }
+
+    @Test
+    public void configTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DdlAnalyzer(SqlSplitter.POSTGRES, Map.of("unknown", "warn")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DdlAnalyzer(SqlSplitter.POSTGRES, Map.of("create-index", "fatal")));
+        Assertions.assertNotNull(new DdlAnalyzer(SqlSplitter.POSTGRES, Collections.emptyMap()));
+    }
+
+    private static void assertRules(DdlAnalyzer analyzer, Set<String> created, String sql, DdlAnalyzer.Rule... rules) {
+        Assertions.assertEquals(List.of(rules), analyzer.check(sql, created), sql);
+    }
+}
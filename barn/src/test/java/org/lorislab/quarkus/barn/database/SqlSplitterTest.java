@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.database;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SqlSplitterTest {
+
+    @Test
+    public void simpleTest() {
+        String sql = "create table TEST (id SERIAL, ref varchar(255));\n\nINSERT INTO test (ref) VALUES ('a;b');\n-- comment;\n";
+        List<String> result = split(SqlSplitter.POSTGRES, sql);
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("create table TEST (id SERIAL, ref varchar(255))", result.get(0));
+        Assertions.assertEquals("INSERT INTO test (ref) VALUES ('a;b')", result.get(1));
+    }
+
+    @Test
+    public void postgresTest() {
+        String sql = "CREATE FUNCTION f() RETURNS trigger AS $body$ BEGIN x := 1; RETURN NEW; END; $body$ LANGUAGE plpgsql;\n"
+                + "/* block /* nested; */ comment; */ SELECT $$a;b$$, E'it\\'s;', \"col;\" FROM t;\n"
+                + "SELECT $1 FROM t";
+        List<String> result = split(SqlSplitter.POSTGRES, sql);
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertTrue(result.get(0).endsWith("LANGUAGE plpgsql"));
+        Assertions.assertTrue(result.get(1).endsWith("\"col;\" FROM t"));
+        Assertions.assertEquals("SELECT $1 FROM t", result.get(2));
+    }
+
+    @Test
+    public void mysqlTest() {
+        String sql = "# comment;\nINSERT INTO `t;` VALUES ('it\\'s;');\n"
+                + "DELIMITER //\nCREATE PROCEDURE p() BEGIN SELECT 1; SELECT 2; END//\nDELIMITER ;\n"
+                + "SELECT 3;";
+        List<String> result = split(SqlSplitter.MYSQL, sql);
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertEquals("# comment;\nINSERT INTO `t;` VALUES ('it\\'s;')", result.get(0));
+        Assertions.assertEquals("CREATE PROCEDURE p() BEGIN SELECT 1; SELECT 2; END", result.get(1));
+        Assertions.assertEquals("SELECT 3", result.get(2));
+    }
+
+    @Test
+    public void emptyTest() {
+        Assertions.assertEquals(0, SqlSplitter.POSTGRES.split((String) null).length);
+        Assertions.assertEquals(0, SqlSplitter.POSTGRES.split("-- only comment\n;;").length);
+    }
+
+    @Test
+    public void streamTest() {
+        String sql = "CREATE FUNCTION f() RETURNS trigger AS $body$ BEGIN x := 1; RETURN NEW; END; $body$ LANGUAGE plpgsql;\n"
+                + "/* block /* nested; */ comment; */ SELECT $$a;b$$, E'it\\'s;', \"col;\" FROM t;\n"
+                + "-- comment\nSELECT $1 FROM t";
+        List<String> expected = split(SqlSplitter.POSTGRES, sql);
+
+        // small chunks, the tokens are split between the chunks
+        SqlSplitter splitter = SqlSplitter.POSTGRES.withChunkSize(3);
+        List<String> result = new ArrayList<>();
+        splitter.statements(new StringReader(sql)).forEachRemaining(result::add);
+        Assertions.assertEquals(expected, result);
+
+        // build time offsets
+        int[] offsets = splitter.split(new StringReader(sql));
+        Assertions.assertArrayEquals(SqlSplitter.POSTGRES.split(sql), offsets);
+        result.clear();
+        SqlSplitter.statements(new StringReader(sql), offsets).forEachRemaining(result::add);
+        Assertions.assertEquals(expected, result);
+    }
+
+    private static List<String> split(SqlSplitter splitter, String sql) {
+        return SqlSplitter.statements(sql, splitter.split(sql));
+    }
+}
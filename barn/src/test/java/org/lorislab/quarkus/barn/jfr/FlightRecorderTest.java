@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class FlightRecorderTest {
+
+    private static final String SETTINGS = "org/lorislab/quarkus/barn/jfr/barn.jfc";
+
+    @Test
+    public void settingsTest() throws Exception {
+        Map<String, String> settings = settings().getSettings();
+        for (String name : List.of(LockWaitEvent.NAME, ScriptEvent.NAME, HistoryQueryEvent.NAME, ResourceLoadEvent.NAME, CleanDropEvent.NAME)) {
+            Assertions.assertEquals("true", settings.get(name + "#enabled"), name);
+        }
+    }
+
+    @Test
+    public void resourceLoadEventTest(@TempDir Path dir) throws Exception {
+        byte[] data = ResourceLoader.loadResourceContent(SETTINGS);
+        Path file = dir.resolve("barn.jfr");
+        try (Recording recording = new Recording(settings())) {
+            recording.start();
+            try (Reader reader = ResourceLoader.openResource(SETTINGS)) {
+                Assertions.assertNotNull(reader);
+                while (reader.read() >= 0) {
+                    // read the resource
+                }
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> ResourceLoadEvent.NAME.equals(e.getEventType().getName()))
+                .collect(Collectors.toList());
+        Assertions.assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        Assertions.assertEquals(SETTINGS, event.getString("resource"));
+        Assertions.assertEquals(ResourceLoadEvent.CLASSPATH, event.getString("source"));
+        Assertions.assertEquals(data.length, event.getLong("bytes"));
+    }
+
+    private static Configuration settings() throws Exception {
+        try (Reader reader = ResourceLoader.openResource(SETTINGS)) {
+            return Configuration.create(reader);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+
+public class ChecksumAlgorithmTest {
+
+    @Test
+    public void xxHash64Test() {
+        Assertions.assertEquals(0xEF46DB3751D8E999L, checksum(ChecksumAlgorithm.XXHASH64, ""));
+        Assertions.assertEquals(0x44BC2CF5AD770999L, checksum(ChecksumAlgorithm.XXHASH64, "abc"));
+        Assertions.assertEquals(0xFBCEA83C8A378BF1L, checksum(ChecksumAlgorithm.XXHASH64, "Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void streamingTest() {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            long expected = ResourceLoader.checksum(data, algorithm, false);
+            for (int chunk : new int[]{1, 7, 32, 33, 100}) {
+                Checksum checksum = algorithm.create();
+                for (int i = 0; i < data.length; i += chunk) {
+                    checksum.update(data, i, Math.min(chunk, data.length - i));
+                }
+                Assertions.assertEquals(expected, checksum.getValue(), algorithm + " chunk " + chunk);
+            }
+        }
+    }
+
+    @Test
+    public void crc32Test() {
+        byte[] data = "SELECT 1;".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals(ResourceLoader.checksum(data), ResourceLoader.checksum(data, ChecksumAlgorithm.CRC32, false));
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        Assertions.assertEquals(crc.getValue(), ResourceLoader.checksum(data, ChecksumAlgorithm.CRC32C, false));
+    }
+
+    @Test
+    public void normalizeTest() {
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            long expected = checksum(algorithm, "CREATE TABLE t (\n  id int\n);\n\nSELECT 1;", true);
+            Assertions.assertEquals(expected, checksum(algorithm, "CREATE TABLE t (\r\n  id int\r\n);\r\n\r\nSELECT 1;\r\n", true));
+            Assertions.assertEquals(expected, checksum(algorithm, "CREATE TABLE t ( \t\r  id int  \r);\n \nSELECT 1; \n\n", true));
+            Assertions.assertNotEquals(expected, checksum(algorithm, "CREATE TABLE t (\n id int\n);\n\nSELECT 1;", true));
+            Assertions.assertEquals(checksum(algorithm, "CREATE TABLE t (\n  id int\n);\n\nSELECT 1;", false), expected);
+        }
+    }
+
+    @Test
+    public void normalizeStreamTest() throws IOException {
+        String sql = "SELECT 1;  \r\n".repeat(5000);
+        byte[] data = sql.getBytes(StandardCharsets.UTF_8);
+        try (CheckedInputStream in = ResourceLoader.checksumStream(new ByteArrayInputStream(data), ChecksumAlgorithm.XXHASH64, true)) {
+            Assertions.assertEquals(checksum(ChecksumAlgorithm.XXHASH64, sql.replace("  \r\n", "\n").trim(), false),
+                    ResourceLoader.checksum(in));
+        }
+    }
+
+    private static long checksum(ChecksumAlgorithm algorithm, String value) {
+        return checksum(algorithm, value, false);
+    }
+
+    private static long checksum(ChecksumAlgorithm algorithm, String value, boolean normalize) {
+        return ResourceLoader.checksum(value.getBytes(StandardCharsets.UTF_8), algorithm, normalize);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class HistorySnapshotTest {
+
+    @Test
+    public void snapshotTest() {
+        HistorySnapshot history = new HistorySnapshot();
+        history.add(create(0L, "1.0", "Test"));
+        history.add(create(1L, "1.1", "Test 2"));
+        history.add(create(2L, null, "Import"));
+        history.add(create(3L, "1.0.1", "Test 3"));
+
+        Assertions.assertEquals(4, history.nextId());
+        Assertions.assertEquals("1.1", history.getLatest().version);
+        Assertions.assertEquals(Version.of("1.1"), history.getLatestVersion());
+        Assertions.assertNotNull(history.getVersion("1.0.1"));
+        Assertions.assertNotNull(history.getRepeatable("Import"));
+        Assertions.assertNull(history.getRepeatable("Test"));
+
+        Assertions.assertTrue(history.isUpToDate(versions("1.0", "1.1")));
+        Assertions.assertFalse(history.isUpToDate(versions("1.0", "1.1", "2.0")));
+    }
+
+    @Test
+    public void emptySnapshotTest() {
+        HistorySnapshot history = new HistorySnapshot();
+        Assertions.assertEquals(0, history.nextId());
+        Assertions.assertNull(history.getLatest());
+        Assertions.assertTrue(history.isUpToDate(Collections.emptyList()));
+        Assertions.assertFalse(history.isUpToDate(versions("1.0")));
+    }
+
+    @Test
+    public void deferredSnapshotTest() {
+        HistorySnapshot history = new HistorySnapshot();
+        history.add(create(0L, "1", "Create"));
+        history.add(create(1L, "3", "Alter"));
+        Migration deferred = create(2L, "4", "Index");
+        deferred.type = Migration.DEFERRED_TYPE;
+        history.add(deferred);
+
+        // the deferred migration does not move the latest version
+        Assertions.assertEquals(Version.of("3"), history.getLatestVersion());
+        Assertions.assertEquals("3", history.getLatest().version);
+        Assertions.assertNotNull(history.getVersion("4"));
+
+        List<VersionedMigration> migrations = versions("1", "2", "3", "4");
+        migrations.get(1).resource.directives = Collections.singletonMap(ResourceLoader.DIRECTIVE_DEFERRED, null);
+        migrations.get(3).resource.directives = Collections.singletonMap(ResourceLoader.DIRECTIVE_DEFERRED, null);
+
+        // the not applied deferred migration below the latest version is pending
+        List<VersionedMigration> pending = history.pending(migrations);
+        Assertions.assertEquals(1, pending.size());
+        Assertions.assertEquals("2", pending.get(0).resource.version);
+        Assertions.assertFalse(history.isUpToDate(migrations));
+
+        Migration applied = create(3L, "2", "Index");
+        applied.type = Migration.DEFERRED_TYPE;
+        history.add(applied);
+        Assertions.assertTrue(history.isUpToDate(migrations));
+        Assertions.assertEquals(Version.of("3"), history.getLatestVersion());
+    }
+
+    private static List<VersionedMigration> versions(String... versions) {
+        return Arrays.stream(versions).map(v -> {
+            Resource r = new Resource();
+            r.version = v;
+            return new VersionedMigration(r);
+        }).collect(Collectors.toList());
+    }
+
+    private static Migration create(Long id, String version, String description) {
+        Migration m = new Migration();
+        m.id = id;
+        m.version = version;
+        m.description = description;
+        return m;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class MigrationBundleTest {
+
+    private static final Map<String, String> SCRIPTS = new HashMap<>() {{
+        put("db/migration/V1.0__Test.sql", "create table TEST (id SERIAL);");
+        put("db/migration/V1.1__Test_2.sql", "INSERT INTO test (ref) VALUES ('ěščř');");
+        put("db/migration/V2.0__Big.sql", "INSERT INTO test (ref) VALUES ('big script not packed in the bundle');");
+        put("db/migration/R__Import.sql", "INSERT INTO test (ref) VALUES ('repeatable');");
+    }};
+
+    @Test
+    public void bundleTest() throws IOException {
+        MigrationBundle bundle = MigrationBundle.of(ByteBuffer.wrap(create()));
+        assertBundle(bundle);
+    }
+
+    @Test
+    public void unlimitedBundleTest() throws IOException {
+        String script = "db/migration/V2.0__Big.sql";
+        byte[] data = MigrationBundle.create(List.of(new VersionedMigration(resource(script, null))), null,
+                s -> new ByteArrayInputStream(SCRIPTS.get(s).getBytes(StandardCharsets.UTF_8)), Long.MAX_VALUE);
+        MigrationBundle bundle = MigrationBundle.of(ByteBuffer.wrap(data));
+        try (Reader reader = bundle.open(script)) {
+            Assertions.assertEquals(SCRIPTS.get(script), read(reader));
+        }
+    }
+
+    @Test
+    public void mappedBundleTest(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve(MigrationBundle.DEFAULT_NAME);
+        Files.createDirectories(file.getParent());
+        Files.write(file, create());
+
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)) {
+            Thread.currentThread().setContextClassLoader(loader);
+            assertBundle(MigrationBundle.load(MigrationBundle.DEFAULT_NAME));
+        } finally {
+            Thread.currentThread().setContextClassLoader(cl);
+        }
+    }
+
+    @Test
+    public void jarBundleTest(@TempDir Path dir) throws IOException {
+        Path jar = dir.resolve("migrations.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry(MigrationBundle.DEFAULT_NAME));
+            out.write(create());
+            out.closeEntry();
+        }
+
+        // the deflated jar entry is read once through the jar URL
+        MigrationBundle bundle;
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+            Thread.currentThread().setContextClassLoader(loader);
+            Assertions.assertEquals("jar", loader.getResource(MigrationBundle.DEFAULT_NAME).getProtocol());
+            bundle = MigrationBundle.load(MigrationBundle.DEFAULT_NAME);
+        } finally {
+            Thread.currentThread().setContextClassLoader(cl);
+        }
+        // the scripts are read by offset after the jar is closed
+        assertBundle(bundle);
+    }
+
+    private static void assertBundle(MigrationBundle bundle) throws IOException {
+        Assertions.assertNotNull(bundle);
+        Assertions.assertEquals(3, bundle.getVersionedMigrations().size());
+        Assertions.assertEquals(1, bundle.getRepeatableMigrations().size());
+
+        Resource first = bundle.getVersionedMigrations().get(0).resource;
+        Assertions.assertEquals("1.0", first.version);
+        Assertions.assertEquals("Test", first.description);
+        Assertions.assertEquals(checksum(first.script), first.checksum);
+        Assertions.assertArrayEquals(new int[]{0, 29}, first.statements);
+        Assertions.assertNull(first.directives);
+
+        Resource deferred = bundle.getVersionedMigrations().get(1).resource;
+        Assertions.assertTrue(deferred.hasDirective(ResourceLoader.DIRECTIVE_DEFERRED));
+        Assertions.assertEquals("5s", deferred.directive("lock-timeout"));
+
+        Resource repeatable = bundle.getRepeatableMigrations().get(0);
+        Assertions.assertNull(repeatable.version);
+        Assertions.assertNull(repeatable.statements);
+        Assertions.assertEquals(42L, repeatable.legacyChecksum);
+        Assertions.assertNull(first.legacyChecksum);
+
+        for (String script : List.of("db/migration/V1.0__Test.sql", "db/migration/V1.1__Test_2.sql", "db/migration/R__Import.sql")) {
+            Assertions.assertTrue(bundle.contains(script));
+            try (Reader reader = bundle.open(script)) {
+                Assertions.assertEquals(SCRIPTS.get(script), read(reader));
+            }
+        }
+        Assertions.assertFalse(bundle.contains("db/migration/V2.0__Big.sql"));
+        Assertions.assertNull(bundle.open("db/migration/V2.0__Big.sql"));
+        Assertions.assertNull(bundle.open("db/migration/V9.0__Unknown.sql"));
+    }
+
+    private static byte[] create() throws IOException {
+        Resource deferred = resource("db/migration/V1.1__Test_2.sql", null);
+        deferred.directives = ResourceLoader.parseDirectives("deferred,lock-timeout=5s");
+        List<VersionedMigration> versioned = List.of(
+                new VersionedMigration(resource("db/migration/V1.0__Test.sql", new int[]{0, 29})),
+                new VersionedMigration(deferred),
+                new VersionedMigration(resource("db/migration/V2.0__Big.sql", null))
+        );
+        Resource r = resource("db/migration/R__Import.sql", null);
+        r.legacyChecksum = 42L;
+        List<Resource> repeatable = List.of(r);
+        return MigrationBundle.create(versioned, repeatable,
+                script -> new ByteArrayInputStream(SCRIPTS.get(script).getBytes(StandardCharsets.UTF_8)), 60);
+    }
+
+    private static Resource resource(String script, int[] statements) {
+        Resource r = ResourceLoader.createFrom(script);
+        r.checksum = checksum(script);
+        r.statements = statements;
+        return r;
+    }
+
+    private static long checksum(String script) {
+        return ResourceLoader.checksum(SCRIPTS.get(script).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[16];
+        int count;
+        while ((count = reader.read(buffer)) >= 0) {
+            sb.append(buffer, 0, count);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ProfileReportTest {
+
+    @Test
+    public void profileTest() {
+        ScriptProfile profile = new ScriptProfile("V1.0__Test.sql", "1.0",
+                new long[]{10, 20, -1, 0, 5, 0, 1000},
+                new long[]{15, 40, -1, 0, 3, 8192, 1500}, 12);
+        Assertions.assertEquals(5, profile.get(ScriptProfile.Metric.SHARED_BLOCKS_READ));
+        Assertions.assertEquals(20, profile.get(ScriptProfile.Metric.SHARED_BLOCKS_HIT));
+        Assertions.assertEquals(-1, profile.get(ScriptProfile.Metric.LOCAL_BLOCKS_READ));
+        Assertions.assertEquals(0, profile.get(ScriptProfile.Metric.LOCAL_BLOCKS_HIT));
+        // statistics reset during the script
+        Assertions.assertEquals(0, profile.get(ScriptProfile.Metric.ROWS));
+        Assertions.assertEquals(8192, profile.get(ScriptProfile.Metric.TEMP_BYTES));
+        Assertions.assertEquals(500, profile.get(ScriptProfile.Metric.WAL_BYTES));
+    }
+
+    @Test
+    public void reportTest(@TempDir Path dir) throws IOException {
+        long[] empty = new long[ScriptProfile.Metric.values().length];
+        ProfileReport report = new ProfileReport();
+        report.add(new ScriptProfile("db/V1.0__\"Test\".sql", "1.0", empty, empty, 1));
+        report.add(new ScriptProfile("db/R__Import.sql", null, empty, empty, 2));
+
+        Path file = dir.resolve("target/profile.json");
+        report.write(file);
+        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        Assertions.assertEquals("{\n  \"scripts\": [\n" +
+                "    {\"script\": \"db/V1.0__\\\"Test\\\".sql\", \"version\": \"1.0\", \"executionTime\": 1, \"sharedBlocksRead\": 0," +
+                " \"sharedBlocksHit\": 0, \"localBlocksRead\": 0, \"localBlocksHit\": 0, \"rows\": 0, \"tempBytes\": 0, \"walBytes\": 0},\n" +
+                "    {\"script\": \"db/R__Import.sql\", \"version\": null, \"executionTime\": 2, \"sharedBlocksRead\": 0," +
+                " \"sharedBlocksHit\": 0, \"localBlocksRead\": 0, \"localBlocksHit\": 0, \"rows\": 0, \"tempBytes\": 0, \"walBytes\": 0}\n" +
+                "  ]\n}\n", json);
+    }
+}
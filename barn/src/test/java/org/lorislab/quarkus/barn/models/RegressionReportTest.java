@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 lorislab.org.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.quarkus.barn.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RegressionReportTest {
+
+    @Test
+    public void reportTest() {
+        RegressionReport report = new RegressionReport("staging");
+        report.add(new RegressionCheck("db/R__View.sql", "View", 40000, 2000, 10, true));
+        report.add(new RegressionCheck("db/R__Import.sql", "Import", 15, -1, 0, false));
+
+        Assertions.assertEquals(1, report.getRegressions().size());
+        Assertions.assertEquals(20.0, report.getRegressions().get(0).getRatio());
+        Assertions.assertEquals("{\n  \"environment\": \"staging\",\n  \"scripts\": [\n" +
+                "    {\"script\": \"db/R__View.sql\", \"description\": \"View\", \"executionTime\": 40000, \"baseline\": 2000," +
+                " \"runs\": 10, \"ratio\": 20.00, \"regressed\": true},\n" +
+                "    {\"script\": \"db/R__Import.sql\", \"description\": \"Import\", \"executionTime\": 15, \"baseline\": null," +
+                " \"runs\": 0, \"ratio\": null, \"regressed\": false}\n" +
+                "  ]\n}\n", report.toJson());
+    }
+
+    @Test
+    public void checkTest() {
+        // first run, no regression and the baseline is the execution time
+        RegressionCheck first = RegressionCheck.of("db/R__View.sql", "View", 1500, -1, 0, 3, 1000);
+        Assertions.assertFalse(first.isRegressed());
+        Assertions.assertEquals(1, first.nextRuns(10));
+        Assertions.assertEquals(1500, first.nextBaseline(10));
+
+        // over the factor and the threshold
+        Assertions.assertTrue(RegressionCheck.of("db/R__View.sql", "View", 7000, 2000, 5, 3, 1000).isRegressed());
+        // over the factor, under the threshold
+        Assertions.assertFalse(RegressionCheck.of("db/R__View.sql", "View", 40, 10, 5, 3, 1000).isRegressed());
+        // over the threshold, under the factor
+        Assertions.assertFalse(RegressionCheck.of("db/R__View.sql", "View", 5000, 2000, 5, 3, 1000).isRegressed());
+
+        // rolling average of the last runs
+        RegressionCheck check = RegressionCheck.of("db/R__View.sql", "View", 2600, 2000, 2, 3, 1000);
+        Assertions.assertEquals(3, check.nextRuns(10));
+        Assertions.assertEquals(2200, check.nextBaseline(10));
+
+        // the window limits the runs
+        check = RegressionCheck.of("db/R__View.sql", "View", 3000, 2000, 10, 3, 1000);
+        Assertions.assertEquals(10, check.nextRuns(10));
+        Assertions.assertEquals(2100, check.nextBaseline(10));
+    }
+}
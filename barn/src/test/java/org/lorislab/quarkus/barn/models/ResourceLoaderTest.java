@@ -20,6 +20,14 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CheckedInputStream;
+
 public class ResourceLoaderTest {
 
     private static final Logger log = LoggerFactory.getLogger(ResourceLoaderTest.class);
@@ -59,4 +67,51 @@ public class ResourceLoaderTest {
             });
         }
     }
+
+    @Test
+    public void fingerprintTest() {
+        List<VersionedMigration> versions = List.of(versioned("V1.0__Test.sql", 1L), versioned("V1.1__Test_2.sql", 2L));
+        List<Resource> repeatable = List.of(resource("R__Import.sql", 3L));
+
+        long fingerprint = ResourceLoader.fingerprint(versions, repeatable);
+        Assertions.assertEquals(fingerprint, ResourceLoader.fingerprint(versions, repeatable));
+        Assertions.assertNotEquals(fingerprint, ResourceLoader.fingerprint(versions, List.of(resource("R__Import.sql", 4L))));
+        Assertions.assertNotEquals(fingerprint, ResourceLoader.fingerprint(versions.subList(0, 1), repeatable));
+    }
+
+    private static VersionedMigration versioned(String script, long checksum) {
+        return new VersionedMigration(resource(script, checksum));
+    }
+
+    @Test
+    public void checksumStreamTest() throws IOException {
+        byte[] data = new byte[100_000];
+        new Random(42).nextBytes(data);
+        CheckedInputStream in = ResourceLoader.checksumStream(new ByteArrayInputStream(data));
+        Assertions.assertEquals(ResourceLoader.checksum(data), ResourceLoader.checksum(in));
+    }
+
+    @Test
+    public void directivesTest() throws IOException {
+        String script = "\n-- the index of the big table\n--barn:deferred\n-- barn:lock-timeout = 5s\n"
+                + "CREATE INDEX test_idx ON test (ref);\n-- barn:ignored\n";
+        Map<String, String> directives = ResourceLoader.directives(new StringReader(script));
+        Assertions.assertEquals(List.of("deferred", "lock-timeout"), List.copyOf(directives.keySet()));
+        Assertions.assertNull(directives.get("deferred"));
+        Assertions.assertEquals("5s", directives.get("lock-timeout"));
+
+        String value = ResourceLoader.formatDirectives(directives);
+        Assertions.assertEquals("deferred,lock-timeout=5s", value);
+        Assertions.assertEquals(directives, ResourceLoader.parseDirectives(value));
+
+        Assertions.assertNull(ResourceLoader.directives(new StringReader("-- comment\nCREATE TABLE test (id INT);")));
+        Assertions.assertNull(ResourceLoader.formatDirectives(null));
+        Assertions.assertNull(ResourceLoader.parseDirectives(""));
+    }
+
+    private static Resource resource(String script, long checksum) {
+        Resource r = ResourceLoader.createFrom(script);
+        r.checksum = checksum;
+        return r;
+    }
 }
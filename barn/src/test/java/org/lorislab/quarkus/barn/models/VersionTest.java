@@ -36,4 +36,49 @@ public class VersionTest {
 
         Assertions.assertEquals(result, sorted);
     }
+
+    @Test
+    public void packedCompareTest() {
+        // packed keys
+        Assertions.assertTrue(Version.of("1").isLessThan(Version.of("1.0")));
+        Assertions.assertTrue(Version.of("1.0.9").isLessThan(Version.of("1.1")));
+        Assertions.assertEquals(Version.of("1.0"), Version.of("1.00"));
+        Assertions.assertEquals(Version.of("1.0").hashCode(), Version.of("1.00").hashCode());
+
+        // not packable versions
+        Assertions.assertTrue(Version.of("1.2.3.4").isLessThan(Version.of("1.2.3.4.5")));
+        Assertions.assertTrue(Version.of("65534").isLessThan(Version.of("65535")));
+        Assertions.assertTrue(Version.of("70000").isBiggerThan(Version.of("1.2.3.4.5")));
+        Assertions.assertTrue(Version.of("2020.12.01.1").isLessThan(Version.of("2020.12.01.1.1")));
+    }
+
+    @Test
+    public void parseTest() {
+        Assertions.assertEquals(List.of(1, 1, 1, 1, 1), Version.of("1.1.1.1.1.").numbers);
+        Assertions.assertEquals(List.of(99999999, 1), Version.of("99999999.1").numbers);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Version.of("1..2"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Version.of("a.1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Version.of(" "));
+    }
+
+    @Test
+    public void recordedTest() {
+        // the recorder sets the public fields
+        Version version = new Version();
+        version.value = "1.2";
+        version.numbers = Arrays.asList(1, 2);
+        Assertions.assertEquals(Version.of("1.2"), version);
+        Assertions.assertEquals(Version.of("1.2").hashCode(), version.hashCode());
+        Assertions.assertTrue(version.isLessThan(Version.of("1.2.1")));
+    }
+
+    @Test
+    public void indexAfterTest() {
+        List<Version> versions = Arrays.asList(Version.of("1.0"), Version.of("1.1"), Version.of("2.0"), Version.of("3.0.1"));
+        Assertions.assertEquals(0, Version.indexAfter(versions, null));
+        Assertions.assertEquals(0, Version.indexAfter(versions, Version.of("0.9")));
+        Assertions.assertEquals(2, Version.indexAfter(versions, Version.of("1.1")));
+        Assertions.assertEquals(3, Version.indexAfter(versions, Version.of("2.5")));
+        Assertions.assertEquals(4, Version.indexAfter(versions, Version.of("3.0.1")));
+    }
 }
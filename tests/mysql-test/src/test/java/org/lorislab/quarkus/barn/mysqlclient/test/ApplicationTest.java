@@ -6,6 +6,7 @@ import io.vertx.mutiny.sqlclient.Row;
 import io.vertx.mutiny.sqlclient.RowIterator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.database.Database;
 import org.lorislab.quarkus.barn.database.MySqlDatabase;
 import org.lorislab.quarkus.barn.models.Migration;
 
@@ -35,9 +36,16 @@ public class ApplicationTest extends AbstractTest {
 
             // check migrations
             Assertions.assertNotNull(migrations);
-            Assertions.assertEquals(9, migrations.size());
+            Assertions.assertEquals(10, migrations.size());
+
+            // check fingerprint
+            Migration fingerprint = migrations.get(0);
+            Assertions.assertEquals(Database.FINGERPRINT_ID, fingerprint.id);
+            Assertions.assertEquals(Database.FINGERPRINT_TYPE, fingerprint.type);
+            Assertions.assertNull(fingerprint.version);
+
             for (int i = 0; i < MIGRATIONS.size(); i++) {
-                assertEquals(MIGRATIONS.get(i), migrations.get(i));
+                assertEquals(MIGRATIONS.get(i), migrations.get(i + 1));
             }
 
             // check tables
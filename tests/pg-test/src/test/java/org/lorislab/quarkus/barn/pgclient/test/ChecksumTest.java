@@ -0,0 +1,78 @@
+package org.lorislab.quarkus.barn.pgclient.test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.mutiny.sqlclient.Pool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.Barn;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.models.ChecksumAlgorithm;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@QuarkusTest
+public class ChecksumTest extends AbstractTest {
+
+    private static final String TABLE = "barn_checksum_history";
+
+    private static final String REPEATABLE = "db/checksum/R__Insert.sql";
+
+    @Test
+    public void legacyChecksumTest() {
+        Pool client = createPool();
+        try {
+            // the repeatable script is stored with the CRC32 checksum
+            long legacy = checksum(REPEATABLE, ChecksumAlgorithm.CRC32);
+            Resource crc = resource(REPEATABLE, legacy);
+            barn(client, List.of(crc), "db/checksum/V1__Create.sql").migration();
+            Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM checksum_model"));
+            Assertions.assertEquals(legacy, repeatableChecksum(client));
+
+            // the new checksum algorithm, the checksum is rewritten without the execution of the script
+            long checksum = checksum(REPEATABLE, ChecksumAlgorithm.XXHASH64);
+            Resource xxhash = resource(REPEATABLE, checksum);
+            xxhash.legacyChecksum = legacy;
+            barn(client, List.of(xxhash), "db/checksum/V1__Create.sql", "db/checksum/V2__Alter.sql").migration();
+            Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM checksum_model"));
+            Assertions.assertEquals(checksum, repeatableChecksum(client));
+            Assertions.assertEquals(3L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id >= 0"));
+        } finally {
+            client.query("DROP TABLE IF EXISTS checksum_model").executeAndAwait();
+            client.query("DROP TABLE IF EXISTS " + TABLE).executeAndAwait();
+            client.close();
+        }
+    }
+
+    private static Barn barn(Pool client, List<Resource> repeatable, String... scripts) {
+        BarnConfig config = BarnConfig.builder()
+                .table(TABLE)
+                .versionedMigrations(Arrays.stream(scripts).map(s -> new VersionedMigration(resource(s, 0L))).collect(Collectors.toList()))
+                .repeatableMigrations(repeatable)
+                .build();
+        return new Barn(client, config);
+    }
+
+    private static Resource resource(String script, long checksum) {
+        Resource r = ResourceLoader.createFrom(script);
+        r.checksum = checksum;
+        return r;
+    }
+
+    private static long checksum(String script, ChecksumAlgorithm algorithm) {
+        return ResourceLoader.checksum(ResourceLoader.loadResource(script).getBytes(StandardCharsets.UTF_8), algorithm, false);
+    }
+
+    private static long repeatableChecksum(Pool client) {
+        return count(client, "SELECT checksum FROM " + TABLE + " WHERE version IS NULL AND id >= 0");
+    }
+
+    private static long count(Pool client, String sql) {
+        return client.query(sql).executeAndAwait().iterator().next().getLong(0);
+    }
+}
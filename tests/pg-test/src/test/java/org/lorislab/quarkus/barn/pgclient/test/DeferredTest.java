@@ -0,0 +1,172 @@
+package org.lorislab.quarkus.barn.pgclient.test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.Barn;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.BarnListener;
+import org.lorislab.quarkus.barn.database.PostgresDatabase;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@QuarkusTest
+public class DeferredTest extends AbstractTest {
+
+    private static final String TABLE = "barn_deferred_history";
+
+    private static final String DEFERRED = "db/deferred/V2__Index.sql";
+
+    private static final String INDEX = "SELECT count(*) FROM pg_indexes WHERE indexname = 'deferred_ref_idx'";
+
+    @Test
+    public void deferredTest() {
+        Pool client = createPool();
+        try {
+            Barn barn = barn(client, true);
+            barn.migration();
+            Assertions.assertEquals(0L, count(client, INDEX));
+            Assertions.assertEquals(2L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id >= 0"));
+            Assertions.assertEquals("3", barn.version());
+            Assertions.assertEquals(List.of(DEFERRED), barn.pendingDeferred());
+
+            // other instance applied the deferred migration, the history is checked again under the lock
+            client.query("INSERT INTO " + TABLE + " (id, version, description, type, script, checksum, installed_by, execution_time, success)"
+                    + " VALUES (100, '2', 'Index', 'DEFERRED', '" + DEFERRED + "', 0, 'test', 0, true)").executeAndAwait();
+            barn.deferred();
+            Assertions.assertEquals(0L, count(client, INDEX));
+            Assertions.assertEquals(Collections.emptyList(), barn.pendingDeferred());
+
+            client.query("DELETE FROM " + TABLE + " WHERE id = 100").executeAndAwait();
+            Assertions.assertEquals(List.of(DEFERRED), barn.pendingDeferred());
+            barn.deferred();
+            Assertions.assertEquals(1L, count(client, INDEX));
+            Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE version = '2' AND type = 'DEFERRED'"));
+            Assertions.assertEquals(Collections.emptyList(), barn.pendingDeferred());
+            // the deferred migration does not change the version
+            Assertions.assertEquals("3", barn.version());
+
+            // the applied deferred migration is not executed again
+            barn.migration();
+            Assertions.assertEquals(3L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id >= 0"));
+        } finally {
+            drop(client);
+        }
+    }
+
+    @Test
+    public void disabledDeferredTest() {
+        Pool client = createPool();
+        try {
+            barn(client, true).migration();
+            Assertions.assertEquals(0L, count(client, INDEX));
+
+            // the disabled deferred migrations, the pending deferred migration below the latest version is applied
+            Barn barn = barn(client, false);
+            barn.migration();
+            Assertions.assertEquals(1L, count(client, INDEX));
+            Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE version = '2' AND type = 'DEFERRED'"));
+            Assertions.assertEquals("3", barn.version());
+
+            barn.migration();
+            Assertions.assertEquals(3L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id >= 0"));
+        } finally {
+            drop(client);
+        }
+    }
+
+    @Test
+    public void lockFailureTest() {
+        Pool client = createPool();
+        LockDatabase holder = new LockDatabase(client);
+        SqlConnection connection = client.getConnectionAndAwait();
+        try {
+            barn(client, true).migration();
+
+            // the lock is held by other instance, the failed lock is not released
+            holder.lockAndAwait(connection);
+            AtomicInteger released = new AtomicInteger();
+            BarnListener listener = new BarnListener() {
+                @Override
+                public void lockReleased(Duration hold) {
+                    released.incrementAndGet();
+                }
+            };
+            Barn barn = new Barn(client, config(true).listener(listener).lockTimeout(Duration.ofMillis(500)).build());
+            Assertions.assertThrows(IllegalStateException.class, barn::deferred);
+            Assertions.assertEquals(0, released.get());
+            Assertions.assertEquals(List.of(DEFERRED), barn.pendingDeferred());
+
+            holder.unlockAndAwait(connection);
+            barn.deferred();
+            Assertions.assertEquals(1, released.get());
+            Assertions.assertEquals(1L, count(client, INDEX));
+        } finally {
+            connection.close();
+            drop(client);
+        }
+    }
+
+    private static Barn barn(Pool client, boolean deferred) {
+        return new Barn(client, config(deferred).build());
+    }
+
+    private static BarnConfig.BarnConfigBuilder config(boolean deferred) {
+        List<VersionedMigration> versions = Stream.of("db/deferred/V1__Create.sql", DEFERRED, "db/deferred/V3__Alter.sql")
+                .map(s -> new VersionedMigration(resource(s)))
+                .collect(Collectors.toList());
+        return BarnConfig.builder()
+                .table(TABLE)
+                .versionedMigrations(versions)
+                .fingerprint(ResourceLoader.fingerprint(versions, Collections.emptyList()))
+                .deferred(deferred, Duration.ofMillis(10));
+    }
+
+    private static Resource resource(String script) {
+        Resource r = ResourceLoader.createFrom(script);
+        r.checksum = 0L;
+        try (Reader reader = ResourceLoader.openResource(script)) {
+            r.directives = ResourceLoader.directives(reader);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return r;
+    }
+
+    private static void drop(Pool client) {
+        client.query("DROP TABLE IF EXISTS deferred_model").executeAndAwait();
+        client.query("DROP TABLE IF EXISTS " + TABLE).executeAndAwait();
+        client.close();
+    }
+
+    private static long count(Pool client, String sql) {
+        return client.query(sql).executeAndAwait().iterator().next().getLong(0);
+    }
+
+    public static class LockDatabase extends PostgresDatabase {
+
+        public LockDatabase(Pool client) {
+            super(TABLE, client);
+        }
+
+        void lockAndAwait(SqlConnection connection) {
+            lock(connection, new Run()).await().indefinitely();
+        }
+
+        void unlockAndAwait(SqlConnection connection) {
+            unlock(connection).await().indefinitely();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.lorislab.quarkus.barn.pgclient.test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.Barn;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@QuarkusTest
+public class FingerprintTest extends AbstractTest {
+
+    private static final String TABLE = "barn_fingerprint_history";
+
+    private static final String SCRIPT = "db/fingerprint/V1__Create.sql";
+
+    @Test
+    public void fingerprintTest() throws Exception {
+        Pool client = createPool();
+        try {
+            barn(client, 1L).migration();
+            assertFingerprint(client, 1L);
+
+            // the migrated database, the new fingerprint is stored with the current user
+            barn(client, 2L).migration();
+            assertFingerprint(client, 2L);
+            barn(client, 3L).migration();
+            assertFingerprint(client, 3L);
+
+            // the concurrent instances with the new fingerprint are serialized by the lock
+            CompletableFuture<Void> first = barn(client, 4L).migrationUni().subscribeAsCompletionStage();
+            CompletableFuture<Void> second = barn(client, 4L).migrationUni().subscribeAsCompletionStage();
+            CompletableFuture.allOf(first, second).get(20, TimeUnit.SECONDS);
+            assertFingerprint(client, 4L);
+
+            Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id >= 0"));
+        } finally {
+            client.query("DROP TABLE IF EXISTS fingerprint_model").executeAndAwait();
+            client.query("DROP TABLE IF EXISTS " + TABLE).executeAndAwait();
+            client.close();
+        }
+    }
+
+    private static void assertFingerprint(Pool client, Long fingerprint) {
+        Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id = -1"));
+        Row row = client.query("SELECT checksum, installed_by FROM " + TABLE + " WHERE id = -1").executeAndAwait().iterator().next();
+        Assertions.assertEquals(fingerprint, row.getLong(0));
+        Assertions.assertNotNull(row.getString(1));
+    }
+
+    private static Barn barn(Pool client, Long fingerprint) {
+        Resource r = ResourceLoader.createFrom(SCRIPT);
+        r.checksum = 0L;
+        BarnConfig config = BarnConfig.builder()
+                .table(TABLE)
+                .versionedMigrations(List.of(new VersionedMigration(r)))
+                .fingerprint(fingerprint)
+                .build();
+        return new Barn(client, config);
+    }
+
+    private static long count(Pool client, String sql) {
+        return client.query(sql).executeAndAwait().iterator().next().getLong(0);
+    }
+}
@@ -0,0 +1,143 @@
+package org.lorislab.quarkus.barn.pgclient.test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.database.PostgresDatabase;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@QuarkusTest
+public class FollowerTest extends AbstractTest {
+
+    private static final String TABLE = "barn_follower_history";
+
+    private static final String SCRIPT = "db/follower/V1__Create.sql";
+
+    private static final Long FINGERPRINT = 42L;
+
+    @Test
+    public void followerNotificationTest() throws Exception {
+        Pool client = createPool();
+        SqlConnection connection = client.getConnectionAndAwait();
+        try {
+            TestDatabase leader = new TestDatabase(client);
+            TestDatabase follower = new TestDatabase(client);
+
+            // the leader session holds the lock, the follower waits for the notification
+            leader.lockAndAwait(connection);
+            CompletableFuture<Void> result = follower.migrate();
+            follower.listening.get(20, TimeUnit.SECONDS);
+
+            // the leader migrated the database, the follower skips the migration
+            leader.finishAndAwait(connection, FINGERPRINT);
+            result.get(20, TimeUnit.SECONDS);
+            Assertions.assertEquals(0L, count(client, "SELECT count(to_regclass('follower_model'))"));
+            Assertions.assertEquals(0L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id >= 0"));
+        } finally {
+            connection.close();
+            client.query("DROP TABLE IF EXISTS follower_model").executeAndAwait();
+            client.query("DROP TABLE IF EXISTS " + TABLE).executeAndAwait();
+            client.close();
+        }
+    }
+
+    @Test
+    public void followerFallbackTest() throws Exception {
+        Pool client = createPool();
+        SqlConnection connection = client.getConnectionAndAwait();
+        try {
+            TestDatabase leader = new TestDatabase(client);
+            TestDatabase follower = new TestDatabase(client);
+
+            // the leader session holds the lock, the follower waits for the notification
+            leader.lockAndAwait(connection);
+            CompletableFuture<Void> result = follower.migrate();
+            follower.listening.get(20, TimeUnit.SECONDS);
+
+            // the leader failed, the follower falls back to the lock before the follower timeout
+            leader.failAndAwait(connection);
+            result.get(20, TimeUnit.SECONDS);
+            Assertions.assertEquals(1L, count(client, "SELECT count(to_regclass('follower_model'))"));
+            Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id >= 0"));
+        } finally {
+            connection.close();
+            client.query("DROP TABLE IF EXISTS follower_model").executeAndAwait();
+            client.query("DROP TABLE IF EXISTS " + TABLE).executeAndAwait();
+            client.close();
+        }
+    }
+
+    private static long count(Pool client, String sql) {
+        return client.query(sql).executeAndAwait().iterator().next().getLong(0);
+    }
+
+    public static class TestDatabase extends PostgresDatabase {
+
+        private final AtomicInteger checks = new AtomicInteger();
+
+        /**
+         * Completed by the fingerprint check of the follower after {@code LISTEN}.
+         */
+        final CompletableFuture<Void> listening = new CompletableFuture<>();
+
+        public TestDatabase(Pool client) {
+            super(BarnConfig.builder()
+                    .table(TABLE)
+                    .follower(true, Duration.ofMinutes(5), Duration.ofSeconds(1))
+                    .build(), client);
+        }
+
+        CompletableFuture<Void> migrate() {
+            List<VersionedMigration> migrations = List.of(new VersionedMigration(resource()));
+            return doMigrationUni(migrations, List.of(), FINGERPRINT).subscribeAsCompletionStage();
+        }
+
+        void lockAndAwait(SqlConnection connection) {
+            lock(connection, new Run()).await().indefinitely();
+        }
+
+        void finishAndAwait(SqlConnection connection, Long fingerprint) {
+            query(connection, historyTableSql())
+                    .chain(() -> getCurrentUser(connection))
+                    .chain(user -> saveFingerprint(connection, fingerprint, user))
+                    .chain(() -> notifyFollowers(connection, "1"))
+                    .chain(() -> unlock(connection))
+                    .await().indefinitely();
+        }
+
+        void failAndAwait(SqlConnection connection) {
+            notifyFailure(connection, new IllegalStateException("Leader failed"))
+                    .chain(() -> unlock(connection))
+                    .await().indefinitely();
+        }
+
+        @Override
+        protected Uni<Boolean> checkFingerprint(SqlConnection connection, Long fingerprint) {
+            // the first check is before the migration, the second one after LISTEN
+            return super.checkFingerprint(connection, fingerprint)
+                    .invoke(match -> {
+                        if (checks.incrementAndGet() == 2) {
+                            listening.complete(null);
+                        }
+                    });
+        }
+
+        private static Resource resource() {
+            Resource r = ResourceLoader.createFrom(SCRIPT);
+            r.checksum = 0L;
+            return r;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.lorislab.quarkus.barn.pgclient.test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.sqlclient.runtime.BarnStatus;
+
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+@QuarkusTest
+public class HealthTest extends AbstractTest {
+
+    @Inject
+    @Readiness
+    Instance<HealthCheck> checks;
+
+    @Test
+    public void readinessTest() {
+        HealthCheckResponse response = checks.stream()
+                .map(HealthCheck::call)
+                .filter(r -> "Barn database migration".equals(r.getName()))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals(HealthCheckResponse.State.UP, response.getState());
+        Assertions.assertEquals("completed", response.getData().orElseThrow().get("state"));
+
+        Assertions.assertEquals(BarnStatus.State.COMPLETED, BarnStatus.INSTANCE.getState());
+        Assertions.assertEquals(9, BarnStatus.INSTANCE.getExecuted());
+    }
+}
@@ -0,0 +1,34 @@
+package org.lorislab.quarkus.barn.pgclient.test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+
+@QuarkusTest
+public class MetricsTest extends AbstractTest {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    public void metricsTest() {
+        // clean, migration and test data at start
+        Assertions.assertEquals(1, registry.find("barn.phase").tags("phase", "clean", "outcome", "success").timer().count());
+        Assertions.assertEquals(1, registry.find("barn.phase").tags("phase", "migration", "outcome", "success").timer().count());
+        Assertions.assertEquals(1, registry.find("barn.phase").tags("phase", "test-data", "outcome", "success").timer().count());
+
+        Assertions.assertEquals(7.0, registry.find("barn.scripts.applied").tag("type", "versioned").counter().count());
+        Assertions.assertEquals(2.0, registry.find("barn.scripts.applied").tag("type", "repeatable").counter().count());
+        Assertions.assertEquals(7, registry.find("barn.script").tag("type", "versioned").timer().count());
+        Assertions.assertEquals(2, registry.find("barn.script").tag("type", "repeatable").timer().count());
+        // the script meters are not tagged by the version of the script
+        Assertions.assertEquals(2, registry.find("barn.script").timers().size());
+        Assertions.assertNull(registry.find("barn.script").tagKeys("version").timer());
+        Assertions.assertEquals(1, registry.find("barn.lock.wait").timer().count());
+        Assertions.assertEquals(1, registry.find("barn.lock.hold").timer().count());
+        Assertions.assertNotNull(registry.find("barn.schema.version").tag("version", "3.3.1").gauge());
+    }
+}
@@ -0,0 +1,69 @@
+package org.lorislab.quarkus.barn.pgclient.test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.mutiny.sqlclient.Pool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.Barn;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+@QuarkusTest
+public class NoTransactionTest extends AbstractTest {
+
+    private static final String TABLE = "barn_notx_history";
+
+    @Test
+    public void noTransactionTest() {
+        Pool client = createPool();
+        try {
+            client.query("CREATE TABLE notx_model (id INT, ref VARCHAR(20))").executeAndAwait();
+            client.query("INSERT INTO notx_model VALUES (1, 'a'), (2, 'a')").executeAndAwait();
+
+            // index build outside of the transaction
+            barn(client, "db/notx/V1__Index.sql").migration();
+            Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM pg_indexes WHERE indexname = 'notx_ref_idx'"));
+            Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id >= 0"));
+
+            // failed index build, the invalid index is dropped
+            Barn barn = barn(client, "db/notx/V1__Index.sql", "db/notx/V2__Unique_index.sql");
+            Assertions.assertThrows(IllegalStateException.class, barn::migration);
+            Assertions.assertEquals(0L, count(client, "SELECT count(*) FROM pg_indexes WHERE indexname = 'notx_ref_unique_idx'"));
+            Assertions.assertEquals(1L, count(client, "SELECT count(*) FROM " + TABLE + " WHERE id >= 0"));
+        } finally {
+            client.query("DROP TABLE IF EXISTS notx_model").executeAndAwait();
+            client.query("DROP TABLE IF EXISTS " + TABLE).executeAndAwait();
+            client.close();
+        }
+    }
+
+    private static Barn barn(Pool client, String... scripts) {
+        BarnConfig config = BarnConfig.builder()
+                .table(TABLE)
+                .versionedMigrations(Arrays.stream(scripts).map(s -> new VersionedMigration(resource(s))).collect(Collectors.toList()))
+                .build();
+        return new Barn(client, config);
+    }
+
+    private static Resource resource(String script) {
+        Resource r = ResourceLoader.createFrom(script);
+        r.checksum = 0L;
+        try (Reader reader = ResourceLoader.openResource(script)) {
+            r.directives = ResourceLoader.directives(reader);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return r;
+    }
+
+    private static long count(Pool client, String sql) {
+        return client.query(sql).executeAndAwait().iterator().next().getLong(0);
+    }
+}
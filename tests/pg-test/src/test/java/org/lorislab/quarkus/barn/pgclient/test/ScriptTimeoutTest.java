@@ -0,0 +1,73 @@
+package org.lorislab.quarkus.barn.pgclient.test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Transaction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.Barn;
+import org.lorislab.quarkus.barn.BarnConfig;
+import org.lorislab.quarkus.barn.models.Resource;
+import org.lorislab.quarkus.barn.models.ResourceLoader;
+import org.lorislab.quarkus.barn.models.VersionedMigration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@QuarkusTest
+public class ScriptTimeoutTest extends AbstractTest {
+
+    private static final String TABLE = "barn_timeout_history";
+
+    private static final String SCRIPT = "db/timeout/V1__Alter.sql";
+
+    @Test
+    public void lockTimeoutRetryTest() {
+        Pool client = createPool();
+        SqlConnection connection = client.getConnectionAndAwait();
+        try {
+            client.query("CREATE TABLE timeout_model (id INT)").executeAndAwait();
+
+            // the table lock of other session blocks the script, the lock timeout fails all retries
+            Transaction tx = connection.begin();
+            tx.query("LOCK TABLE timeout_model IN ACCESS SHARE MODE").executeAndAwait();
+            Assertions.assertThrows(IllegalStateException.class, () -> barn(client, 1).migration());
+
+            // the lock is released before the last retry
+            CompletableFuture.runAsync(tx::commitAndAwait, CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS));
+            barn(client, 10).migration();
+            Assertions.assertEquals(1L, client.query("SELECT count(*) FROM " + TABLE + " WHERE id >= 0")
+                    .executeAndAwait().iterator().next().getLong(0));
+        } finally {
+            connection.close();
+            client.query("DROP TABLE IF EXISTS timeout_model").executeAndAwait();
+            client.query("DROP TABLE IF EXISTS " + TABLE).executeAndAwait();
+            client.close();
+        }
+    }
+
+    private static Barn barn(Pool client, int retries) {
+        BarnConfig config = BarnConfig.builder()
+                .table(TABLE)
+                .versionedMigrations(List.of(new VersionedMigration(resource())))
+                .scriptRetry(retries, Duration.ofMillis(50), Duration.ofMillis(100))
+                .build();
+        return new Barn(client, config);
+    }
+
+    private static Resource resource() {
+        Resource r = ResourceLoader.createFrom(SCRIPT);
+        r.checksum = 0L;
+        try (Reader reader = ResourceLoader.openResource(SCRIPT)) {
+            r.directives = ResourceLoader.directives(reader);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return r;
+    }
+}
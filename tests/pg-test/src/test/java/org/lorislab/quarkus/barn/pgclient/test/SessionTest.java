@@ -0,0 +1,64 @@
+package org.lorislab.quarkus.barn.pgclient.test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowIterator;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lorislab.quarkus.barn.Barn;
+import org.lorislab.quarkus.barn.database.PostgresDatabase;
+
+@QuarkusTest
+public class SessionTest extends AbstractTest {
+
+    @Test
+    public void lockSessionTest() {
+        Pool client = createPool();
+        try {
+            TestDatabase database = new TestDatabase(client);
+            long[] pids = database.lockSession(client).await().indefinitely();
+
+            // lock was held by the session backend
+            Assertions.assertEquals(pids[0], pids[1]);
+            // lock was released by the same backend
+            Assertions.assertEquals(0L, pids[2]);
+        } finally {
+            client.close();
+        }
+    }
+
+    public static class TestDatabase extends PostgresDatabase {
+
+        public TestDatabase(Pool client) {
+            super(Barn.HISTORY_TABLE, client);
+        }
+
+        /**
+         * Returns the session backend PID, the PID of the advisory lock holder and number of advisory locks after unlock.
+         */
+        public Uni<long[]> lockSession(Pool observer) {
+            long[] result = new long[3];
+            return session(connection -> lock(connection, new Run())
+                    .chain(() -> singleLong(connection, "SELECT pg_backend_pid()"))
+                    .invoke(pid -> result[0] = pid)
+                    .chain(pid -> singleLong(observer, "SELECT pid FROM pg_locks WHERE locktype = 'advisory' AND granted AND pid = " + pid))
+                    .invoke(pid -> result[1] = pid)
+                    .chain(() -> unlock(connection))
+                    .chain(() -> singleLong(observer, "SELECT count(*) FROM pg_locks WHERE locktype = 'advisory' AND pid = " + result[0]))
+                    .invoke(count -> result[2] = count)
+                    .map(x -> result)
+            );
+        }
+
+        private static Uni<Long> singleLong(SqlClient client, String sql) {
+            return client.query(sql).execute().map(rows -> {
+                RowIterator<Row> it = rows.iterator();
+                return it.hasNext() ? it.next().getLong(0) : -1L;
+            });
+        }
+    }
+}
@@ -0,0 +1 @@
+INSERT INTO checksum_model (id) VALUES (1);
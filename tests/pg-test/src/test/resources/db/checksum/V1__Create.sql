@@ -0,0 +1 @@
+CREATE TABLE checksum_model (id INT);
@@ -0,0 +1 @@
+ALTER TABLE checksum_model ADD COLUMN ref VARCHAR(20);
@@ -0,0 +1 @@
+CREATE TABLE deferred_model (id INT, ref VARCHAR(20));
@@ -0,0 +1,2 @@
+-- barn:deferred
+CREATE INDEX deferred_ref_idx ON deferred_model (ref);
@@ -0,0 +1 @@
+ALTER TABLE deferred_model ADD COLUMN name VARCHAR(20);
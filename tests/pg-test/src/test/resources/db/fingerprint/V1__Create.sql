@@ -0,0 +1 @@
+CREATE TABLE fingerprint_model (id INT);
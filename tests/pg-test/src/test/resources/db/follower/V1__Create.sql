@@ -0,0 +1 @@
+CREATE TABLE follower_model (id INT);
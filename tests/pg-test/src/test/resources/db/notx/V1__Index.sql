@@ -0,0 +1,2 @@
+-- barn:no-transaction
+CREATE INDEX CONCURRENTLY notx_ref_idx ON notx_model (ref);
@@ -0,0 +1,2 @@
+-- barn:no-transaction
+CREATE UNIQUE INDEX CONCURRENTLY notx_ref_unique_idx ON notx_model (ref);
@@ -0,0 +1,2 @@
+-- barn:lock-timeout=100ms
+ALTER TABLE timeout_model ADD COLUMN ref VARCHAR(20);